@@ -0,0 +1,128 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bcu.cmp5332.bookingsystem.data.BookingDataManager;
+import bcu.cmp5332.bookingsystem.data.CustomerDataManager;
+import bcu.cmp5332.bookingsystem.data.FlightDataManager;
+import bcu.cmp5332.bookingsystem.data.ParallelLoader;
+import bcu.cmp5332.bookingsystem.data.SnapshotDataManager;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The DataManagerBenchmark class measures loading and storing with each DataManager.
+ *
+ * The files are written once per trial by {@link Datasets#generate(int, Path)}, and the system the store
+ * benchmarks write is loaded from the generated snapshot. Bookings can only be loaded into a system
+ * that already has their flights and customers, so {@link #loadText()} loads all three text files in order;
+ * {@link #loadTextParallel()} parses them at once and links them afterwards, as the application does. The larger sizes need a large heap, e.g. {@code -jvmArgs -Xmx16g} for 10M records.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataManagerBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int records;
+
+    private FlightBookingSystem fbs;
+    private Path directory;
+    private FlightDataManager flights;
+    private CustomerDataManager customers;
+    private BookingDataManager bookings;
+    private SnapshotDataManager snapshot;
+
+    @Setup
+    public void setUp() throws IOException, FlightBookingSystemException {
+        directory = Files.createTempDirectory("fbs-benchmark");
+        Datasets.generate(records, directory);
+        flights = new FlightDataManager(directory.resolve("flights.txt").toString());
+        customers = new CustomerDataManager(directory.resolve("customers.txt").toString());
+        bookings = new BookingDataManager(directory.resolve("bookings.txt").toString());
+        snapshot = new SnapshotDataManager(directory.resolve("snapshot.bin").toString());
+        fbs = new FlightBookingSystem();
+        snapshot.loadData(fbs);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Datasets.delete(directory);
+    }
+
+    @Benchmark
+    public FlightBookingSystem loadFlights() throws IOException, FlightBookingSystemException {
+        FlightBookingSystem loaded = new FlightBookingSystem();
+        flights.loadData(loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public FlightBookingSystem loadCustomers() throws IOException, FlightBookingSystemException {
+        FlightBookingSystem loaded = new FlightBookingSystem();
+        customers.loadData(loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public FlightBookingSystem loadText() throws IOException, FlightBookingSystemException {
+        FlightBookingSystem loaded = new FlightBookingSystem();
+        flights.loadData(loaded);
+        customers.loadData(loaded);
+        bookings.loadData(loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public FlightBookingSystem loadTextParallel() throws IOException, FlightBookingSystemException {
+        return new ParallelLoader(flights, customers, bookings, Runtime.getRuntime().availableProcessors()).load();
+    }
+
+    @Benchmark
+    public FlightBookingSystem loadSnapshot() throws IOException, FlightBookingSystemException {
+        FlightBookingSystem loaded = new FlightBookingSystem();
+        snapshot.loadData(loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public void storeFlights() throws IOException {
+        flights.storeData(fbs);
+    }
+
+    @Benchmark
+    public void storeCustomers() throws IOException {
+        customers.storeData(fbs);
+    }
+
+    @Benchmark
+    public void storeBookings() throws IOException {
+        bookings.storeData(fbs);
+    }
+
+    @Benchmark
+    public void storeSnapshot() throws IOException {
+        snapshot.storeData(fbs);
+    }
+}
@@ -0,0 +1,68 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import bcu.cmp5332.bookingsystem.data.DatasetGenerator;
+import bcu.cmp5332.bookingsystem.data.SnapshotDataManager;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The Datasets class builds synthetic flight booking systems for the benchmarks with {@link DatasetGenerator}.
+ * The same seed and size always produce the same data, so results are comparable between runs.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+final class Datasets {
+
+    static final long SEED = 42;
+
+    private Datasets() {
+    }
+
+    /**
+     * Writes the text files and the snapshot for the given number of bookings to a directory.
+     *
+     * @param bookings The number of bookings.
+     * @param directory The directory to write to.
+     * @throws IOException If the files cannot be written.
+     */
+    static void generate(int bookings, Path directory) throws IOException {
+        new DatasetGenerator(SEED, bookings).generate(directory, true);
+    }
+
+    /**
+     * Builds a system with the given number of bookings and proportionate numbers of flights and customers.
+     *
+     * @param bookings The number of bookings.
+     * @return The populated system.
+     * @throws IOException If the temporary files cannot be written or read.
+     * @throws FlightBookingSystemException If the generated data is inconsistent.
+     */
+    static FlightBookingSystem build(int bookings) throws IOException, FlightBookingSystemException {
+        Path directory = Files.createTempDirectory("fbs-dataset");
+        try {
+            generate(bookings, directory);
+            FlightBookingSystem fbs = new FlightBookingSystem();
+            new SnapshotDataManager(directory.resolve("snapshot.bin").toString()).loadData(fbs);
+            return fbs;
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Deletes a directory written by {@link #generate(int, Path)}.
+     *
+     * @param directory The directory to delete.
+     */
+    static void delete(Path directory) {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+}
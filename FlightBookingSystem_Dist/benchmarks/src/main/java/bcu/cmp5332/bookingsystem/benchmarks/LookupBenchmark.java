@@ -0,0 +1,77 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bcu.cmp5332.bookingsystem.model.IntObjectMap;
+
+/**
+ * The LookupBenchmark class compares lookups by ID in the entity tables' IntObjectMap with the TreeMap
+ * the tables started as and the ConcurrentSkipListMap that replaced it. Keys are looked up in a random
+ * order, as getFlightByID and getCustomerByID see them. Run with {@code -prof gc} to compare the
+ * allocation from boxing the keys.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int records;
+
+    private final IntObjectMap<Object> intObjectMap = new IntObjectMap<>();
+    private final Map<Integer, Object> treeMap = new TreeMap<>();
+    private final Map<Integer, Object> skipListMap = new ConcurrentSkipListMap<>();
+    private int[] keys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int id = 1; id <= records; id++) {
+            Object value = "Record " + id;
+            intObjectMap.put(id, value);
+            treeMap.put(id, value);
+            skipListMap.put(id, value);
+        }
+        Random random = new Random(Datasets.SEED);
+        keys = new int[1 << 16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1 + random.nextInt(records);
+        }
+    }
+
+    @Benchmark
+    public Object intObjectMap() {
+        return intObjectMap.get(keys[next++ & (keys.length - 1)]);
+    }
+
+    @Benchmark
+    public Object treeMap() {
+        return treeMap.get(keys[next++ & (keys.length - 1)]);
+    }
+
+    @Benchmark
+    public Object concurrentSkipListMap() {
+        return skipListMap.get(keys[next++ & (keys.length - 1)]);
+    }
+}
@@ -0,0 +1,141 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The ModelBenchmark class measures the FlightBookingSystem operations run for every booking request:
+ * adding a booking, listing a flight's bookings and deleting a customer.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * Adds a booking with a new ID to the system, including its index entries.
+     */
+    @Benchmark
+    public Booking addBooking(GrowingSystem state) throws FlightBookingSystemException {
+        int i = state.next++;
+        Booking booking = new Booking(state.fbs.generateBookingId(), state.customers[i % state.customers.length],
+                state.flights[i % state.flights.length], LocalDate.now(), 100);
+        state.fbs.addBooking(booking);
+        return booking;
+    }
+
+    /**
+     * Looks up the bookings on a flight through the flight index.
+     */
+    @Benchmark
+    public List<Booking> getBookingsByFlight(ReadOnlySystem state) {
+        return state.fbs.getBookingsByFlight(state.flights[state.next++ % state.flights.length]);
+    }
+
+    /**
+     * Deletes a customer together with their bookings. The customer is restored after each invocation.
+     */
+    @Benchmark
+    public void deleteCustomer(DeletingSystem state) throws FlightBookingSystemException {
+        state.fbs.deleteCustomer(state.customer.getId());
+    }
+
+    /**
+     * Holds a synthetic system and its flights and customers in ID order.
+     * Each benchmark takes exactly one state, because JMH gives a state injected into another state's
+     * fixture methods its own instance.
+     */
+    @State(Scope.Thread)
+    public abstract static class Model {
+        @Param({"10000", "1000000"})
+        public int records;
+
+        FlightBookingSystem fbs;
+        Flight[] flights;
+        Customer[] customers;
+        int next;
+
+        void build() throws IOException, FlightBookingSystemException {
+            fbs = Datasets.build(records);
+            flights = fbs.getAllFlights().toArray(new Flight[0]);
+            customers = fbs.getCustomers().toArray(new Customer[0]);
+        }
+    }
+
+    /**
+     * Holds the system the read-only benchmarks use.
+     */
+    @State(Scope.Thread)
+    public static class ReadOnlySystem extends Model {
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, FlightBookingSystemException {
+            build();
+        }
+    }
+
+    /**
+     * Holds the system addBooking adds to. It is rebuilt for every iteration so it does not grow without bound.
+     */
+    @State(Scope.Thread)
+    public static class GrowingSystem extends Model {
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException, FlightBookingSystemException {
+            build();
+        }
+    }
+
+    /**
+     * Holds the system deleteCustomer deletes from, picking the customer before each invocation
+     * and putting them back afterwards.
+     */
+    @State(Scope.Thread)
+    public static class DeletingSystem extends Model {
+        Customer customer;
+        List<Booking> bookings;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, FlightBookingSystemException {
+            build();
+        }
+
+        @Setup(Level.Invocation)
+        public void pick() {
+            customer = customers[next++ % customers.length];
+            bookings = fbs.getBookingsByCustomer(customer);
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() throws FlightBookingSystemException {
+            fbs.addCustomer(customer);
+            for (Booking booking : bookings) {
+                fbs.addBooking(booking);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bcu.cmp5332.bookingsystem.commands.Command;
+import bcu.cmp5332.bookingsystem.main.CommandLine;
+import bcu.cmp5332.bookingsystem.main.CommandParser;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The ParseBenchmark class measures parsing command lines in batch mode, over a mix of commands in the
+ * proportions of a day of operations: mostly bookings and lookups, with some listings, cancellations,
+ * searches and new customers and flights. The registry parser is compared with the if/else chain of
+ * {@code String.equals} over {@code line.split(" ", 3)} that it replaced. Run with {@code -prof gc} to
+ * compare the allocation per line.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    /** The names the replaced parser compared the command with, in the order it compared them. */
+    private static final String[] CHAIN = {"addflight", "addcustomer", "searchflights", "listflights",
+        "listcustomers", "addbookings", "loadgui", "help", "showflight", "showcustomer", "addbooking",
+        "editbooking", "cancelbooking"};
+    /** Whether each command in the chain starts with a number the replaced parser read. */
+    private static final boolean[] NUMERIC = {false, false, false, true, true, true, false, false, true, true, true,
+        true, true};
+
+    private final FlightBookingSystem fbs = new FlightBookingSystem();
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Datasets.SEED);
+        lines = new String[1 << 12];
+        for (int i = 0; i < lines.length; i++) {
+            int customer = 1 + random.nextInt(100000);
+            int flight = 1 + random.nextInt(5000);
+            int pick = random.nextInt(100);
+            if (pick < 40) {
+                lines[i] = "addbooking " + customer + " " + flight;
+            } else if (pick < 60) {
+                lines[i] = "showflight " + flight;
+            } else if (pick < 75) {
+                lines[i] = "showcustomer " + customer;
+            } else if (pick < 83) {
+                lines[i] = "cancelbooking " + customer + " " + flight;
+            } else if (pick < 88) {
+                lines[i] = "listflights " + flight + " 50";
+            } else if (pick < 92) {
+                lines[i] = "addbookings " + flight + " " + customer + " " + (customer + 1) + " " + (customer + 2);
+            } else if (pick < 96) {
+                lines[i] = "searchflights London Paris 2026-06-01 2026-06-30";
+            } else if (pick < 99) {
+                lines[i] = "addcustomer \"Customer " + customer + "\" 0121" + customer + " c" + customer + "@example.com";
+            } else {
+                lines[i] = "addflight FL" + flight + " London Paris 2026-06-01 180 120";
+            }
+        }
+    }
+
+    /**
+     * Parses a line into its command through the registry.
+     */
+    @Benchmark
+    public Command registry() throws IOException, FlightBookingSystemException {
+        return CommandParser.parse(lines[next++ & (lines.length - 1)], fbs, false);
+    }
+
+    /**
+     * Splits a line and finds its command's factory, without creating the command.
+     */
+    @Benchmark
+    public Object registryDispatch() throws FlightBookingSystemException {
+        CommandLine line = CommandLine.tokenize(lines[next++ & (lines.length - 1)]);
+        return CommandParser.getCommandFactory(line.getName());
+    }
+
+    /**
+     * Splits a line and finds its command as the replaced parser did, returning the command's index.
+     */
+    @Benchmark
+    public int ifElseChain() {
+        String[] parts = lines[next++ & (lines.length - 1)].split(" ", 3);
+        String cmd = parts[0];
+        for (int i = 0; i < CHAIN.length; i++) {
+            if (cmd.equals(CHAIN[i])) {
+                return parts.length > 1 && NUMERIC[i] ? i + Integer.parseInt(parts[1]) : i;
+            }
+        }
+        return -1;
+    }
+}
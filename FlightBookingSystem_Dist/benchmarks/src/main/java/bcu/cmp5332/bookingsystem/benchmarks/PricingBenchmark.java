@@ -0,0 +1,60 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The PricingBenchmark class measures the per-flight reads behind every flight listing and booking:
+ * Flight.calculatePrice and Flight.isFullyBooked.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int records;
+
+    private Flight[] flights;
+    private LocalDate today;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, FlightBookingSystemException {
+        FlightBookingSystem fbs = Datasets.build(records);
+        flights = fbs.getAllFlights().toArray(new Flight[0]);
+        today = LocalDate.now();
+    }
+
+    @Benchmark
+    public int calculatePrice() throws FlightBookingSystemException {
+        return flights[next++ % flights.length].calculatePrice(today);
+    }
+
+    @Benchmark
+    public boolean isFullyBooked() {
+        return flights[next++ % flights.length].isFullyBooked();
+    }
+}
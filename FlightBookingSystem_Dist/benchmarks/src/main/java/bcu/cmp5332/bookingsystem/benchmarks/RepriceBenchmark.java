@@ -0,0 +1,74 @@
+package bcu.cmp5332.bookingsystem.benchmarks;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FareTable;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The RepriceBenchmark class measures fare publication: pricing every flight of a system with
+ * FlightBookingSystem.repriceAll, against pricing them one at a time with Flight.calculatePrice.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepriceBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int flights;
+
+    private FlightBookingSystem fbs;
+    private Flight[] all;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() throws FlightBookingSystemException {
+        Random random = new Random(42);
+        today = LocalDate.now();
+        fbs = new FlightBookingSystem();
+        for (int id = 1; id <= flights; id++) {
+            Flight flight = new Flight(id, "FL" + id, "LHR", "CDG", today.plusDays(random.nextInt(30)),
+                    1 + random.nextInt(200), 50 + random.nextInt(500));
+            for (int booked = random.nextInt(flight.getNumberOfSeats() + 1); booked > 0; booked--) {
+                flight.reserveSeat();
+            }
+            fbs.addFlight(flight);
+        }
+        all = fbs.getAllFlights().toArray(new Flight[0]);
+    }
+
+    @Benchmark
+    public FareTable repriceAll() {
+        return fbs.repriceAll(today);
+    }
+
+    @Benchmark
+    public long calculatePriceEach() throws FlightBookingSystemException {
+        long total = 0;
+        for (Flight flight : all) {
+            total += flight.calculatePrice(today);
+        }
+        return total;
+    }
+}
@@ -5,14 +5,13 @@
  */
 package bcu.cmp5332.bookingsystem.commands;
 
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDate;
 
@@ -52,27 +51,32 @@ public class AddBooking implements Command {
             throw new FlightBookingSystemException("Cannot book a flight that has already departed.");
         }
 
-        if (flight.getPassengers().size() >= flight.getNumberOfSeats()) {
-            throw new FlightBookingSystemException("The flight is full. Booking cannot be made.");
-        }
-
         int price = flight.calculatePrice(today);
 
-        int bookingId = fbs.generateBookingId();
-        LocalDate bookingDate = LocalDate.now();
-        Booking booking = new Booking(bookingId, customer, flight, bookingDate, price);
-        customer.addBooking(booking);
-        flight.addPassenger(customer);
+        Booking booking;
+        long lsn;
+        // Change the system and record the change together, so a checkpoint sees both or neither
+        synchronized (fbs) {
+            // Checks for a free seat and takes it in one step
+            booking = fbs.bookFlight(customer, flight, LocalDate.now(), price);
 
-        if (!booking.isCancelled()) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter("resources/data/bookings.txt", true))) {
-                writer.write(booking.getId() + "," + customer.getId() + "," + flight.getId() + "," + booking.getBookingDate() + "," + booking.getPrice());
-                writer.newLine();
+            try {
+                lsn = FlightBookingSystemData.getLog().logBookingAdded(booking);
             } catch (IOException e) {
-                throw new FlightBookingSystemException("Error writing to bookings.txt: " + e.getMessage());
+                // Undo the booking, so a checkpoint cannot store a change reported as failed
+                fbs.removeBooking(booking.getId());
+                throw new FlightBookingSystemException("Error recording booking: " + e.getMessage());
             }
         }
 
+        // Wait for the record outside the monitor, so other writers' records share the force to disk
+        try {
+            FlightBookingSystemData.getLog().awaitDurable(lsn);
+        } catch (IOException e) {
+            throw new FlightBookingSystemException("Booking #" + booking.getId()
+                    + " was made, but the log could not be forced to disk: " + e.getMessage());
+        }
+
         System.out.println("Booking was issued successfully to the customer.");
     }
 }
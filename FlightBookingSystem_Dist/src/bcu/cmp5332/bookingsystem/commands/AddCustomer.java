@@ -5,10 +5,9 @@
  */
 package bcu.cmp5332.bookingsystem.commands;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
@@ -43,23 +42,37 @@ public class AddCustomer implements Command {
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // Get the maximum customer ID currently in the system
-        int maxId = 0;
-        if (!fbs.getCustomers().isEmpty()) {
-            maxId = fbs.getCustomers().stream().mapToInt(Customer::getId).max().orElse(0);
-        }
+        Customer customer;
+        long lsn;
+        // Change the system and record the change together, so a checkpoint sees both or neither
+        synchronized (fbs) {
+            // Get the maximum customer ID currently in the system
+            int maxId = 0;
+            if (!fbs.getCustomers().isEmpty()) {
+                maxId = fbs.getCustomers().stream().mapToInt(Customer::getId).max().orElse(0);
+            }
 
-        // Create a new customer object with the next available ID
-        Customer customer = new Customer(++maxId, name, phone, email);
-        fbs.addCustomer(customer); // Add the customer to the flight booking system
-        System.out.println("Customer #" + customer.getId() + " added.");
+            // Create a new customer object with the next available ID
+            customer = new Customer(++maxId, name, phone, email);
+            fbs.addCustomer(customer); // Add the customer to the flight booking system
 
-        // Write customer data to a file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("resources/data/customers.txt", true))) {
-            writer.write(customer.getId() + "," + customer.getName() + "," + customer.getPhone() + "," + customer.getEmail());
-            writer.newLine();
+            // Record the new customer in the write-ahead log
+            try {
+                lsn = FlightBookingSystemData.getLog().logCustomerAdded(customer);
+            } catch (IOException e) {
+                // Remove the customer again, so a checkpoint cannot store a change reported as failed
+                fbs.deleteCustomer(customer.getId());
+                throw new FlightBookingSystemException("Error recording customer: " + e.getMessage());
+            }
+        }
+
+        // Wait for the record outside the monitor, so other writers' records share the force to disk
+        try {
+            FlightBookingSystemData.getLog().awaitDurable(lsn);
         } catch (IOException e) {
-            throw new FlightBookingSystemException("Error writing to customers.txt: " + e.getMessage());
+            throw new FlightBookingSystemException("Customer #" + customer.getId()
+                    + " was added, but the log could not be forced to disk: " + e.getMessage());
         }
+        System.out.println("Customer #" + customer.getId() + " added.");
     }
 }
@@ -5,15 +5,13 @@
  */
 package bcu.cmp5332.bookingsystem.commands;
 
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Command to add a new flight to the flight booking system.
@@ -59,22 +57,34 @@ public class AddFlight implements Command {
             throw new FlightBookingSystemException("Cannot add flight with a departure date in the past.");
         }
 
-        // Get the maximum flight ID currently in the system
-        int maxId = flightBookingSystem.getFlights().stream().mapToInt(Flight::getId).max().orElse(0);
+        Flight flight;
+        long lsn;
+        // Change the system and record the change together, so a checkpoint sees both or neither
+        synchronized (flightBookingSystem) {
+            // Get the maximum flight ID currently in the system
+            int maxId = flightBookingSystem.getFlights().stream().mapToInt(Flight::getId).max().orElse(0);
 
-        // Create a new flight object with the next available ID
-        Flight flight = new Flight(++maxId, flightNumber, origin, destination, departureDate, numberOfSeats, price);
-        flightBookingSystem.addFlight(flight); // Add the flight to the flight booking system
-        System.out.println("Flight #" + flight.getId() + " added.");
+            // Create a new flight object with the next available ID
+            flight = new Flight(++maxId, flightNumber, origin, destination, departureDate, numberOfSeats, price);
+            flightBookingSystem.addFlight(flight); // Add the flight to the flight booking system
+
+            // Record the new flight in the write-ahead log
+            try {
+                lsn = FlightBookingSystemData.getLog().logFlightAdded(flight);
+            } catch (IOException ex) {
+                // Remove the flight again, so a checkpoint cannot store a change reported as failed
+                flightBookingSystem.deleteFlight(flight.getId());
+                throw new FlightBookingSystemException("Error recording flight: " + ex.getMessage());
+            }
+        }
 
-        // Write the new flight data to the flights.txt file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("resources/data/flights.txt", true))) {
-            DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            String formattedDate = departureDate.format(dtf);
-            writer.write(flight.getId() + "," + flight.getFlightNumber() + "," + flight.getOrigin() + "," + flight.getDestination() + "," + formattedDate + "," + flight.getNumberOfSeats() + "," + flight.getPrice());
-            writer.newLine();
+        // Wait for the record outside the monitor, so other writers' records share the force to disk
+        try {
+            FlightBookingSystemData.getLog().awaitDurable(lsn);
         } catch (IOException ex) {
-            throw new FlightBookingSystemException("Error writing to flights.txt: " + ex.getMessage());
+            throw new FlightBookingSystemException("Flight #" + flight.getId()
+                    + " was added, but the log could not be forced to disk: " + ex.getMessage());
         }
+        System.out.println("Flight #" + flight.getId() + " added.");
     }
 }
@@ -0,0 +1,96 @@
+/**
+ * Command to book a group of customers onto a flight at once in the flight booking system.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command to book a group of customers onto a flight at once in the flight booking system.
+ *
+ * The flight is priced once for the whole group, and the group is booked through
+ * {@link FlightBookingSystem#addBookings(java.util.Collection)}, so either every customer gets a seat or
+ * none does. The new bookings are recorded in the write-ahead log with a single write.
+ */
+public class BatchAddBooking implements Command {
+
+    private final int flightId; // ID of the flight
+    private final int[] customerIds; // IDs of the customers in the group
+
+    /**
+     * Constructs a new BatchAddBooking command.
+     *
+     * @param flightId the ID of the flight to book
+     * @param customerIds the IDs of the customers to book a seat for, one booking each
+     */
+    public BatchAddBooking(int flightId, int[] customerIds) {
+        this.flightId = flightId;
+        this.customerIds = customerIds.clone();
+    }
+
+    /**
+     * Executes the command to book the group onto the flight.
+     *
+     * @param fbs the flight booking system
+     * @throws FlightBookingSystemException if a customer or the flight is not found, the flight is full or
+     *         has departed, or the bookings cannot be recorded
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        if (customerIds.length == 0) {
+            throw new FlightBookingSystemException("A group booking needs at least one customer.");
+        }
+        LocalDate today = LocalDate.now();
+
+        Flight flight = fbs.getFlightByID(flightId);
+        if (!flight.hasNotDeparted(today)) {
+            throw new FlightBookingSystemException("Cannot book a flight that has already departed.");
+        }
+
+        int price = flight.calculatePrice(today);
+        List<Booking> group = new ArrayList<>(customerIds.length);
+        for (int customerId : customerIds) {
+            group.add(new Booking(0, fbs.getCustomerByID(customerId), flight, today, price));
+        }
+
+        // Change the system and record the change together, so a checkpoint sees both or neither
+        List<Booking> bookings;
+        long lsn;
+        synchronized (fbs) {
+            // Checks for free seats for the whole group and takes them in one step
+            bookings = fbs.addBookings(group);
+
+            try {
+                lsn = FlightBookingSystemData.getLog().logBookingsAdded(bookings);
+            } catch (IOException e) {
+                // Undo the group, so a checkpoint cannot store a change reported as failed
+                for (Booking booking : bookings) {
+                    fbs.removeBooking(booking.getId());
+                }
+                throw new FlightBookingSystemException("Error recording bookings: " + e.getMessage());
+            }
+        }
+
+        // Wait for the records outside the monitor, so other writers' records share the force to disk
+        try {
+            FlightBookingSystemData.getLog().awaitDurable(lsn);
+        } catch (IOException e) {
+            throw new FlightBookingSystemException("The bookings were made, but the log could not be forced to disk: "
+                    + e.getMessage());
+        }
+
+        System.out.println(bookings.size() + " bookings were issued successfully, IDs " + bookings.get(0).getId()
+                + " to " + bookings.get(bookings.size() - 1).getId() + ".");
+    }
+}
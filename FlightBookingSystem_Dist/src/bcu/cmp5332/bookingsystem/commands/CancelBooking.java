@@ -9,7 +9,7 @@ import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 
 import java.io.IOException;
 
-import bcu.cmp5332.bookingsystem.data.BookingDataManager;
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
@@ -52,27 +52,41 @@ public class CancelBooking implements Command {
             throw new FlightBookingSystemException("Flight not found for ID: " + flightId);
         }
 
-        Booking booking = null;
-        for (Booking b : customer.getBookings()) {
-            if (b.getFlight().getId() == flightId) {
-                booking = b;
-                break;
+        Booking booking;
+        long lsn;
+        // Change the system and record the change together, so a checkpoint sees both or neither
+        synchronized (fbs) {
+            // A customer who rebooked the flight has a cancelled booking for it too, so skip that one
+            booking = fbs.getActiveBookingByCustomerAndFlightId(customerId, flightId);
+            if (booking == null) {
+                throw new FlightBookingSystemException("No active booking found for customer ID: " + customerId
+                        + " and flight ID: " + flightId);
             }
-        }
 
-        if (booking == null) {
-            throw new FlightBookingSystemException("No booking found for customer ID: " + customerId + " and flight ID: " + flightId);
-        }
+            // Cancel the booking
+            booking.cancelBooking();
 
-        // Cancel the booking
-        booking.cancelBooking();
+            // Record the cancellation
+            try {
+                lsn = FlightBookingSystemData.getLog().logBookingCancelled(booking);
+            } catch (IOException e) {
+                // Undo the cancellation, so a checkpoint cannot store a change reported as failed
+                try {
+                    fbs.restoreBooking(booking.getId());
+                } catch (FlightBookingSystemException restore) {
+                    throw new FlightBookingSystemException("The booking was cancelled, but the cancellation could not be recorded: "
+                            + e.getMessage());
+                }
+                throw new FlightBookingSystemException("Error recording cancellation: " + e.getMessage());
+            }
+        }
 
-        // Store updated data
-        BookingDataManager dataManager = new BookingDataManager();
+        // Wait for the record outside the monitor, so other writers' records share the force to disk
         try {
-            dataManager.storeData(fbs);
+            FlightBookingSystemData.getLog().awaitDurable(lsn);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new FlightBookingSystemException("The booking was cancelled, but the log could not be forced to disk: "
+                    + e.getMessage());
         }
 
         System.out.println("Booking successfully canceled for customer ID: " + customerId + " and flight ID: " + flightId);
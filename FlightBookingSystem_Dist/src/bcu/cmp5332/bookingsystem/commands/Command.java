@@ -19,16 +19,22 @@ public interface Command {
     public static final String HELP_MESSAGE = "Commands:\n"
         + "\tlistflights                               print all flights\n"
         + "\tlistcustomers                             print all customers\n"
+        + "\tlistflights [from id] [count]             print a page of flights\n"
+        + "\tlistcustomers [from id] [count]           print a page of customers\n"
+        + "\tsearchflights                             search flights by route and dates\n"
         + "\taddflight                                 add a new flight\n"
         + "\taddcustomer                               add a new customer\n"
         + "\tshowflight [flight id]                    show flight details\n"
         + "\tshowcustomer [customer id]                show customer details\n"
         + "\taddbooking [customer id] [flight id]      add a new booking\n"
+        + "\taddbookings [flight id] [customer id]...  book a group of customers onto a flight\n"
         + "\tcancelbooking [customer id] [flight id]   cancel a booking\n"
         + "\teditbooking [booking id] [flight id]      update a booking\n"
         + "\tloadgui                                   loads the GUI version of the app\n"
         + "\thelp                                      prints this help message\n"
-        + "\texit                                      exits the program";
+        + "\texit                                      exits the program\n"
+        + "Commands that prompt for details also take them inline, in prompt order, with quotes\n"
+        + "around text containing spaces, e.g. addcustomer \"Ann Lee\" 0121000000 ann@example.com";
 
     /**
      * Executes the command in the flight booking system.
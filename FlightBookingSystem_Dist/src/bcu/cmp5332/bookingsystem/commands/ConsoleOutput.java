@@ -0,0 +1,153 @@
+/**
+ * Buffered output for the commands that print listings and details in the flight booking system.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.commands;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Console;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Buffered output for the commands that print listings and details in the flight booking system.
+ *
+ * Lines are collected in a large buffer and written to the stream in blocks, instead of one synchronized,
+ * flushing {@code System.out.println} per line, and a command flushes once when it is done. A listing
+ * larger than the buffer streams out a block at a time, so printing a million customers to a file runs
+ * at the speed of the file. Each row is formatted into a {@link StringBuilder} that is reused for every row.
+ *
+ * When the {@code fbs.output.pageRows} system property is set and the output is an interactive console,
+ * a listing pauses after each page of rows until Enter is pressed, and stops if {@code q} is entered.
+ */
+public class ConsoleOutput {
+
+    /** The size of the output buffer in bytes. */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static BufferedReader consoleKeys; // Lines typed at the console while paging, opened on first use
+
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(256);
+    private final int pageRows;
+    private final BufferedReader keys;
+    private int rowsOnPage;
+    private boolean stopped;
+
+    /**
+     * Constructs a ConsoleOutput that writes to a stream.
+     *
+     * @param stream the stream to write to, which is flushed but never closed
+     * @param pageRows the number of rows to print before pausing, or 0 to never pause
+     * @param keys the lines typed to continue after a page, or null to never pause
+     */
+    public ConsoleOutput(OutputStream stream, int pageRows, BufferedReader keys) {
+        this.out = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(stream, BUFFER_SIZE)), BUFFER_SIZE);
+        this.pageRows = keys != null ? Math.max(0, pageRows) : 0;
+        this.keys = keys;
+    }
+
+    /**
+     * Opens output to {@code System.out}, paging it if {@code fbs.output.pageRows} is set and there is a console.
+     *
+     * @return the console output
+     */
+    public static ConsoleOutput open() {
+        int pageRows = Integer.getInteger("fbs.output.pageRows", 0);
+        return new ConsoleOutput(System.out, pageRows, pageRows > 0 ? consoleKeys() : null);
+    }
+
+    private static synchronized BufferedReader consoleKeys() {
+        Console console = System.console();
+        if (console == null) {
+            return null; // Output is redirected, so there is no one to page for
+        }
+        if (consoleKeys == null) {
+            consoleKeys = new BufferedReader(console.reader());
+        }
+        return consoleKeys;
+    }
+
+    /**
+     * Starts a new row, clearing the builder it is formatted in.
+     *
+     * @return the builder for the row, to be written with {@link #endRow()}
+     */
+    public StringBuilder row() {
+        row.setLength(0);
+        return row;
+    }
+
+    /**
+     * Writes the row formatted since {@link #row()} as a line, pausing if it completes a page.
+     *
+     * @return true if more rows should be written, false if the reader stopped the listing
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean endRow() throws IOException {
+        println(row);
+        if (pageRows > 0 && ++rowsOnPage == pageRows) {
+            rowsOnPage = 0;
+            out.write("-- More: press Enter to continue, or q and Enter to stop --");
+            out.flush();
+            String key = keys.readLine();
+            stopped = key == null || key.trim().equalsIgnoreCase("q");
+        }
+        return !stopped;
+    }
+
+    /**
+     * Checks whether the reader stopped the listing at a page break.
+     *
+     * @return true if the listing was stopped
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Writes a line of text.
+     *
+     * @param text the text
+     * @throws IOException if an I/O error occurs
+     */
+    public void println(CharSequence text) throws IOException {
+        out.append(text).write('\n');
+    }
+
+    /**
+     * Writes a line holding a label and a value.
+     *
+     * @param label the label, printed before the value
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void println(String label, Object value) throws IOException {
+        out.write(label);
+        out.write(String.valueOf(value));
+        out.write('\n');
+    }
+
+    /**
+     * Writes an empty line.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void println() throws IOException {
+        out.write('\n');
+    }
+
+    /**
+     * Writes everything buffered to the stream and flushes it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -9,7 +9,7 @@ import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 
 import java.io.IOException;
 
-import bcu.cmp5332.bookingsystem.data.BookingDataManager;
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
@@ -51,25 +51,34 @@ public class EditBooking implements Command {
             throw new FlightBookingSystemException("New flight not found for ID: " + newFlightId);
         }
 
-        // Remove passenger from current flight
-        Flight currentFlight = booking.getFlight();
-        currentFlight.removePassenger(booking.getCustomer());
+        long lsn;
+        // Change the system and record the change together, so a checkpoint sees both or neither
+        synchronized (fbs) {
+            int oldFlightId = booking.getFlight().getId();
+            // Move booking to the new flight, releasing the seat on the current one
+            fbs.moveBooking(bookingId, newFlightId);
 
-        // Check if the new flight has available seats
-        if (newFlight.getPassengers().size() >= newFlight.getNumberOfSeats()) {
-            throw new FlightBookingSystemException("The new flight is full. Booking cannot be moved.");
+            // Record the move in the write-ahead log
+            try {
+                lsn = FlightBookingSystemData.getLog().logBookingMoved(booking);
+            } catch (IOException e) {
+                // Move the booking back, so a checkpoint cannot store a change reported as failed
+                try {
+                    fbs.moveBooking(bookingId, oldFlightId);
+                } catch (FlightBookingSystemException moveBack) {
+                    throw new FlightBookingSystemException("The booking was moved, but the move could not be recorded: "
+                            + e.getMessage());
+                }
+                throw new FlightBookingSystemException("Error storing booking data: " + e.getMessage());
+            }
         }
 
-        // Move booking to the new flight
-        booking.setFlight(newFlight);
-        newFlight.addPassenger(booking.getCustomer());
-
-        // Store the updated data using BookingDataManager
-        BookingDataManager manager = new BookingDataManager();
+        // Wait for the record outside the monitor, so other writers' records share the force to disk
         try {
-            manager.storeData(fbs);
+            FlightBookingSystemData.getLog().awaitDurable(lsn);
         } catch (IOException e) {
-            throw new FlightBookingSystemException("Error storing booking data: " + e.getMessage());
+            throw new FlightBookingSystemException("The booking was moved, but the log could not be forced to disk: "
+                    + e.getMessage());
         }
 
         System.out.println("Booking successfully updated.");
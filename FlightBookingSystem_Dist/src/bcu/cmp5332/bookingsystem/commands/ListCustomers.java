@@ -8,56 +8,72 @@ package bcu.cmp5332.bookingsystem.commands;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.IntObjectMap;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Command to list all customers in the flight booking system.
+ *
+ * The customers are read from the loaded system in ID order, so the listing includes changes that have not
+ * been stored yet. A page of the listing starts at a customer ID and holds a limited number of customers;
+ * the command that lists the next page is printed after it.
  */
 public class ListCustomers implements Command {
 
+    private final int fromId;
+    private final int limit;
+
     /**
-     * Executes the command to list all customers in the flight booking system.
+     * Constructs a new ListCustomers command that lists every customer.
+     */
+    public ListCustomers() {
+        this(Integer.MIN_VALUE, 0);
+    }
+
+    /**
+     * Constructs a new ListCustomers command that lists one page of the customers.
      *
-     * @param flightBookingSystem the flight booking system
-     * @throws FlightBookingSystemException if an error occurs while executing the command
+     * @param fromId the smallest customer ID to list
+     * @param limit the largest number of customers to list, or 0 for no limit
      */
-    @Override
-    public void execute(FlightBookingSystem flightBookingSystem) throws FlightBookingSystemException {
-        List<Customer> customers = readCustomersFromFile("resources/data/customers.txt");
-        for (Customer customer : customers) {
-            System.out.println(customer.getDetailsShort());
-        }
-        System.out.println(customers.size() + " customer(s)");
+    public ListCustomers(int fromId, int limit) {
+        this.fromId = fromId;
+        this.limit = limit;
     }
 
     /**
-     * Reads the list of customers from the specified file.
+     * Executes the command to list all customers in the flight booking system.
      *
-     * @param filename the name of the file containing customer data
-     * @return a list of customers
-     * @throws FlightBookingSystemException if an error occurs while reading the file
+     * @param flightBookingSystem the flight booking system
+     * @throws FlightBookingSystemException if an error occurs while executing the command
      */
-    private List<Customer> readCustomersFromFile(String filename) throws FlightBookingSystemException {
-        List<Customer> customers = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                int id = Integer.parseInt(parts[0]);
-                String name = parts[1];
-                String phone = parts[2];
-                String email = parts[3];
-                Customer customer = new Customer(id, name, phone, email);
-                customers.add(customer);
+    @Override
+    public void execute(FlightBookingSystem flightBookingSystem) throws FlightBookingSystemException {
+        IntObjectMap.Cursor<Customer> customers = flightBookingSystem.customerCursor(fromId);
+        ConsoleOutput out = ConsoleOutput.open();
+        try {
+            int count = 0;
+            Customer next = null; // The first customer of the next page, if the limit cut the listing short
+            while (customers.next()) {
+                Customer customer = customers.getValue();
+                if (limit > 0 && count == limit) {
+                    next = customer;
+                    break;
+                }
+                customer.appendDetailsShort(out.row());
+                count++;
+                if (!out.endRow()) {
+                    break;
+                }
+            }
+            out.println(out.row().append(count).append(" customer(s)"));
+            if (next != null) {
+                out.println(out.row().append("More customers: listcustomers ").append(next.getId()).append(' ').append(limit));
             }
-        } catch (IOException | NumberFormatException e) {
-            throw new FlightBookingSystemException("Error reading customers from file: " + e.getMessage());
+            out.flush();
+        } catch (IOException e) {
+            throw new FlightBookingSystemException("Error printing customers: " + e.getMessage());
         }
-        return customers;
     }
 }
@@ -8,77 +8,77 @@ package bcu.cmp5332.bookingsystem.commands;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.IntObjectMap;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Command to list all upcoming flights in the flight booking system.
+ *
+ * The flights are read from the loaded system in ID order, so the listing includes changes that have not
+ * been stored yet. A page of the listing starts at a flight ID and holds a limited number of flights; the
+ * command that lists the next page is printed after it.
  */
 public class ListFlights implements Command {
 
+    private final int fromId;
+    private final int limit;
+
     /**
-     * Executes the command to list all upcoming flights in the flight booking system.
-     *
-     * @param flightBookingSystem the flight booking system
-     * @throws FlightBookingSystemException if an error occurs while executing the command
+     * Constructs a new ListFlights command that lists every upcoming flight.
      */
-    @Override
-    public void execute(FlightBookingSystem flightBookingSystem) throws FlightBookingSystemException {
-        List<Flight> flights = readFlightsFromFile("resources/data/flights.txt");
-        LocalDate today = LocalDate.now();
-        flights = filterFlights(flights, today);
-        for (Flight flight : flights) {
-            System.out.println(flight.getDetailsShort());
-        }
-        System.out.println(flights.size() + " flight(s)");
+    public ListFlights() {
+        this(Integer.MIN_VALUE, 0);
     }
 
     /**
-     * Reads the list of flights from the specified file.
+     * Constructs a new ListFlights command that lists one page of the upcoming flights.
      *
-     * @param filename the name of the file containing flight data
-     * @return a list of flights
-     * @throws FlightBookingSystemException if an error occurs while reading the file
+     * @param fromId the smallest flight ID to list
+     * @param limit the largest number of flights to list, or 0 for no limit
      */
-    private List<Flight> readFlightsFromFile(String filename) throws FlightBookingSystemException {
-        List<Flight> flights = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                int id = Integer.parseInt(parts[0]);
-                String flightNumber = parts[1];
-                String origin = parts[2];
-                String destination = parts[3];
-                LocalDate departureDate = LocalDate.parse(parts[4]);
-                int numberOfSeats = Integer.parseInt(parts[5]);
-                double price = Double.parseDouble(parts[6]);
-
-                Flight flight = new Flight(id, flightNumber, origin, destination, departureDate, numberOfSeats, price);
-                flights.add(flight);
-            }
-        } catch (IOException | NumberFormatException e) {
-            throw new FlightBookingSystemException("Error reading flights from file: " + e.getMessage());
-        }
-        return flights;
+    public ListFlights(int fromId, int limit) {
+        this.fromId = fromId;
+        this.limit = limit;
     }
 
     /**
-     * Filters the list of flights to include only those that depart after the specified date.
+     * Executes the command to list all upcoming flights in the flight booking system.
      *
-     * @param flights the list of flights to filter
-     * @param today the date to compare against
-     * @return a list of flights that depart after the specified date
+     * @param flightBookingSystem the flight booking system
+     * @throws FlightBookingSystemException if an error occurs while executing the command
      */
-    private List<Flight> filterFlights(List<Flight> flights, LocalDate today) {
-        return flights.stream()
-                .filter(flight -> flight.getDepartureDate().isAfter(today))
-                .collect(Collectors.toList());
+    @Override
+    public void execute(FlightBookingSystem flightBookingSystem) throws FlightBookingSystemException {
+        LocalDate today = LocalDate.now();
+        IntObjectMap.Cursor<Flight> flights = flightBookingSystem.flightCursor(fromId);
+        ConsoleOutput out = ConsoleOutput.open();
+        try {
+            int count = 0;
+            Flight next = null; // The first flight of the next page, if the limit cut the listing short
+            while (flights.next()) {
+                Flight flight = flights.getValue();
+                if (!flight.getDepartureDate().isAfter(today)) {
+                    continue;
+                }
+                if (limit > 0 && count == limit) {
+                    next = flight;
+                    break;
+                }
+                flight.appendDetailsShort(out.row());
+                count++;
+                if (!out.endRow()) {
+                    break;
+                }
+            }
+            out.println(out.row().append(count).append(" flight(s)"));
+            if (next != null) {
+                out.println(out.row().append("More flights: listflights ").append(next.getId()).append(' ').append(limit));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new FlightBookingSystemException("Error printing flights: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,58 @@
+/**
+ * Command to search for flights on a route within a range of departure dates.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Command to search for flights on a route within a range of departure dates.
+ */
+public class SearchFlights implements Command {
+
+    private final String origin; // Origin airport
+    private final String destination; // Destination airport
+    private final LocalDate fromDate; // Earliest departure date
+    private final LocalDate toDate; // Latest departure date
+
+    /**
+     * Constructs a SearchFlights command with the specified route and date range.
+     *
+     * @param origin the origin airport
+     * @param destination the destination airport
+     * @param fromDate the earliest departure date, inclusive
+     * @param toDate the latest departure date, inclusive
+     */
+    public SearchFlights(String origin, String destination, LocalDate fromDate, LocalDate toDate) {
+        this.origin = origin;
+        this.destination = destination;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    /**
+     * Executes the command to print the flights matching the route and date range.
+     *
+     * @param fbs the flight booking system
+     * @throws FlightBookingSystemException if the date range is invalid
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        if (fromDate.isAfter(toDate)) {
+            throw new FlightBookingSystemException("The start date must not be after the end date.");
+        }
+
+        List<Flight> flights = fbs.searchFlights(origin, destination, fromDate, toDate);
+        for (Flight flight : flights) {
+            System.out.println(flight.getDetailsShort());
+        }
+        System.out.println(flights.size() + " flight(s)");
+    }
+}
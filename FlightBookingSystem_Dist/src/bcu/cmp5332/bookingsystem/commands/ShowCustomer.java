@@ -11,6 +11,7 @@ import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
+import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -19,6 +20,8 @@ import java.util.List;
  */
 public class ShowCustomer implements Command {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private final int customerId;
 
     /**
@@ -43,26 +46,32 @@ public class ShowCustomer implements Command {
             throw new FlightBookingSystemException("Customer with ID " + customerId + " not found.");
         }
 
-        System.out.println("Customer ID: " + customer.getId());
-        System.out.println("Name: " + customer.getName());
-        System.out.println("Phone: " + customer.getPhone());
-        System.out.println("Email: " + customer.getEmail());
+        ConsoleOutput out = ConsoleOutput.open();
+        try {
+            out.println("Customer ID: ", customer.getId());
+            out.println("Name: ", customer.getName());
+            out.println("Phone: ", customer.getPhone());
+            out.println("Email: ", customer.getEmail());
 
-        List<Booking> bookings = customer.getActiveBookings(); // Get only active bookings
-        if (bookings.isEmpty()) {
-            System.out.println("This customer has not made any bookings.");
-        } else {
-            System.out.println("Bookings:");
-            for (Booking booking : bookings) {
-                Flight flight = booking.getFlight();
-                System.out.println("Booking ID: " + booking.getId());
-                System.out.println("Flight Number: " + flight.getFlightNumber());
-                System.out.println("Origin: " + flight.getOrigin());
-                System.out.println("Destination: " + flight.getDestination());
-                System.out.println("Date: " + flight.getDepartureDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                System.out.println("Price: " + booking.getPrice());
-                System.out.println();
+            List<Booking> bookings = customer.getActiveBookings(); // Get only active bookings
+            if (bookings.isEmpty()) {
+                out.println("This customer has not made any bookings.");
+            } else {
+                out.println("Bookings:");
+                for (Booking booking : bookings) {
+                    Flight flight = booking.getFlight();
+                    out.println("Booking ID: ", booking.getId());
+                    out.println("Flight Number: ", flight.getFlightNumber());
+                    out.println("Origin: ", flight.getOrigin());
+                    out.println("Destination: ", flight.getDestination());
+                    out.println("Date: ", flight.getDepartureDate().format(DATE_FORMAT));
+                    out.println("Price: ", booking.getPrice());
+                    out.println();
+                }
             }
+            out.flush();
+        } catch (IOException e) {
+            throw new FlightBookingSystemException("Error printing customer details: " + e.getMessage());
         }
     }
 }
@@ -10,6 +10,7 @@ import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -41,23 +42,29 @@ public class ShowFlight implements Command {
             throw new FlightBookingSystemException("Flight with ID " + flightId + " not found.");
         }
 
-        System.out.println("Flight Number: " + flight.getFlightNumber());
-        System.out.println("Origin: " + flight.getOrigin());
-        System.out.println("Destination: " + flight.getDestination());
-        System.out.println("Departure Date: " + flight.getDepartureDate());
-        System.out.println("Number of Seats: " + flight.getNumberOfSeats());
-        System.out.println("Price: " + flight.getPrice());
-
-        List<Customer> passengers = flight.getPassengers();
-        if (passengers.isEmpty()) {
-            System.out.println("No passengers booked for this flight.");
-        } else {
-            System.out.println("Passengers:");
-            for (Customer passenger : passengers) {
-                System.out.println("Name: " + passenger.getName());
-                System.out.println("Phone Number: " + passenger.getPhone());
-                System.out.println();
+        ConsoleOutput out = ConsoleOutput.open();
+        try {
+            out.println("Flight Number: ", flight.getFlightNumber());
+            out.println("Origin: ", flight.getOrigin());
+            out.println("Destination: ", flight.getDestination());
+            out.println("Departure Date: ", flight.getDepartureDate());
+            out.println("Number of Seats: ", flight.getNumberOfSeats());
+            out.println("Price: ", flight.getPrice());
+
+            List<Customer> passengers = flight.getPassengers();
+            if (passengers.isEmpty()) {
+                out.println("No passengers booked for this flight.");
+            } else {
+                out.println("Passengers:");
+                for (Customer passenger : passengers) {
+                    out.println("Name: ", passenger.getName());
+                    out.println("Phone Number: ", passenger.getPhone());
+                    out.println();
+                }
             }
+            out.flush();
+        } catch (IOException e) {
+            throw new FlightBookingSystemException("Error printing flight details: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,133 @@
+/**
+ * The AtomicFiles class replaces data files without ever leaving a half-written file in their place
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The AtomicFiles class replaces data files without ever leaving a half-written file in their place.
+ *
+ * New content is written to a temporary file in the same directory, forced to disk and then moved over
+ * the old file with an atomic rename, so a crash at any point leaves either the old or the new file.
+ * The SHA-256 hash of the content is taken as it is written, so callers can tell whether a file changed.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes the text of a data file.
+     */
+    interface TextWriter {
+
+        /**
+         * Writes the text.
+         *
+         * @param out the writer to print the text to
+         * @throws IOException if an I/O error occurs
+         */
+        void write(PrintWriter out) throws IOException;
+    }
+
+    /**
+     * Replaces a file atomically with the text a writer prints.
+     *
+     * @param target the file to replace
+     * @param writer the writer of the new text
+     * @throws IOException if an I/O error occurs; the old file is then left as it was
+     */
+    static void write(Path target, TextWriter writer) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        writeTemp(temp, writer);
+        force(temp);
+        replace(temp, target);
+    }
+
+    /**
+     * Writes text to a temporary file, without forcing it to disk.
+     *
+     * @param temp the temporary file, which is replaced if it exists
+     * @param writer the writer of the text
+     * @return the SHA-256 hash of the text's bytes, in hexadecimal
+     * @throws IOException if an I/O error occurs; the temporary file is then deleted
+     */
+    static String writeTemp(Path temp, TextWriter writer) throws IOException {
+        MessageDigest digest = sha256();
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                    PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(file, digest))))) {
+                writer.write(out);
+                out.flush();
+                if (out.checkError()) {
+                    throw new IOException("Unable to write " + temp);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Forces a file's content to disk.
+     *
+     * @param file the file
+     * @throws IOException if an I/O error occurs
+     */
+    static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Moves a file over another with an atomic rename, or a plain replacing move where the file system
+     * cannot rename atomically.
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if an I/O error occurs
+     */
+    static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex); // Every Java platform has it
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -8,13 +8,22 @@ package bcu.cmp5332.bookingsystem.data;
 
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.BookingStore;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * The BookingDataManager class is responsible for loading and storing booking data to and from a file
@@ -26,11 +35,33 @@ import java.util.Scanner;
 public class BookingDataManager implements DataManager {
 
     /** The path to the booking data file. */
-    private final static String RESOURCE = "./resources/data/bookings.txt";
+    private final String RESOURCE;
 
     /** The separator used to separate fields in the data file. */
     private final static String SEPARATOR = ",";
 
+    /** The smallest range of the data file worth parsing on a thread of its own. */
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+
+    /** The largest range of the data file mapped at once, well below the 2 GB a mapping can hold. */
+    private static final long MAX_CHUNK_BYTES = 1 << 30;
+
+    /**
+     * Constructs a BookingDataManager for the default booking data file.
+     */
+    public BookingDataManager() {
+        this("./resources/data/bookings.txt");
+    }
+
+    /**
+     * Constructs a BookingDataManager for the specified booking data file.
+     *
+     * @param resource the path to the booking data file
+     */
+    public BookingDataManager(String resource) {
+        this.RESOURCE = resource;
+    }
+
     /**
      * Loads booking data from the specified file and updates the FlightBookingSystem instance.
      *
@@ -40,61 +71,196 @@ public class BookingDataManager implements DataManager {
      */
     @Override
     public void loadData(FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
-        try (Scanner scanner = new Scanner(new File(RESOURCE))) {
-            int maxBookingId = 0;
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] properties = line.split(SEPARATOR);
-                if (properties.length >= 5) {
-                    int id = Integer.parseInt(properties[0]);
-                    int customerId = Integer.parseInt(properties[1]);
-                    int flightId = Integer.parseInt(properties[2]);
-                    LocalDate date = LocalDate.parse(properties[3]);
-                    double price = Double.parseDouble(properties[4]); 
-                    boolean cancelled = properties.length > 5 && properties[5].equals("cancelled");
-                    Customer customer = fbs.getCustomerByID(customerId);
-                    Flight flight = fbs.getFlightByID(flightId);
-                    if (customer != null && flight != null) {
-                        Booking booking = new Booking(id, customer, flight, date, price);
-                        if (cancelled) {
-                            booking.cancelBooking();
-                        }
-                        customer.addBooking(booking);
-                        flight.addPassenger(customer);
-                        if (id > maxBookingId) {
-                            maxBookingId = id;
-                        }
-                    }
+        link(fbs, parse());
+    }
+
+    /**
+     * Parses the bookings in the specified file without resolving their customers and flights, so the
+     * file can be read on its own thread while the flights and customers are read.
+     *
+     * @return the booking lines in file order
+     * @throws IOException if an I/O error occurs
+     */
+    BookingRecords parse() throws IOException {
+        BookingRecords parsed = new BookingRecords();
+        try (RecordReader records = new RecordReader(new File(RESOURCE))) {
+            while (records.next()) {
+                if (records.getFieldCount() >= 5) {
+                    boolean cancelled = records.getFieldCount() > 5 && records.fieldEquals(5, "cancelled");
+                    parsed.add(records.getInt(0), records.getInt(1), records.getInt(2),
+                            records.getDate(3).toEpochDay(), records.getDouble(4), cancelled);
                 }
             }
-            fbs.setMaxBookingId(maxBookingId);
         }
+        return parsed;
+    }
+
+    /**
+     * Splits the specified file into ranges that start and end on line boundaries and submits a task to
+     * parse each range from a memory mapping of it. The ranges are returned in file order, so the
+     * concatenated results are exactly what {@link #parse()} returns.
+     *
+     * @param pool the pool to parse on
+     * @param chunks the number of ranges wanted; fewer are used for a small file, more for a huge one
+     * @return the parse tasks, in file order
+     * @throws IOException if the file cannot be read
+     */
+    List<Future<BookingRecords>> parseChunks(ExecutorService pool, int chunks) throws IOException {
+        List<Future<BookingRecords>> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(RESOURCE), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long count = Math.min(chunks, size / MIN_CHUNK_BYTES);
+            count = Math.max(count, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            count = Math.max(count, 1);
+            long start = 0;
+            for (long chunk = 1; chunk <= count; chunk++) {
+                long end = chunk == count ? size : Math.max(start, lineStartAtOrAfter(channel, size * chunk / count));
+                if (end > start) {
+                    // The mapping stays valid after the channel is closed
+                    ByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    tasks.add(pool.submit(() -> parse(range)));
+                }
+                start = end;
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Finds the first line that starts at or after a position in the file.
+     *
+     * @param channel the open data file
+     * @param position the position in the file
+     * @return the offset of the start of the line, or the file size if there is none
+     * @throws IOException if an I/O error occurs
+     */
+    private static long lineStartAtOrAfter(FileChannel channel, long position) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long offset = position - 1; // A newline just before the position means the position starts a line
+        while (true) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Parses the bookings in a mapped range of the file.
+     *
+     * @param range the bytes of whole lines of the file
+     * @return the booking lines in file order
+     */
+    private static BookingRecords parse(ByteBuffer range) {
+        BookingRecords parsed = new BookingRecords();
+        MappedRecordReader records = new MappedRecordReader(range);
+        while (records.next()) {
+            if (records.getFieldCount() >= 5) {
+                boolean cancelled = records.getFieldCount() > 5 && records.fieldEquals(5, "cancelled");
+                parsed.add(records.getInt(0), records.getInt(1), records.getInt(2),
+                        records.getDate(3).toEpochDay(), records.getDouble(4), cancelled);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Links parsed bookings to their customers and flights and adds them to the FlightBookingSystem instance,
+     * in file order, then sets the highest booking ID. A booking whose customer or flight is not in the system
+     * is skipped, so a line left behind for a deleted customer or flight does not stop the load.
+     *
+     * @param fbs the FlightBookingSystem instance, already holding the flights and customers
+     * @param parsed the booking lines returned by {@link #parse()}
+     * @throws FlightBookingSystemException if a booking cannot be added
+     */
+    static void link(FlightBookingSystem fbs, BookingRecords parsed) throws FlightBookingSystemException {
+        int maxBookingId = 0;
+        for (int i = 0; i < parsed.size(); i++) {
+            int id = parsed.getId(i);
+            Customer customer = fbs.findCustomer(parsed.getCustomerId(i));
+            Flight flight = fbs.findFlight(parsed.getFlightId(i));
+            if (customer == null || flight == null) {
+                continue;
+            }
+            Booking booking = new Booking(id, customer, flight, LocalDate.ofEpochDay(parsed.getEpochDay(i)), parsed.getPrice(i));
+            if (parsed.isCancelled(i)) {
+                booking.cancelBooking();
+            }
+            attachBooking(fbs, booking);
+            if (id > maxBookingId) {
+                maxBookingId = id;
+            }
+        }
+        fbs.setMaxBookingId(maxBookingId);
+    }
+
+    /**
+     * Links a loaded booking to its customer and flight and registers it with the FlightBookingSystem instance.
+     * Only a booking that is not cancelled takes a seat on its flight.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param booking the booking read from a data file
+     * @throws FlightBookingSystemException if the booking cannot be added to the system
+     */
+    static void attachBooking(FlightBookingSystem fbs, Booking booking) throws FlightBookingSystemException {
+        if (!booking.isCancelled()) {
+            booking.getFlight().addPassenger(booking.getCustomer());
+        }
+        fbs.addBooking(booking);
     }
 
     /**
      * Stores booking data to the specified file based on the FlightBookingSystem instance.
+     * The file is replaced atomically, so a crash mid-write leaves the previous file intact.
      *
      * @param fbs the FlightBookingSystem instance
      * @throws IOException if an I/O error occurs
      */
     @Override
     public void storeData(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(RESOURCE))) {
-            for (Customer customer : fbs.getCustomers()) {
-                for (Booking booking : customer.getBookings()) {
-                    writer.print(booking.getId() + SEPARATOR
-                            + customer.getId() + SEPARATOR
-                            + booking.getFlight().getId() + SEPARATOR
-                            + booking.getBookingDate() + SEPARATOR
-                            + booking.getPrice());
-                    
-                    if (booking.isCancelled()) {
-                        writer.print(SEPARATOR + "cancelled");
-                    }
-                    
-                    writer.println();
-                }
+        AtomicFiles.write(getPath(), writer -> write(fbs, writer));
+    }
+
+    /**
+     * Prints the bookings of the FlightBookingSystem instance in the format of the booking data file.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param writer the writer to print to
+     */
+    void write(FlightBookingSystem fbs, PrintWriter writer) {
+        // Reads the booking store's columns directly rather than creating a Booking for each line
+        BookingStore.Cursor bookings = fbs.getBookingStore().cursor();
+        while (bookings.next()) {
+            writer.print(bookings.getId() + SEPARATOR
+                    + bookings.getCustomerId() + SEPARATOR
+                    + bookings.getFlightId() + SEPARATOR
+                    + LocalDate.ofEpochDay(bookings.getBookingEpochDay()) + SEPARATOR
+                    + bookings.getPrice());
+
+            if (bookings.isCancelled()) {
+                writer.print(SEPARATOR + "cancelled");
             }
+
+            writer.println();
         }
     }
+
+    /**
+     * Gets the path to the booking data file.
+     *
+     * @return the path
+     */
+    Path getPath() {
+        return Paths.get(RESOURCE);
+    }
 }
@@ -0,0 +1,123 @@
+/**
+ * The BookingRecords class holds booking lines parsed from a data file until they are linked to a system
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BookingRecords class holds booking lines parsed from a data file until they are linked to a system.
+ *
+ * The fields of each line are kept in growable primitive columns, in file order, with the customer and
+ * flight as unresolved IDs. Parsing a file into records needs nothing from the system, so it can run on
+ * its own thread while the flights and customers the bookings refer to are still being read.
+ */
+class BookingRecords {
+
+    private int[] ids = new int[1024];
+    private int[] customerIds = new int[1024];
+    private int[] flightIds = new int[1024];
+    private long[] epochDays = new long[1024];
+    private double[] prices = new double[1024];
+    private boolean[] cancelled = new boolean[1024];
+    private int size;
+
+    /**
+     * Appends a booking line.
+     *
+     * @param id the booking ID
+     * @param customerId the customer ID
+     * @param flightId the flight ID
+     * @param epochDay the booking date as an epoch day
+     * @param price the price
+     * @param isCancelled whether the booking is cancelled
+     */
+    void add(int id, int customerId, int flightId, long epochDay, double price, boolean isCancelled) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            flightIds = Arrays.copyOf(flightIds, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            cancelled = Arrays.copyOf(cancelled, capacity);
+        }
+        ids[size] = id;
+        customerIds[size] = customerId;
+        flightIds[size] = flightId;
+        epochDays[size] = epochDay;
+        prices[size] = price;
+        cancelled[size] = isCancelled;
+        size++;
+    }
+
+    /**
+     * Joins the records parsed from consecutive ranges of a file into one, in the order given.
+     *
+     * @param parts the records of each range
+     * @return the records of the whole file
+     */
+    static BookingRecords concat(List<BookingRecords> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int total = 0;
+        for (BookingRecords part : parts) {
+            total += part.size;
+        }
+        BookingRecords joined = new BookingRecords();
+        joined.ids = new int[total];
+        joined.customerIds = new int[total];
+        joined.flightIds = new int[total];
+        joined.epochDays = new long[total];
+        joined.prices = new double[total];
+        joined.cancelled = new boolean[total];
+        for (BookingRecords part : parts) {
+            System.arraycopy(part.ids, 0, joined.ids, joined.size, part.size);
+            System.arraycopy(part.customerIds, 0, joined.customerIds, joined.size, part.size);
+            System.arraycopy(part.flightIds, 0, joined.flightIds, joined.size, part.size);
+            System.arraycopy(part.epochDays, 0, joined.epochDays, joined.size, part.size);
+            System.arraycopy(part.prices, 0, joined.prices, joined.size, part.size);
+            System.arraycopy(part.cancelled, 0, joined.cancelled, joined.size, part.size);
+            joined.size += part.size;
+        }
+        return joined;
+    }
+
+    /**
+     * Gets the number of booking lines.
+     *
+     * @return the line count
+     */
+    int size() {
+        return size;
+    }
+
+    int getId(int index) {
+        return ids[index];
+    }
+
+    int getCustomerId(int index) {
+        return customerIds[index];
+    }
+
+    int getFlightId(int index) {
+        return flightIds[index];
+    }
+
+    long getEpochDay(int index) {
+        return epochDays[index];
+    }
+
+    double getPrice(int index) {
+        return prices[index];
+    }
+
+    boolean isCancelled(int index) {
+        return cancelled[index];
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * The Checkpointer class periodically writes a fresh snapshot of the flight booking system and discards
+ * the write-ahead log records it covers for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Checkpointer class periodically writes a fresh snapshot of the flight booking system and discards
+ * the write-ahead log records it covers, so the log and the replay on startup stay short.
+ *
+ * A background thread checks the triggers once a second. A checkpoint is taken when the log has grown past
+ * a size, when a number of records have been logged since the last checkpoint, or when some have been
+ * logged and the maximum interval has passed. A trigger set to 0 or less is disabled.
+ *
+ * The checkpointer holds the FlightBookingSystem instance's monitor only while it reads the last LSN and
+ * copies the system's data. Commands hold the same monitor while they change the system and log the change,
+ * so the copy and the LSN stored with it always agree. The snapshot is written from the copy after the
+ * monitor is released, so commands are not held up while it is written.
+ */
+public class Checkpointer implements Closeable {
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final FlightBookingSystem fbs;
+    private final SnapshotDataManager snapshot;
+    private final WriteAheadLog log;
+    private final long maxLogBytes;
+    private final long maxRecords;
+    private final long maxIntervalMillis;
+
+    private ScheduledExecutorService executor;
+    private long checkpointLsn; // LSN included in the last snapshot
+    private long checkpointTime; // System.nanoTime() of the last checkpoint
+
+    private volatile long checkpointCount;
+    private volatile long lastDurationNanos;
+    private volatile long totalDurationNanos;
+    private volatile long lastBytesWritten;
+    private volatile long totalBytesWritten;
+    private volatile long failureCount;
+
+    /**
+     * Constructs a Checkpointer for the specified system, snapshot and log.
+     *
+     * @param fbs the FlightBookingSystem instance to snapshot
+     * @param snapshot the snapshot the system was loaded from, which checkpoints replace
+     * @param log the write-ahead log whose records checkpoints discard
+     * @param maxLogBytes the log size in bytes that triggers a checkpoint
+     * @param maxRecords the number of records logged since the last checkpoint that triggers one
+     * @param maxIntervalMillis the time in milliseconds after which any logged records trigger a checkpoint
+     */
+    public Checkpointer(FlightBookingSystem fbs, SnapshotDataManager snapshot, WriteAheadLog log,
+            long maxLogBytes, long maxRecords, long maxIntervalMillis) {
+        this.fbs = fbs;
+        this.snapshot = snapshot;
+        this.log = log;
+        this.maxLogBytes = maxLogBytes;
+        this.maxRecords = maxRecords;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.checkpointLsn = snapshot.getLogPosition();
+        this.checkpointTime = System.nanoTime();
+    }
+
+    /**
+     * Starts checking the triggers on a background thread.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                checkpointIfDue();
+            } catch (IOException | RuntimeException ex) {
+                // Reported apart from the command output; the failure is counted by checkpoint()
+                System.err.println("Checkpoint failed: " + ex.getMessage());
+            }
+        }, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a checkpoint if any of the triggers has been reached.
+     *
+     * @return true if a checkpoint was taken
+     * @throws IOException if the snapshot cannot be written or the log cannot be truncated
+     */
+    public synchronized boolean checkpointIfDue() throws IOException {
+        long records = log.getLastLsn() - checkpointLsn;
+        if (records <= 0) {
+            return false;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkpointTime);
+        if ((maxRecords > 0 && records >= maxRecords)
+                || (maxIntervalMillis > 0 && elapsedMillis >= maxIntervalMillis)
+                || (maxLogBytes > 0 && log.getSize() >= maxLogBytes)) {
+            checkpoint();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes a fresh snapshot, swaps it in for the old one and discards the log segments it covers.
+     * Only copying the system's data holds up commands; writing it does not.
+     *
+     * @throws IOException if the snapshot cannot be written or the log cannot be truncated
+     */
+    public synchronized void checkpoint() throws IOException {
+        try {
+            long start = System.nanoTime();
+            long lsn;
+            SnapshotDataManager.Image image;
+            synchronized (fbs) {
+                lsn = log.getLastLsn();
+                image = snapshot.capture(fbs);
+            }
+            snapshot.setLogPosition(lsn);
+            snapshot.setTextGeneration(0); // The text files are only brought up to date by a full store
+            snapshot.storeImage(image);
+            log.discardThrough(lsn);
+
+            long duration = System.nanoTime() - start;
+            checkpointLsn = lsn;
+            checkpointTime = System.nanoTime();
+            lastDurationNanos = duration;
+            totalDurationNanos += duration;
+            lastBytesWritten = snapshot.getStoredBytes();
+            totalBytesWritten += lastBytesWritten;
+            checkpointCount++;
+        } catch (IOException | RuntimeException ex) {
+            failureCount++;
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the number of checkpoints taken.
+     *
+     * @return the checkpoint count
+     */
+    public long getCheckpointCount() {
+        return checkpointCount;
+    }
+
+    /**
+     * Gets how long the last checkpoint took.
+     *
+     * @return the duration in nanoseconds, or 0 if none has been taken
+     */
+    public long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+
+    /**
+     * Gets how long all checkpoints have taken together.
+     *
+     * @return the total duration in nanoseconds
+     */
+    public long getTotalDurationNanos() {
+        return totalDurationNanos;
+    }
+
+    /**
+     * Gets the size of the snapshot written by the last checkpoint.
+     *
+     * @return the number of bytes written, or 0 if none has been taken
+     */
+    public long getLastBytesWritten() {
+        return lastBytesWritten;
+    }
+
+    /**
+     * Gets the number of bytes written by all checkpoints together.
+     *
+     * @return the total number of bytes written
+     */
+    public long getTotalBytesWritten() {
+        return totalBytesWritten;
+    }
+
+    /**
+     * Gets the number of checkpoints that failed, so one that keeps failing shows up even though the
+     * background thread only reports it on standard error.
+     *
+     * @return the failure count
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Stops the background thread, waiting for a checkpoint in progress to finish.
+     *
+     * @throws IOException if interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = executor;
+            executor = null;
+        }
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
+        try {
+            running.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while stopping the checkpointer");
+        }
+    }
+}
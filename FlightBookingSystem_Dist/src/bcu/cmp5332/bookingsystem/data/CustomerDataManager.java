@@ -11,10 +11,12 @@ import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Scanner;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The CustomerDataManager class is responsible for loading and storing customer data to and from a file
@@ -26,11 +28,27 @@ import java.util.Scanner;
 public class CustomerDataManager implements DataManager {
 
     /** The path to the customer data file. */
-    private final String RESOURCE = "./resources/data/customers.txt";
+    private final String RESOURCE;
 
     /** The separator used to separate fields in the data file. */
     private final String SEPARATOR = ",";
 
+    /**
+     * Constructs a CustomerDataManager for the default customer data file.
+     */
+    public CustomerDataManager() {
+        this("./resources/data/customers.txt");
+    }
+
+    /**
+     * Constructs a CustomerDataManager for the specified customer data file.
+     *
+     * @param resource the path to the customer data file
+     */
+    public CustomerDataManager(String resource) {
+        this.RESOURCE = resource;
+    }
+
     /**
      * Loads customer data from the specified file and updates the FlightBookingSystem instance.
      *
@@ -40,36 +58,77 @@ public class CustomerDataManager implements DataManager {
      */
     @Override
     public void loadData(FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
-        try (Scanner sc = new Scanner(new File(RESOURCE))) {
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine();
-                String[] properties = line.split(SEPARATOR, -1);
-                int id = Integer.parseInt(properties[0]);
-                String name = properties[1];
-                String phone = properties[2];
-                String email = properties[3];
-                Customer customer = new Customer(id, name, phone, email);
-                fbs.addCustomer(customer);
+        link(fbs, parse());
+    }
+
+    /**
+     * Parses the customers in the specified file without adding them to a system, so the file can be
+     * read on its own thread while the other files are read.
+     *
+     * @return the customers in file order
+     * @throws IOException if an I/O error occurs
+     */
+    List<Customer> parse() throws IOException {
+        List<Customer> customers = new ArrayList<>();
+        try (RecordReader records = new RecordReader(new File(RESOURCE))) {
+            while (records.next()) {
+                int id = records.getInt(0);
+                String name = records.getString(1);
+                String phone = records.getString(2);
+                String email = records.getString(3);
+                customers.add(new Customer(id, name, phone, email));
             }
         }
+        return customers;
+    }
+
+    /**
+     * Adds parsed customers to the FlightBookingSystem instance.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param customers the customers returned by {@link #parse()}
+     * @throws FlightBookingSystemException if a customer cannot be added
+     */
+    static void link(FlightBookingSystem fbs, List<Customer> customers) throws FlightBookingSystemException {
+        for (Customer customer : customers) {
+            fbs.addCustomer(customer);
+        }
     }
 
     /**
      * Stores customer data to the specified file based on the FlightBookingSystem instance.
+     * The file is replaced atomically, so a crash mid-write leaves the previous file intact.
      *
      * @param fbs the FlightBookingSystem instance
      * @throws IOException if an I/O error occurs
      */
     @Override
     public void storeData(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter out = new PrintWriter(new FileWriter(RESOURCE))) {
-            for (Customer customer : fbs.getCustomers()) {
-                out.print(customer.getId() + SEPARATOR);
-                out.print(customer.getName() + SEPARATOR);
-                out.print(customer.getPhone() + SEPARATOR);
-                out.print(customer.getEmail() + SEPARATOR);
-                out.println();
-            }
+        AtomicFiles.write(getPath(), out -> write(fbs, out));
+    }
+
+    /**
+     * Prints the customers of the FlightBookingSystem instance in the format of the customer data file.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param out the writer to print to
+     */
+    void write(FlightBookingSystem fbs, PrintWriter out) {
+        for (Customer customer : fbs.getCustomers()) {
+            out.print(customer.getId() + SEPARATOR);
+            out.print(customer.getName() + SEPARATOR);
+            out.print(customer.getPhone() + SEPARATOR);
+            out.print(customer.getEmail() + SEPARATOR);
+            out.println();
         }
     }
+
+    /**
+     * Gets the path to the customer data file.
+     *
+     * @return the path
+     */
+    Path getPath() {
+        return Paths.get(RESOURCE);
+    }
 }
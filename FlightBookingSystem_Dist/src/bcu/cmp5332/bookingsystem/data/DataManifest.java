@@ -0,0 +1,201 @@
+/**
+ * The DataManifest class stores the text data files together as one generation
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The DataManifest class stores the text data files together as one generation.
+ *
+ * The manifest file lists the current generation number and the SHA-256 hash of each data file in it:
+ * <pre>
+ * generation,&lt;number&gt;
+ * file,&lt;name&gt;,&lt;hash&gt;
+ * </pre>
+ * A {@link Transaction} writes each changed file to {@code <name>.<generation>.tmp} next to it and forces
+ * it to disk. A file whose hash matches the manifest is left alone and its temporary file discarded, so
+ * an unchanged file is never rewritten. Committing then replaces the manifest atomically, which is the
+ * moment the new generation becomes durable, and only afterwards renames the temporary files into place.
+ *
+ * If the process dies between those two steps, {@link #recover()} finishes the renames the committed
+ * manifest calls for and deletes temporary files of a generation that was never committed. Loading
+ * after recovery therefore always sees all files of one generation, never a mix of two.
+ */
+public class DataManifest {
+
+    private final Path file;
+    private long generation;
+    private final Map<String, String> hashes = new LinkedHashMap<>(); // Data file name to hash in the current generation
+
+    /**
+     * Constructs a DataManifest kept in the specified file; the data files live in the same directory.
+     *
+     * @param file the manifest file
+     */
+    public DataManifest(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the manifest, then completes a commit that was interrupted and discards the files of one that
+     * never happened. Does nothing if there is no manifest yet.
+     *
+     * @throws IOException if an I/O error occurs or the manifest cannot be parsed
+     */
+    public synchronized void recover() throws IOException {
+        generation = 0;
+        hashes.clear();
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (RecordReader records = new RecordReader(file.toFile())) {
+            while (records.next()) {
+                try {
+                    if (records.fieldEquals(0, "generation")) {
+                        generation = records.getLong(1);
+                    } else if (records.fieldEquals(0, "file")) {
+                        hashes.put(records.getString(1), records.getString(2));
+                    }
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                    throw new IOException("Unable to parse line " + records.getLineNumber() + " of manifest " + file, ex);
+                }
+            }
+        }
+        for (String name : hashes.keySet()) {
+            Path pending = tempFile(name, generation);
+            if (Files.exists(pending)) {
+                AtomicFiles.replace(pending, file.resolveSibling(name));
+            }
+        }
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory(), "*." + (generation + 1) + ".tmp")) {
+            for (Path temp : stale) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Gets the current generation, which every commit that changes a file increments.
+     *
+     * @return the generation, 0 before the first commit
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the hash a data file has in the current generation.
+     *
+     * @param name the file name
+     * @return the SHA-256 hash in hexadecimal, or null if the file is not in the manifest
+     */
+    public synchronized String getHash(String name) {
+        return hashes.get(name);
+    }
+
+    /**
+     * Starts storing a new generation of the data files.
+     *
+     * @return the transaction
+     */
+    Transaction begin() {
+        return new Transaction();
+    }
+
+    private Path tempFile(String name, long generation) {
+        return file.resolveSibling(name + "." + generation + ".tmp");
+    }
+
+    private Path directory() {
+        Path parent = file.toAbsolutePath().getParent();
+        return parent != null ? parent : new File(".").toPath();
+    }
+
+    /**
+     * A set of data files being stored as one generation. A transaction is used by one thread at a time
+     * and the manifest must not be given two open transactions at once.
+     */
+    class Transaction {
+
+        private final Map<String, String> newHashes = new LinkedHashMap<>();
+        private final List<String> changed = new ArrayList<>();
+        private boolean done;
+
+        private Transaction() {
+        }
+
+        /**
+         * Writes a data file for the new generation, unless its content is unchanged.
+         *
+         * @param target the data file, which must be in the manifest's directory
+         * @param writer the writer of the file's text
+         * @return true if the file changed and will be replaced on commit
+         * @throws IOException if an I/O error occurs
+         */
+        boolean write(Path target, AtomicFiles.TextWriter writer) throws IOException {
+            String name = target.getFileName().toString();
+            long next;
+            String previous;
+            synchronized (DataManifest.this) {
+                next = generation + 1;
+                previous = hashes.get(name);
+            }
+            Path temp = tempFile(name, next);
+            String hash = AtomicFiles.writeTemp(temp, writer);
+            newHashes.put(name, hash);
+            if (hash.equals(previous) && Files.exists(target)) {
+                Files.delete(temp);
+                return false;
+            }
+            AtomicFiles.force(temp);
+            changed.add(name);
+            return true;
+        }
+
+        /**
+         * Makes the written files the current generation: replaces the manifest atomically, then renames
+         * the changed files into place. Does nothing if no file changed.
+         *
+         * @throws IOException if an I/O error occurs; the commit is then either complete or not made,
+         *         and {@link #recover()} settles which
+         */
+        void commit() throws IOException {
+            if (done) {
+                throw new IllegalStateException("The transaction has already been committed.");
+            }
+            done = true;
+            if (changed.isEmpty()) {
+                return;
+            }
+            synchronized (DataManifest.this) {
+                long next = generation + 1;
+                Map<String, String> committed = new LinkedHashMap<>(hashes);
+                committed.putAll(newHashes);
+                AtomicFiles.write(file, out -> {
+                    out.println("generation" + DataManager.SEPARATOR + next);
+                    for (Map.Entry<String, String> entry : committed.entrySet()) {
+                        out.println("file" + DataManager.SEPARATOR + entry.getKey() + DataManager.SEPARATOR + entry.getValue());
+                    }
+                });
+                generation = next;
+                hashes.clear();
+                hashes.putAll(committed);
+                for (String name : changed) {
+                    AtomicFiles.replace(tempFile(name, next), file.resolveSibling(name));
+                }
+            }
+        }
+    }
+}
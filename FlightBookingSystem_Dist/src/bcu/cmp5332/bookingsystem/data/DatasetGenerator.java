@@ -0,0 +1,476 @@
+/**
+ * The DatasetGenerator class writes synthetic flight, customer and booking data files for load-testing
+ * the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The DatasetGenerator class writes synthetic {@code flights.txt}, {@code customers.txt} and
+ * {@code bookings.txt} files in the formats read by the data managers, and optionally the matching
+ * {@code snapshot.bin} read by {@link SnapshotDataManager}.
+ *
+ * The same seed, size and options always produce byte-for-byte the same files. The data is shaped
+ * to look like a real booking history:
+ * <ul>
+ * <li>routes follow a Zipf distribution, so a few busy routes get most of the flights and bookings;</li>
+ * <li>departures spread from {@code pastDays} before the reference date to {@code futureDays} after it,
+ *     with fewer flights mid-week;</li>
+ * <li>bookings are made an exponentially distributed number of days before departure, never after the
+ *     reference date, and priced with the same lead-time factors as {@code Flight.calculatePrice};</li>
+ * <li>a fraction of bookings is cancelled, and no flight is booked beyond its seats.</li>
+ * </ul>
+ *
+ * Records are written as they are generated. Only a few ints per flight are kept in memory, so generating
+ * 50M bookings needs a few megabytes of heap rather than 50M objects. Customer names, phones and emails
+ * are derived from the customer ID, which lets the snapshot's string table be written before the records.
+ */
+public class DatasetGenerator {
+
+    private static final String[] AIRPORTS = {
+        "London", "Paris", "Rome", "Madrid", "Berlin", "Dublin", "Lisbon", "Vienna",
+        "Prague", "Warsaw", "Athens", "Oslo", "Helsinki", "Zurich", "Brussels", "Amsterdam",
+        "Kathmandu", "Delhi", "Dubai", "Doha", "Istanbul", "New York", "Toronto", "Singapore",
+        "Bangkok", "Hong Kong", "Tokyo", "Sydney", "Cairo", "Nairobi", "Lagos", "Johannesburg"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Anushna", "Sugam", "Subresh", "Bibek", "Aarav", "Sita", "Oliver", "Amelia", "Liam", "Olivia",
+        "Noah", "Isla", "Arjun", "Priya", "Mohammed", "Fatima", "Lucas", "Sofia", "Kenji", "Yuki",
+        "Ethan", "Grace", "Daniel", "Chloe", "Rohan", "Asha", "James", "Emily", "Samuel", "Hannah"
+    };
+    private static final String[] LAST_NAMES = {
+        "Chaulagain", "Adhikari", "Thakulla", "Shah", "Sharma", "Gurung", "Smith", "Jones", "Taylor", "Brown",
+        "Williams", "Wilson", "Patel", "Khan", "Singh", "Rai", "Tamang", "Garcia", "Martin", "Rossi",
+        "Muller", "Dubois", "Silva", "Tanaka", "Kim", "Nguyen", "Okafor", "Mensah", "Evans", "Hughes"
+    };
+    private static final int[] AIRCRAFT_SEATS = {70, 120, 150, 180, 220, 300};
+    /** Relative number of departures on each day of the week, Monday first. */
+    private static final double[] WEEKDAY_WEIGHTS = {0.95, 0.7, 0.7, 0.85, 1.0, 0.8, 1.0};
+
+    private final long seed;
+    private final int bookings;
+    private int flights;
+    private int customers;
+    private double cancellationRatio = 0.05;
+    private double routeSkew = 1.0;
+    private int pastDays = 90;
+    private int futureDays = 365;
+    private double meanLeadDays = 40;
+    private LocalDate referenceDate = LocalDate.now();
+
+    /**
+     * Constructs a DatasetGenerator for the specified seed and number of bookings, with one flight
+     * per 100 bookings and one customer per 10 bookings.
+     *
+     * @param seed the seed of the random numbers
+     * @param bookings the number of bookings to generate
+     */
+    public DatasetGenerator(long seed, int bookings) {
+        if (bookings < 0) {
+            throw new IllegalArgumentException("The number of bookings cannot be negative.");
+        }
+        this.seed = seed;
+        this.bookings = bookings;
+        this.flights = Math.max(1, bookings / 100);
+        this.customers = Math.max(1, bookings / 10);
+    }
+
+    /**
+     * Sets the number of flights to generate.
+     *
+     * @param flights the number of flights, at least 1
+     */
+    public void setFlights(int flights) {
+        if (flights < 1) {
+            throw new IllegalArgumentException("At least one flight is needed.");
+        }
+        this.flights = flights;
+    }
+
+    /**
+     * Sets the number of customers to generate.
+     *
+     * @param customers the number of customers, at least 1
+     */
+    public void setCustomers(int customers) {
+        if (customers < 1) {
+            throw new IllegalArgumentException("At least one customer is needed.");
+        }
+        this.customers = customers;
+    }
+
+    /**
+     * Sets the fraction of bookings that are cancelled.
+     *
+     * @param cancellationRatio the fraction, from 0 to 1
+     */
+    public void setCancellationRatio(double cancellationRatio) {
+        if (cancellationRatio < 0 || cancellationRatio > 1) {
+            throw new IllegalArgumentException("The cancellation ratio must be between 0 and 1.");
+        }
+        this.cancellationRatio = cancellationRatio;
+    }
+
+    /**
+     * Sets the Zipf exponent of route popularity. 0 makes all routes equally popular.
+     *
+     * @param routeSkew the exponent, 0 or more
+     */
+    public void setRouteSkew(double routeSkew) {
+        if (routeSkew < 0) {
+            throw new IllegalArgumentException("The route skew cannot be negative.");
+        }
+        this.routeSkew = routeSkew;
+    }
+
+    /**
+     * Sets the range of departure dates around the reference date.
+     *
+     * @param pastDays the number of days before the reference date of the earliest departure
+     * @param futureDays the number of days after the reference date of the latest departure
+     */
+    public void setDepartureRange(int pastDays, int futureDays) {
+        if (pastDays < 0 || futureDays < 0 || pastDays + futureDays == 0) {
+            throw new IllegalArgumentException("The departure range must cover at least one day.");
+        }
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+    }
+
+    /**
+     * Sets the date the data is generated as of. Departures and booking dates are relative to it,
+     * and no booking is made after it. It defaults to today; fix it to reproduce a dataset on another day.
+     *
+     * @param referenceDate the reference date
+     */
+    public void setReferenceDate(LocalDate referenceDate) {
+        this.referenceDate = referenceDate;
+    }
+
+    /**
+     * Gets the number of bookings to generate.
+     *
+     * @return the booking count
+     */
+    public int getBookings() {
+        return bookings;
+    }
+
+    /**
+     * Gets the number of flights to generate.
+     *
+     * @return the flight count
+     */
+    public int getFlights() {
+        return flights;
+    }
+
+    /**
+     * Gets the number of customers to generate.
+     *
+     * @return the customer count
+     */
+    public int getCustomers() {
+        return customers;
+    }
+
+    /**
+     * Writes {@code flights.txt}, {@code customers.txt} and {@code bookings.txt}, and optionally
+     * {@code snapshot.bin}, to the specified directory, replacing any existing files.
+     *
+     * @param directory the directory to write to, which is created if needed
+     * @param snapshot true to write the binary snapshot as well
+     * @throws IOException if an I/O error occurs
+     */
+    public void generate(Path directory, boolean snapshot) throws IOException {
+        Files.createDirectories(directory);
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] routeOrigins = new int[AIRPORTS.length * (AIRPORTS.length - 1)];
+        int[] routeDestinations = new int[routeOrigins.length];
+        double[] routeCumulativeWeights = routes(random, routeOrigins, routeDestinations);
+
+        FileChannel channel = null;
+        SnapshotDataManager.ChannelWriter out = null;
+        if (snapshot) {
+            channel = FileChannel.open(directory.resolve("snapshot.bin"), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            out = new SnapshotDataManager.ChannelWriter(channel);
+        }
+        try {
+            if (out != null) {
+                writeStringTable(out);
+            }
+
+            // Only what the bookings need is kept per flight
+            int[] departures = new int[flights];
+            int[] seatsLeft = new int[flights];
+            double[] prices = new double[flights];
+            long totalSeats = 0;
+            try (Writer writer = newWriter(directory.resolve("flights.txt"))) {
+                StringBuilder line = new StringBuilder(128);
+                for (int i = 0; i < flights; i++) {
+                    int route = pick(random, routeCumulativeWeights);
+                    int origin = routeOrigins[route];
+                    int destination = routeDestinations[route];
+                    LocalDate departure = departureDate(random);
+                    int seats = AIRCRAFT_SEATS[random.nextInt(AIRCRAFT_SEATS.length)];
+                    double price = 50 + random.nextInt(450);
+                    departures[i] = (int) departure.toEpochDay();
+                    seatsLeft[i] = seats;
+                    prices[i] = price;
+                    totalSeats += seats;
+
+                    line.setLength(0);
+                    line.append(i + 1).append(',').append(flightNumber(i + 1)).append(',')
+                            .append(AIRPORTS[origin]).append(',').append(AIRPORTS[destination]).append(',')
+                            .append(departure).append(',').append(seats).append(',').append(price).append(",\n");
+                    writer.append(line);
+                    if (out != null) {
+                        SnapshotDataManager.putFlight(out, i + 1, flightNumberIndex(i + 1), origin, destination,
+                                departures[i], seats, price);
+                    }
+                }
+            }
+            if (totalSeats < bookings) {
+                throw new IllegalArgumentException(flights + " flights have only " + totalSeats
+                        + " seats, which is not enough for " + bookings + " bookings.");
+            }
+
+            try (Writer writer = newWriter(directory.resolve("customers.txt"))) {
+                StringBuilder line = new StringBuilder(128);
+                for (int id = 1; id <= customers; id++) {
+                    int name = nameIndex(id);
+                    line.setLength(0);
+                    line.append(id).append(',').append(name(name)).append(',').append(phone(id)).append(',')
+                            .append(email(id, name)).append(",\n");
+                    writer.append(line);
+                    if (out != null) {
+                        SnapshotDataManager.putCustomer(out, id, AIRPORTS.length + name,
+                                phoneIndex(id), phoneIndex(id) + 1);
+                    }
+                }
+            }
+
+            int reference = (int) referenceDate.toEpochDay();
+            try (Writer writer = newWriter(directory.resolve("bookings.txt"))) {
+                StringBuilder line = new StringBuilder(64);
+                for (int id = 1; id <= bookings; id++) {
+                    int customerId = 1 + random.nextInt(customers);
+                    int flight = random.nextInt(flights);
+                    while (seatsLeft[flight] == 0) { // Full: take the next flight with a seat
+                        flight = flight + 1 == flights ? 0 : flight + 1;
+                    }
+                    boolean cancelled = random.nextDouble() < cancellationRatio;
+                    if (!cancelled) {
+                        seatsLeft[flight]--;
+                    }
+
+                    int leadDays = (int) Math.min(365, -meanLeadDays * Math.log(1 - random.nextDouble()));
+                    int bookingDay = Math.min(departures[flight] - leadDays, reference);
+                    int daysBeforeDeparture = departures[flight] - bookingDay;
+                    double price = prices[flight] * (daysBeforeDeparture >= 6 ? 1 : daysBeforeDeparture >= 1 ? 2 : 3);
+
+                    line.setLength(0);
+                    line.append(id).append(',').append(customerId).append(',').append(flight + 1).append(',')
+                            .append(LocalDate.ofEpochDay(bookingDay)).append(',').append(price);
+                    if (cancelled) {
+                        line.append(",cancelled");
+                    }
+                    line.append('\n');
+                    writer.append(line);
+                    if (out != null) {
+                        SnapshotDataManager.putBooking(out, id, customerId, flight + 1, bookingDay, price,
+                                cancelled ? price * 0.1 : 0, 0, cancelled);
+                    }
+                }
+            }
+
+            if (out != null) {
+                out.flush();
+                channel.force(true);
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot header and string table: the airports, every first and last name pair,
+     * then each flight's number and each customer's phone and email.
+     */
+    private void writeStringTable(SnapshotDataManager.ChannelWriter out) throws IOException {
+        int names = FIRST_NAMES.length * LAST_NAMES.length;
+        SnapshotDataManager.putHeader(out, bookings, AIRPORTS.length + names + flights + 2 * customers,
+                flights, customers, bookings, 0, 0);
+        for (String airport : AIRPORTS) {
+            out.putString(airport);
+        }
+        for (int name = 0; name < names; name++) {
+            out.putString(name(name));
+        }
+        for (int id = 1; id <= flights; id++) {
+            out.putString(flightNumber(id));
+        }
+        for (int id = 1; id <= customers; id++) {
+            out.putString(phone(id));
+            out.putString(email(id, nameIndex(id)));
+        }
+    }
+
+    /**
+     * Lists every route between two different airports in a random order of popularity and
+     * returns the cumulative Zipf weights of the routes in that order.
+     */
+    private double[] routes(SplittableRandom random, int[] origins, int[] destinations) {
+        int route = 0;
+        for (int origin = 0; origin < AIRPORTS.length; origin++) {
+            for (int destination = 0; destination < AIRPORTS.length; destination++) {
+                if (origin != destination) {
+                    origins[route] = origin;
+                    destinations[route] = destination;
+                    route++;
+                }
+            }
+        }
+        for (int i = origins.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int origin = origins[i];
+            origins[i] = origins[j];
+            origins[j] = origin;
+            int destination = destinations[i];
+            destinations[i] = destinations[j];
+            destinations[j] = destination;
+        }
+        double[] cumulativeWeights = new double[origins.length];
+        double total = 0;
+        for (int rank = 0; rank < cumulativeWeights.length; rank++) {
+            total += 1 / Math.pow(rank + 1, routeSkew);
+            cumulativeWeights[rank] = total;
+        }
+        return cumulativeWeights;
+    }
+
+    private static int pick(SplittableRandom random, double[] cumulativeWeights) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, target);
+        return Math.min(index < 0 ? -index - 1 : index, cumulativeWeights.length - 1);
+    }
+
+    private LocalDate departureDate(SplittableRandom random) {
+        while (true) {
+            LocalDate date = referenceDate.plusDays(random.nextInt(pastDays + futureDays + 1) - pastDays);
+            DayOfWeek day = date.getDayOfWeek();
+            if (random.nextDouble() < WEEKDAY_WEIGHTS[day.getValue() - 1]) {
+                return date;
+            }
+        }
+    }
+
+    private int flightNumberIndex(int flightId) {
+        return AIRPORTS.length + FIRST_NAMES.length * LAST_NAMES.length + flightId - 1;
+    }
+
+    private int phoneIndex(int customerId) {
+        return AIRPORTS.length + FIRST_NAMES.length * LAST_NAMES.length + flights + 2 * (customerId - 1);
+    }
+
+    private static String flightNumber(int flightId) {
+        return "FB" + flightId;
+    }
+
+    /** Picks a customer's name from their ID and the seed, so it can be recomputed without storing it. */
+    private int nameIndex(int customerId) {
+        long hash = (seed + customerId) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (int) Math.floorMod(hash, (long) FIRST_NAMES.length * LAST_NAMES.length);
+    }
+
+    private static String name(int nameIndex) {
+        return FIRST_NAMES[nameIndex / LAST_NAMES.length] + " " + LAST_NAMES[nameIndex % LAST_NAMES.length];
+    }
+
+    private static String phone(int customerId) {
+        return "07" + (100000000 + customerId);
+    }
+
+    private static String email(int customerId, int nameIndex) {
+        return FIRST_NAMES[nameIndex / LAST_NAMES.length].toLowerCase() + "."
+                + LAST_NAMES[nameIndex % LAST_NAMES.length].toLowerCase() + customerId + "@example.com";
+    }
+
+    private static Writer newWriter(Path path) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Generates a dataset from the command line.
+     * <pre>
+     * DatasetGenerator directory bookings [--seed=N] [--flights=N] [--customers=N] [--cancelled=RATIO]
+     *                  [--skew=S] [--date=yyyy-MM-dd] [--snapshot]
+     * </pre>
+     *
+     * @param args the command line arguments
+     * @throws IOException if an I/O error occurs
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: DatasetGenerator directory bookings [--seed=N] [--flights=N] [--customers=N]"
+                    + " [--cancelled=RATIO] [--skew=S] [--date=yyyy-MM-dd] [--snapshot]");
+            return;
+        }
+        Path directory = Paths.get(args[0]);
+        int bookings = Integer.parseInt(args[1]);
+        long seed = 42;
+        boolean snapshot = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--seed=")) {
+                seed = Long.parseLong(args[i].substring(7));
+            }
+        }
+        DatasetGenerator generator = new DatasetGenerator(seed, bookings);
+        for (int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.equals("--snapshot")) {
+                snapshot = true;
+            } else if (arg.startsWith("--flights=")) {
+                generator.setFlights(Integer.parseInt(value));
+            } else if (arg.startsWith("--customers=")) {
+                generator.setCustomers(Integer.parseInt(value));
+            } else if (arg.startsWith("--cancelled=")) {
+                generator.setCancellationRatio(Double.parseDouble(value));
+            } else if (arg.startsWith("--skew=")) {
+                generator.setRouteSkew(Double.parseDouble(value));
+            } else if (arg.startsWith("--date=")) {
+                generator.setReferenceDate(LocalDate.parse(value));
+            } else if (!arg.startsWith("--seed=")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        long start = System.nanoTime();
+        generator.generate(directory, snapshot);
+        System.out.println("Generated " + generator.getFlights() + " flights, " + generator.getCustomers()
+                + " customers and " + bookings + " bookings in " + (System.nanoTime() - start) / 1_000_000
+                + " ms.");
+    }
+}
@@ -7,16 +7,12 @@
 package bcu.cmp5332.bookingsystem.data;
 
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
-import bcu.cmp5332.bookingsystem.model.Booking;
-import bcu.cmp5332.bookingsystem.model.Customer;
-import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * The FlightBookingSystemData class is responsible for managing the loading and storing of data 
@@ -24,51 +20,184 @@ import java.util.List;
  */
 public class FlightBookingSystemData {
     
-    private static final List<DataManager> dataManagers = new ArrayList<>();
+    private static final FlightDataManager flightManager = new FlightDataManager();
+    private static final CustomerDataManager customerManager = new CustomerDataManager();
+    private static final BookingDataManager bookingManager = new BookingDataManager();
+    private static final SnapshotDataManager snapshotManager = new SnapshotDataManager();
+    private static final PricingRulesDataManager pricingManager = new PricingRulesDataManager();
+    private static final DataManifest manifest = new DataManifest(Paths.get("./resources/data/manifest.txt"));
+    private static final WriteAheadLog log = new WriteAheadLog("./resources/data/wal");
+    private static Checkpointer checkpointer;
+
+    // The system and table version each text data file holds, so unchanged tables are not stored again
+    private static final StoredVersion storedCustomers = new StoredVersion();
+    private static final StoredVersion storedFlights = new StoredVersion();
+    private static final StoredVersion storedBookings = new StoredVersion();
     
-    // runs only once when the object gets loaded to memory
-    static {
-        dataManagers.add(new FlightDataManager());
-        dataManagers.add(new CustomerDataManager());
-        dataManagers.add(new BookingDataManager());
+    /**
+     * Gets the write-ahead log that commands record their changes in.
+     *
+     * @return the write-ahead log
+     */
+    public static WriteAheadLog getLog() {
+        return log;
     }
-    
+
+    /**
+     * Gets the checkpointer running for the system returned by the last {@link #load()}.
+     *
+     * @return the checkpointer, or null if nothing has been loaded
+     */
+    public static synchronized Checkpointer getCheckpointer() {
+        return checkpointer;
+    }
+
     /**
      * Loads data into the FlightBookingSystem instance.
+     * The binary snapshot is used when there is one, otherwise the text files are imported.
+     * The changes recorded in the write-ahead log since then are replayed on top, and a checkpointer
+     * is started that keeps the snapshot up to date from then on. The pricing rules are read from their
+     * own file either way. A store of the text files that was cut short is first completed or undone,
+     * as the manifest says. If the snapshot was stored together with the current text files, they are
+     * known to hold the loaded data and are not stored again until it changes.
+     *
+     * Its triggers can be set with the {@code fbs.checkpoint.logBytes}, {@code fbs.checkpoint.records}
+     * and {@code fbs.checkpoint.intervalMillis} system properties.
      *
      * @return the FlightBookingSystem instance with loaded data
      * @throws FlightBookingSystemException if an error related to the Flight Booking System occurs
      * @throws IOException if an I/O error occurs
      */
-    public static FlightBookingSystem load() throws FlightBookingSystemException, IOException {
-        FlightBookingSystem fbs = new FlightBookingSystem();
-        for (DataManager dm : dataManagers) {
-            dm.loadData(fbs);
+    public static synchronized FlightBookingSystem load() throws FlightBookingSystemException, IOException {
+        if (checkpointer != null) {
+            checkpointer.close();
+            checkpointer = null;
+        }
+        manifest.recover();
+        FlightBookingSystem fbs = null;
+        long logPosition = 0;
+        if (Files.exists(snapshotManager.getPath())) {
+            try {
+                fbs = new FlightBookingSystem();
+                snapshotManager.loadData(fbs);
+                logPosition = snapshotManager.getLogPosition();
+                if (snapshotManager.getTextGeneration() != 0 && snapshotManager.getTextGeneration() == manifest.getGeneration()) {
+                    markTextStored(fbs);
+                }
+            } catch (FlightBookingSystemException ex) {
+                System.out.println(ex.getMessage() + " Loading the text data files instead.");
+                fbs = null;
+            }
         }
+        if (fbs == null) {
+            fbs = importText();
+        }
+        pricingManager.loadData(fbs);
+        log.replay(fbs, logPosition);
+        snapshotManager.setLogPosition(logPosition);
+
+        checkpointer = new Checkpointer(fbs, snapshotManager, log,
+                Long.getLong("fbs.checkpoint.logBytes", 4L * 1024 * 1024),
+                Long.getLong("fbs.checkpoint.records", 10000),
+                Long.getLong("fbs.checkpoint.intervalMillis", 5 * 60 * 1000));
+        checkpointer.start();
+        return fbs;
+    }
+
+    /**
+     * Loads data from the text data files into a new FlightBookingSystem instance.
+     * The files are parsed in parallel and then linked; the number of threads can be set with the
+     * {@code fbs.load.threads} system property and defaults to the number of processors.
+     *
+     * @return the FlightBookingSystem instance with loaded data
+     * @throws FlightBookingSystemException if an error related to the Flight Booking System occurs
+     * @throws IOException if an I/O error occurs
+     */
+    public static FlightBookingSystem importText() throws FlightBookingSystemException, IOException {
+        int threads = Integer.getInteger("fbs.load.threads", Runtime.getRuntime().availableProcessors());
+        FlightBookingSystem fbs = new ParallelLoader(flightManager, customerManager, bookingManager, threads).load();
+        markTextStored(fbs);
         return fbs;
     }
 
     /**
-     * Stores data from the FlightBookingSystem instance.
+     * Stores data from the FlightBookingSystem instance to the text data files and the binary snapshot,
+     * then discards the write-ahead log records the snapshot now includes.
+     * Only the text files whose table changed since they were last loaded or stored are written, and the
+     * snapshot is only written if the system changed since it was last loaded or stored, so storing a
+     * system that changed little or not at all takes little time whatever its size. The snapshot records
+     * the manifest generation of the text files, so after loading it they are still known to be current.
      *
      * @param fbs the FlightBookingSystem instance
      * @throws IOException if an I/O error occurs
      */
-    public static void store(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("resources/data/customers.txt"))) {
-            for (Customer customer : fbs.getCustomers()) {
-                writer.println(customer.getId() + "," + customer.getName() + "," + customer.getPhone() + "," + customer.getEmail());
-            }
+    public static synchronized void store(FlightBookingSystem fbs) throws IOException {
+        if (checkpointer != null) {
+            checkpointer.close();
+            checkpointer = null;
         }
-        try (PrintWriter writer = new PrintWriter(new FileWriter("resources/data/flights.txt"))) {
-            for (Flight flight : fbs.getFlights()) {
-                writer.println(flight.getId() + "," + flight.getFlightNumber() + "," + flight.getOrigin() + "," + flight.getDestination() + "," + flight.getDepartureDate() + "," + flight.getNumberOfSeats() + "," + flight.getPrice());
+        log.open();
+        synchronized (fbs) {
+            long logPosition = log.getLastLsn();
+            exportText(fbs);
+            int textGeneration = (int) manifest.getGeneration();
+            if (!snapshotManager.isCurrent(fbs) || snapshotManager.getLogPosition() != logPosition
+                    || snapshotManager.getTextGeneration() != textGeneration) {
+                snapshotManager.setLogPosition(logPosition);
+                snapshotManager.setTextGeneration(textGeneration);
+                snapshotManager.storeData(fbs);
             }
+            log.discardThrough(logPosition);
         }
-        try (PrintWriter writer = new PrintWriter(new FileWriter("resources/data/bookings.txt"))) {
-            for (Booking booking : fbs.getBookings()) {
-                writer.println(booking.getId() + "," + booking.getCustomer().getId() + "," + booking.getFlight().getId() + "," + booking.getBookingDate());
+    }
+
+    /**
+     * Stores data from the FlightBookingSystem instance to the text data files.
+     * The three files are stored as one generation of the manifest: each changed file is written next to
+     * its old version and forced to disk, the manifest is replaced atomically, and only then are the new
+     * files renamed into place. A file whose table has not changed since it was loaded from or stored for
+     * this system is skipped without being formatted, and a file whose content is unchanged is not rewritten.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @throws IOException if an I/O error occurs
+     */
+    public static void exportText(FlightBookingSystem fbs) throws IOException {
+        // The versions are read first, so a change made while writing leaves its table out of date
+        long customersVersion = fbs.getCustomersVersion();
+        long flightsVersion = fbs.getFlightsVersion();
+        long bookingsVersion = fbs.getBookingsVersion();
+        synchronized (manifest) {
+            DataManifest.Transaction transaction = manifest.begin();
+            if (!isStored(storedCustomers, fbs, customersVersion, customerManager.getPath())) {
+                transaction.write(customerManager.getPath(), out -> customerManager.write(fbs, out));
             }
+            if (!isStored(storedFlights, fbs, flightsVersion, flightManager.getPath())) {
+                transaction.write(flightManager.getPath(), out -> flightManager.write(fbs, out));
+            }
+            if (!isStored(storedBookings, fbs, bookingsVersion, bookingManager.getPath())) {
+                transaction.write(bookingManager.getPath(), out -> bookingManager.write(fbs, out));
+            }
+            transaction.commit();
+            storedCustomers.set(fbs, customersVersion);
+            storedFlights.set(fbs, flightsVersion);
+            storedBookings.set(fbs, bookingsVersion);
         }
     }
+
+    /**
+     * Records that the text data files hold the current tables of a system.
+     *
+     * @param fbs the FlightBookingSystem instance
+     */
+    private static void markTextStored(FlightBookingSystem fbs) {
+        synchronized (manifest) {
+            storedCustomers.set(fbs, fbs.getCustomersVersion());
+            storedFlights.set(fbs, fbs.getFlightsVersion());
+            storedBookings.set(fbs, fbs.getBookingsVersion());
+        }
+    }
+
+    private static boolean isStored(StoredVersion stored, FlightBookingSystem fbs, long version, Path file) {
+        return stored.isCurrent(fbs, version) && Files.exists(file);
+    }
 }
@@ -7,14 +7,17 @@
 package bcu.cmp5332.bookingsystem.data;
 
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The FlightDataManager class is responsible for loading and storing flight data to and from a file
@@ -23,11 +26,27 @@ import java.util.Scanner;
 public class FlightDataManager implements DataManager {
 
     /** The path to the flight data file. */
-    private final String RESOURCE = "./resources/data/flights.txt";
+    private final String RESOURCE;
 
     /** The separator used to separate fields in the data file. */
     private final String SEPARATOR = ",";
 
+    /**
+     * Constructs a FlightDataManager for the default flight data file.
+     */
+    public FlightDataManager() {
+        this("./resources/data/flights.txt");
+    }
+
+    /**
+     * Constructs a FlightDataManager for the specified flight data file.
+     *
+     * @param resource the path to the flight data file
+     */
+    public FlightDataManager(String resource) {
+        this.RESOURCE = resource;
+    }
+
     /**
      * Loads flight data from the specified file and updates the FlightBookingSystem instance.
      *
@@ -37,62 +56,115 @@ public class FlightDataManager implements DataManager {
      */
     @Override
     public void loadData(FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
-        try (Scanner sc = new Scanner(new File(RESOURCE))) {
-            int line_idx = 1;
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine();
-                String[] properties = line.split(SEPARATOR, -1);
+        link(fbs, parse());
+    }
+
+    /**
+     * Parses the flights in the specified file without adding them to a system, so the file can be
+     * read on its own thread while the other files are read.
+     *
+     * @return the flights in file order
+     * @throws IOException if an I/O error occurs
+     * @throws FlightBookingSystemException if a line cannot be parsed
+     */
+    List<Flight> parse() throws IOException, FlightBookingSystemException {
+        List<Flight> flights = new ArrayList<>();
+        try (RecordReader records = new RecordReader(new File(RESOURCE))) {
+            while (records.next()) {
                 try {
-                    int id = Integer.parseInt(properties[0]);
-                    String flightNumber = properties[1];
-                    String origin = properties[2];
-                    String destination = properties[3];
-                    LocalDate departureDate = LocalDate.parse(properties[4]);
-                    int numberOfSeats = Integer.parseInt(properties[5]);
-                    double price = Double.parseDouble(properties[6]);
-                    Flight flight = new Flight(id, flightNumber, origin, destination, departureDate, numberOfSeats, price);
-                    fbs.addFlight(flight);
+                    int id = records.getInt(0);
+                    String flightNumber = records.getString(1);
+                    String origin = records.getString(2);
+                    String destination = records.getString(3);
+                    LocalDate departureDate = records.getDate(4);
+                    int numberOfSeats = records.getInt(5);
+                    double price = records.getDouble(6);
+                    flights.add(new Flight(id, flightNumber, origin, destination, departureDate, numberOfSeats, price));
                 } catch (NumberFormatException ex) {
-                    throw new FlightBookingSystemException("Unable to parse flight id " + properties[0] + " on line " + line_idx
-                        + "\nError: " + ex);
+                    throw new FlightBookingSystemException("Unable to parse flight id " + records.getString(0) + " on line "
+                        + records.getLineNumber() + "\nError: " + ex);
                 }
-                line_idx++;
             }
         }
+        return flights;
+    }
+
+    /**
+     * Adds parsed flights to the FlightBookingSystem instance.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param flights the flights returned by {@link #parse()}
+     * @throws FlightBookingSystemException if a flight cannot be added
+     */
+    static void link(FlightBookingSystem fbs, List<Flight> flights) throws FlightBookingSystemException {
+        for (Flight flight : flights) {
+            fbs.addFlight(flight);
+        }
     }
 
     /**
      * Stores flight data to the specified file based on the FlightBookingSystem instance.
+     * The file is replaced atomically, so a crash mid-write leaves the previous file intact.
      *
      * @param fbs the FlightBookingSystem instance
      * @throws IOException if an I/O error occurs
      */
     @Override
     public void storeData(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter out = new PrintWriter(new FileWriter(RESOURCE))) {
-            for (Flight flight : fbs.getFlights()) {
-                out.print(flight.getId() + SEPARATOR);
-                out.print(flight.getFlightNumber() + SEPARATOR);
-                out.print(flight.getOrigin() + SEPARATOR);
-                out.print(flight.getDestination() + SEPARATOR);
-                out.print(flight.getDepartureDate() + SEPARATOR);
-                out.print(flight.getNumberOfSeats() + SEPARATOR);
-                out.print(flight.getPrice() + SEPARATOR);
-                out.println();
-            }
+        AtomicFiles.write(getPath(), out -> write(fbs, out));
+    }
+
+    /**
+     * Prints the flights of the FlightBookingSystem instance in the format of the flight data file.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param out the writer to print to
+     */
+    void write(FlightBookingSystem fbs, PrintWriter out) {
+        for (Flight flight : fbs.getFlights()) {
+            out.print(flight.getId() + SEPARATOR);
+            out.print(flight.getFlightNumber() + SEPARATOR);
+            out.print(flight.getOrigin() + SEPARATOR);
+            out.print(flight.getDestination() + SEPARATOR);
+            out.print(flight.getDepartureDate() + SEPARATOR);
+            out.print(flight.getNumberOfSeats() + SEPARATOR);
+            out.print(flight.getPrice() + SEPARATOR);
+            out.println();
         }
     }
 
     /**
-     * Deletes a flight with the specified ID from the FlightBookingSystem instance and updates the data file.
+     * Gets the path to the flight data file.
+     *
+     * @return the path
+     */
+    Path getPath() {
+        return Paths.get(RESOURCE);
+    }
+
+    /**
+     * Deletes a flight with the specified ID from the FlightBookingSystem instance and records the deletion in the write-ahead log.
      *
      * @param flightId the ID of the flight to delete
      * @param fbs the FlightBookingSystem instance
-     * @throws IOException if an I/O error occurs
+     * @throws IOException if the deletion cannot be recorded, in which case the flight is added back, or if
+     *         the log cannot be forced to disk
      * @throws FlightBookingSystemException if an error related to the Flight Booking System occurs
      */
     public void deleteFlight(int flightId, FlightBookingSystem fbs) throws IOException, FlightBookingSystemException { 
-        fbs.deleteFlight(flightId); 
-        storeData(fbs); 
+        long lsn;
+        synchronized (fbs) {
+            Flight flight = fbs.getFlightByID(flightId);
+            List<Booking> bookings = fbs.getBookingsByFlight(flight);
+            fbs.deleteFlight(flightId);
+            try {
+                lsn = FlightBookingSystemData.getLog().logFlightDeleted(flightId);
+            } catch (IOException ex) {
+                // Add the flight back, so a checkpoint cannot store a change reported as failed
+                fbs.restoreFlight(flight, bookings);
+                throw ex;
+            }
+        }
+        FlightBookingSystemData.getLog().awaitDurable(lsn);
     } 
 }
@@ -0,0 +1,270 @@
+/**
+ * The MappedRecordReader class reads comma separated records straight from the bytes of a memory-mapped
+ * range of a data file for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The MappedRecordReader class reads comma separated records straight from the bytes of a memory-mapped
+ * range of a data file.
+ *
+ * It splits and parses lines the same way as {@link RecordReader}, giving the same values, but reads the
+ * mapped bytes in place instead of decoding them into a character buffer first. Numbers and dates must
+ * be ASCII, as they are in the data files; only {@link #getString(int)} decodes and allocates. Each reader
+ * owns its buffer, so readers over different ranges of one file can run on different threads.
+ */
+class MappedRecordReader {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer bytes;
+    private int position;
+    private final int limit;
+
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private int lineNumber;
+
+    /**
+     * Constructs a MappedRecordReader over the remaining bytes of a buffer, which should start at a line.
+     *
+     * @param bytes the mapped range of the data file
+     */
+    MappedRecordReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.position = bytes.position();
+        this.limit = bytes.limit();
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return true if a record was read, false at the end of the range
+     */
+    boolean next() {
+        if (position >= limit) {
+            return false;
+        }
+        int lineStart = position;
+        int end = lineStart;
+        while (end < limit && bytes.get(end) != '\n') {
+            end++;
+        }
+        position = end < limit ? end + 1 : end;
+        if (end > lineStart && bytes.get(end - 1) == '\r') {
+            end--;
+        }
+        splitFields(lineStart, end);
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Gets the number of fields in the current record.
+     *
+     * @return the field count
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets the line number of the current record within the range, starting from 1.
+     *
+     * @return the line number
+     */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets a field of the current record as a String.
+     *
+     * @param field the index of the field
+     * @return the field value
+     */
+    String getString(int field) {
+        checkField(field);
+        byte[] value = new byte[fieldEnds[field] - fieldStarts[field]];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = bytes.get(fieldStarts[field] + i);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a field of the current record equals the specified ASCII text.
+     *
+     * @param field the index of the field
+     * @param text the text to compare against
+     * @return true if the field has exactly the same characters as the text
+     */
+    boolean fieldEquals(int field, String text) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes.get(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field of the current record as an int.
+     *
+     * @param field the index of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field of the current record as a long.
+     *
+     * @param field the index of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid long
+     */
+    long getLong(int field) {
+        checkField(field);
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        if (i < end && (bytes.get(i) == '-' || bytes.get(i) == '+')) {
+            negative = bytes.get(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return Long.parseLong(getString(field)); // empty, or long enough to overflow: let Long report it
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current record as a double, exactly as {@link RecordReader#getDouble(int)} does.
+     *
+     * @param field the index of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid double
+     */
+    double getDouble(int field) {
+        checkField(field);
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        if (i < end && (bytes.get(i) == '-' || bytes.get(i) == '+')) {
+            negative = bytes.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte c = bytes.get(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        // Exact when the mantissa and the power of ten are both representable, i.e. at most 15 digits
+        if (i < end || digits == 0 || digits > 15 || fractionDigits > 22) {
+            return Double.parseDouble(getString(field));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current record as an ISO-8601 date ({@code yyyy-MM-dd}).
+     *
+     * @param field the index of the field
+     * @return the parsed date
+     * @throws java.time.DateTimeException if the field is not a valid date
+     */
+    LocalDate getDate(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != 10 || bytes.get(start + 4) != '-' || bytes.get(start + 7) != '-') {
+            return LocalDate.parse(getString(field));
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(getString(field));
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private void splitFields(int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || bytes.get(i) == ',') {
+                if (fieldCount == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = i;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException("Line " + lineNumber + " has no field " + field);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * The ParallelLoader class loads the text data files into a new system on a pool of threads
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The ParallelLoader class loads the text data files into a new system on a pool of threads.
+ *
+ * Loading runs in two phases. In the parse phase each file is read on its own thread into plain objects
+ * and primitive columns, without looking anything up in the system, so the flights, customers and
+ * bookings files are read at the same time. The bookings file, by far the largest, is further split into
+ * ranges of whole lines that are parsed from a memory mapping on as many threads as the pool has.
+ *
+ * In the link phase the calling thread adds the parsed flights and customers to the system and then
+ * resolves each booking's customer and flight IDs against them, in file order with the ranges joined
+ * back in sequence, so the result is the same as loading the files one after another. Linking the
+ * flights starts as soon as they are parsed, while the bookings may still be being read.
+ */
+public class ParallelLoader {
+
+    private final FlightDataManager flights;
+    private final CustomerDataManager customers;
+    private final BookingDataManager bookings;
+    private final int threads;
+
+    /**
+     * Constructs a ParallelLoader for the specified data files.
+     *
+     * @param flights the manager of the flight data file
+     * @param customers the manager of the customer data file
+     * @param bookings the manager of the booking data file
+     * @param threads the number of threads to parse on
+     */
+    public ParallelLoader(FlightDataManager flights, CustomerDataManager customers, BookingDataManager bookings, int threads) {
+        this.flights = flights;
+        this.customers = customers;
+        this.bookings = bookings;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Loads the data files into a new FlightBookingSystem instance.
+     *
+     * @return the FlightBookingSystem instance with loaded data
+     * @throws IOException if an I/O error occurs or the loading thread is interrupted
+     * @throws FlightBookingSystemException if a file cannot be parsed or a booking cannot be linked
+     */
+    public FlightBookingSystem load() throws IOException, FlightBookingSystemException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<List<Flight>> parsedFlights = pool.submit(flights::parse);
+            Future<List<Customer>> parsedCustomers = pool.submit(customers::parse);
+            List<Future<BookingRecords>> parsedBookings = bookings.parseChunks(pool, threads);
+
+            FlightBookingSystem fbs = new FlightBookingSystem();
+            FlightDataManager.link(fbs, await(parsedFlights));
+            CustomerDataManager.link(fbs, await(parsedCustomers));
+            List<BookingRecords> bookingChunks = new ArrayList<>();
+            for (Future<BookingRecords> chunk : parsedBookings) {
+                bookingChunks.add(await(chunk));
+            }
+            BookingDataManager.link(fbs, BookingRecords.concat(bookingChunks));
+            return fbs;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for a parse task and rethrows what it failed with.
+     *
+     * @param task the parse task
+     * @return the parsed data
+     * @throws IOException if the task failed with one, or the wait is interrupted
+     * @throws FlightBookingSystemException if the task failed with one
+     */
+    static <T> T await(Future<T> task) throws IOException, FlightBookingSystemException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the data files.");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof FlightBookingSystemException) {
+                throw (FlightBookingSystemException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * The PricingRulesDataManager class is responsible for loading and storing the pricing rule tables
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.PricingEngine;
+import bcu.cmp5332.bookingsystem.model.RuleTablePricingEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The PricingRulesDataManager class is responsible for loading and storing the pricing rule tables
+ * for the Flight Booking System application.
+ *
+ * Each line of the file is one rule: {@code days,<minimum days left>,<price factor>} or
+ * {@code seats,<seats left>,<surcharge>}. The loaded rules become the system's
+ * {@link RuleTablePricingEngine}; without a file the system keeps the standard rules.
+ */
+public class PricingRulesDataManager implements DataManager {
+
+    /** The path to the pricing rules file. */
+    private final String RESOURCE;
+
+    /**
+     * Constructs a PricingRulesDataManager for the default pricing rules file.
+     */
+    public PricingRulesDataManager() {
+        this("./resources/data/pricing.txt");
+    }
+
+    /**
+     * Constructs a PricingRulesDataManager for the specified pricing rules file.
+     *
+     * @param resource the path to the pricing rules file
+     */
+    public PricingRulesDataManager(String resource) {
+        this.RESOURCE = resource;
+    }
+
+    /**
+     * Loads the pricing rules from the specified file and sets them as the FlightBookingSystem's pricing engine.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @throws IOException if an I/O error occurs
+     * @throws FlightBookingSystemException if a rule cannot be parsed or the rules are invalid
+     */
+    @Override
+    public void loadData(FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
+        File file = new File(RESOURCE);
+        if (!file.exists()) {
+            return;
+        }
+        SortedMap<Integer, Double> dayFactors = new TreeMap<>();
+        Map<Integer, Double> seatSurcharges = new TreeMap<>();
+        try (RecordReader records = new RecordReader(file)) {
+            while (records.next()) {
+                try {
+                    if (records.fieldEquals(0, "days")) {
+                        dayFactors.put(records.getInt(1), records.getDouble(2));
+                    } else if (records.fieldEquals(0, "seats")) {
+                        seatSurcharges.put(records.getInt(1), records.getDouble(2));
+                    } else {
+                        throw new FlightBookingSystemException("Unknown pricing rule " + records.getString(0) + " on line "
+                            + records.getLineNumber());
+                    }
+                } catch (NumberFormatException ex) {
+                    throw new FlightBookingSystemException("Unable to parse pricing rule on line "
+                        + records.getLineNumber() + "\nError: " + ex);
+                }
+            }
+        }
+        try {
+            fbs.setPricingEngine(new RuleTablePricingEngine(dayFactors, seatSurcharges));
+        } catch (IllegalArgumentException ex) {
+            throw new FlightBookingSystemException("Invalid pricing rules in " + RESOURCE + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Stores the FlightBookingSystem's pricing rules to the specified file, replacing it atomically.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @throws IOException if an I/O error occurs
+     * @throws FlightBookingSystemException if the system's pricing engine does not use rule tables
+     */
+    @Override
+    public void storeData(FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
+        PricingEngine engine = fbs.getPricingEngine();
+        if (!(engine instanceof RuleTablePricingEngine)) {
+            throw new FlightBookingSystemException("The pricing engine has no rule tables to store.");
+        }
+        RuleTablePricingEngine rules = (RuleTablePricingEngine) engine;
+        AtomicFiles.write(Paths.get(RESOURCE), out -> {
+            for (Map.Entry<Integer, Double> rule : rules.getDayFactors().entrySet()) {
+                out.println("days" + SEPARATOR + rule.getKey() + SEPARATOR + rule.getValue());
+            }
+            for (Map.Entry<Integer, Double> rule : rules.getSeatSurcharges().entrySet()) {
+                out.println("seats" + SEPARATOR + rule.getKey() + SEPARATOR + rule.getValue());
+            }
+        });
+    }
+}
@@ -0,0 +1,340 @@
+/**
+ * The RecordReader class reads comma separated records from a data file one line at a time
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The RecordReader class reads comma separated records from a data file one line at a time.
+ *
+ * Lines are read into a reusable character buffer and split into fields by recording the start and end
+ * offset of each field, so numbers and dates are parsed straight from the buffer without creating a String
+ * per line or per field. Only {@link #getString(int)} allocates.
+ */
+public class RecordReader implements Closeable {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private int position; // Start of the unread characters in the buffer
+    private int limit; // End of the characters read into the buffer
+    private boolean endOfInput;
+
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private int lineNumber;
+
+    /**
+     * Constructs a RecordReader over the specified file.
+     *
+     * @param file the data file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public RecordReader(File file) throws IOException {
+        this(new FileReader(file));
+    }
+
+    /**
+     * Constructs a RecordReader over the specified reader.
+     *
+     * @param reader the reader supplying the records
+     */
+    public RecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return true if a record was read, false at the end of the input
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean next() throws IOException {
+        int end = findLineEnd();
+        if (end < 0) {
+            return false;
+        }
+        int lineStart = position;
+        position = end < limit ? end + 1 : end;
+        if (end > lineStart && buffer[end - 1] == '\r') {
+            end--;
+        }
+        splitFields(lineStart, end);
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Gets the number of fields in the current record.
+     *
+     * @return the field count
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets the line number of the current record, starting from 1.
+     *
+     * @return the line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets a field of the current record as a String.
+     *
+     * @param field the index of the field
+     * @return the field value
+     */
+    public String getString(int field) {
+        checkField(field);
+        return new String(buffer, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    /**
+     * Checks whether a field of the current record equals the specified text.
+     *
+     * @param field the index of the field
+     * @param text the text to compare against
+     * @return true if the field has exactly the same characters as the text
+     */
+    public boolean fieldEquals(int field, String text) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field of the current record as an int.
+     *
+     * @param field the index of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field of the current record as a long.
+     *
+     * @param field the index of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid long
+     */
+    public long getLong(int field) {
+        checkField(field);
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return Long.parseLong(getString(field)); // empty, or long enough to overflow: let Long report it
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current record as a double.
+     * Plain decimals such as {@code 150} or {@code 200.50} are parsed in place; anything else,
+     * such as exponents, is handed to {@link Double#parseDouble(String)}.
+     *
+     * @param field the index of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid double
+     */
+    public double getDouble(int field) {
+        checkField(field);
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        // Exact when the mantissa and the power of ten are both representable, i.e. at most 15 digits
+        if (i < end || digits == 0 || digits > 15 || fractionDigits > 22) {
+            return Double.parseDouble(getString(field));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current record as an ISO-8601 date ({@code yyyy-MM-dd}).
+     *
+     * @param field the index of the field
+     * @return the parsed date
+     * @throws java.time.DateTimeException if the field is not a valid date
+     */
+    public LocalDate getDate(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != 10 || buffer[start + 4] != '-' || buffer[start + 7] != '-') {
+            return LocalDate.parse(getString(field));
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(getString(field));
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Finds the end of the next line, reading more input as needed.
+     *
+     * @return the buffer offset of the line terminator, or of the end of input for a final unterminated line,
+     *         or -1 if there are no more lines
+     * @throws IOException if an I/O error occurs
+     */
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            if (endOfInput) {
+                return position < limit ? limit : -1;
+            }
+            scanFrom = limit - position;
+            fill();
+            scanFrom += position;
+        }
+    }
+
+    /**
+     * Moves the unread characters to the front of the buffer, growing it if it is full, and reads more input.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = remaining;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    /**
+     * Records the offsets of the comma separated fields of a line.
+     *
+     * @param start the buffer offset of the first character of the line
+     * @param end the buffer offset just past the last character of the line
+     */
+    private void splitFields(int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer[i] == ',') {
+                if (fieldCount == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = i;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException("Line " + lineNumber + " has no field " + field);
+        }
+    }
+}
@@ -0,0 +1,511 @@
+/**
+ * The SnapshotDataManager class is responsible for loading and storing the whole flight booking system
+ * as a single binary snapshot file for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.BookingStore;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SnapshotDataManager class is responsible for loading and storing the whole flight booking system
+ * as a single binary snapshot file.
+ *
+ * The snapshot is written through a FileChannel and read back through a MappedByteBuffer. It holds a fixed
+ * header, a table of the distinct strings (flight numbers, airports, names, phones and emails) and then
+ * fixed-width flight, customer and booking records that refer to strings by their index in the table.
+ * All values are little-endian.
+ *
+ * <pre>
+ * header   magic:int version:int maxBookingId:int stringCount:int flightCount:int customerCount:int bookingCount:int textGeneration:int
+ *          logPosition:long                      (version 2 onwards)
+ * string   length:int utf8:byte[length]           (length -1 stands for null)
+ * flight   id:int number:int origin:int destination:int departureEpochDay:int seats:int price:double
+ * customer id:int name:int phone:int email:int
+ * booking  id:int customerId:int flightId:int bookingEpochDay:int price:double cancellationFee:double rebookFee:double flags:int reserved:int
+ * </pre>
+ * The text generation is the {@link DataManifest} generation of text data files holding the same data as
+ * the snapshot, or 0 if that is not known; older snapshots always have 0 there.
+ */
+public class SnapshotDataManager implements DataManager {
+
+    /** Identifies a snapshot file ("FBSS"). */
+    public static final int MAGIC = 0x46425353;
+
+    /** The version of the snapshot format written by this class. */
+    public static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 40;
+    private static final int BOOKING_COUNT_OFFSET = 24;
+    private static final int VERSION_1_HEADER_SIZE = 32;
+    private static final int FLIGHT_RECORD_SIZE = 32;
+    private static final int CUSTOMER_RECORD_SIZE = 16;
+    private static final int BOOKING_RECORD_SIZE = 48;
+    private static final int FLAG_CANCELLED = 1;
+    private static final int NULL_STRING = -1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /** The path to the snapshot file. */
+    private final Path RESOURCE;
+
+    /** The write-ahead log LSN reflected in the snapshot last loaded or about to be stored. */
+    private long logPosition;
+
+    /** The manifest generation of the text files matching the snapshot last loaded or about to be stored. */
+    private int textGeneration;
+
+    /** The size in bytes of the snapshot last stored. */
+    private long storedBytes;
+
+    /** The system and its version that the snapshot file holds. */
+    private final StoredVersion stored = new StoredVersion();
+
+    /**
+     * Constructs a SnapshotDataManager for the default snapshot file.
+     */
+    public SnapshotDataManager() {
+        this("./resources/data/snapshot.bin");
+    }
+
+    /**
+     * Constructs a SnapshotDataManager for the specified snapshot file.
+     *
+     * @param resource the path to the snapshot file
+     */
+    public SnapshotDataManager(String resource) {
+        this.RESOURCE = Paths.get(resource);
+    }
+
+    /**
+     * Gets the path to the snapshot file.
+     *
+     * @return the snapshot path
+     */
+    public Path getPath() {
+        return RESOURCE;
+    }
+
+    /**
+     * Gets the write-ahead log LSN reflected in the snapshot that was last loaded or stored.
+     *
+     * @return the LSN of the last log record included in the snapshot
+     */
+    public long getLogPosition() {
+        return logPosition;
+    }
+
+    /**
+     * Sets the write-ahead log LSN that the next stored snapshot reflects.
+     *
+     * @param logPosition the LSN of the last log record included in the snapshot
+     */
+    public void setLogPosition(long logPosition) {
+        this.logPosition = logPosition;
+    }
+
+    /**
+     * Gets the manifest generation of the text data files that hold the same data as the snapshot that was
+     * last loaded or stored.
+     *
+     * @return the generation, or 0 if no text files are known to match the snapshot
+     */
+    public int getTextGeneration() {
+        return textGeneration;
+    }
+
+    /**
+     * Sets the manifest generation of the text data files that hold the same data as the next stored snapshot.
+     *
+     * @param textGeneration the generation, or 0 if no text files are known to match the snapshot
+     */
+    public void setTextGeneration(int textGeneration) {
+        this.textGeneration = textGeneration;
+    }
+
+    /**
+     * Gets the size of the snapshot file written by the last call to {@link #storeData(FlightBookingSystem)}.
+     *
+     * @return the number of bytes written, or 0 if nothing has been stored yet
+     */
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Checks whether the snapshot file holds a system as it is now, because the snapshot was loaded into
+     * it or stored from it and the system has not changed since.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @return true if storing the system again would write the same snapshot
+     */
+    public boolean isCurrent(FlightBookingSystem fbs) {
+        return stored.isCurrent(fbs, fbs.getVersion()) && Files.exists(RESOURCE);
+    }
+
+    /**
+     * Loads flights, customers, bookings and the maximum booking ID from the snapshot file.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @throws IOException if an I/O error occurs
+     * @throws FlightBookingSystemException if the file is not a snapshot this class can read
+     */
+    @Override
+    public void loadData(FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
+        try (FileChannel channel = FileChannel.open(RESOURCE, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new FlightBookingSystemException("Snapshot " + RESOURCE + " is too large to map.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                readSnapshot(buffer, fbs);
+                stored.set(fbs, fbs.getVersion());
+            } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+                throw new FlightBookingSystemException("Snapshot " + RESOURCE + " is truncated or corrupt.");
+            }
+        }
+    }
+
+    /**
+     * Stores flights, customers, bookings and the maximum booking ID to the snapshot file.
+     * The snapshot is written to a temporary file next to it, forced to disk and then renamed over the old one,
+     * so a crash mid-write leaves the previous snapshot intact.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void storeData(FlightBookingSystem fbs) throws IOException {
+        long version = fbs.getVersion(); // Read first, so a change made while writing leaves the snapshot out of date
+        store(fbs, version, fbs.getMaxBookingId(), fbs.getAllFlights(), fbs.getCustomers(), fbs.getBookingStore().cursor());
+    }
+
+    /**
+     * Copies the data of the FlightBookingSystem instance as it is now, so it can be stored with
+     * {@link #storeImage(Image)} while the system goes on changing. The caller keeps the system from changing
+     * while the copy is taken, such as by holding its monitor, which is far shorter than writing the snapshot.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @return the copy
+     */
+    Image capture(FlightBookingSystem fbs) {
+        List<Flight> flights = new ArrayList<>();
+        for (Flight flight : fbs.getAllFlights()) {
+            flights.add(new Flight(flight.getId(), flight.getFlightNumber(), flight.getOrigin(), flight.getDestination(),
+                    flight.getDepartureDate(), flight.getNumberOfSeats(), flight.getPrice()));
+        }
+        List<Customer> customers = new ArrayList<>();
+        for (Customer customer : fbs.getCustomers()) {
+            customers.add(new Customer(customer.getId(), customer.getName(), customer.getPhone(), customer.getEmail()));
+        }
+        return new Image(fbs, fbs.getVersion(), fbs.getMaxBookingId(), flights, customers,
+                fbs.getBookingStore().copyCursor());
+    }
+
+    /**
+     * Stores a copy taken by {@link #capture(FlightBookingSystem)} to the snapshot file, in the same way as
+     * {@link #storeData(FlightBookingSystem)}.
+     *
+     * @param image the copy
+     * @throws IOException if an I/O error occurs
+     */
+    void storeImage(Image image) throws IOException {
+        store(image.system, image.version, image.maxBookingId, image.flights, image.customers, image.bookings);
+    }
+
+    /**
+     * Writes a snapshot of the specified data and records that the file holds the system at the version given.
+     */
+    private void store(FlightBookingSystem fbs, long version, int maxBookingId, List<Flight> flights,
+            List<Customer> customers, BookingStore.Cursor bookings) throws IOException {
+
+        StringTable strings = new StringTable();
+        for (Flight flight : flights) {
+            strings.add(flight.getFlightNumber());
+            strings.add(flight.getOrigin());
+            strings.add(flight.getDestination());
+        }
+        for (Customer customer : customers) {
+            strings.add(customer.getName());
+            strings.add(customer.getPhone());
+            strings.add(customer.getEmail());
+        }
+
+        Path temp = RESOURCE.resolveSibling(RESOURCE.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelWriter out = new ChannelWriter(channel);
+            putHeader(out, maxBookingId, strings.values.size(), flights.size(), customers.size(),
+                    0, textGeneration, logPosition);
+            for (byte[] value : strings.values) {
+                out.putString(value);
+            }
+            for (Flight flight : flights) {
+                putFlight(out, flight.getId(),
+                        strings.indexOf(flight.getFlightNumber()),
+                        strings.indexOf(flight.getOrigin()),
+                        strings.indexOf(flight.getDestination()),
+                        (int) flight.getDepartureDate().toEpochDay(),
+                        flight.getNumberOfSeats(),
+                        flight.getPrice());
+            }
+            for (Customer customer : customers) {
+                putCustomer(out, customer.getId(),
+                        strings.indexOf(customer.getName()),
+                        strings.indexOf(customer.getPhone()),
+                        strings.indexOf(customer.getEmail()));
+            }
+            // Bookings are read straight from the store's columns and counted as they are written
+            int bookingCount = 0;
+            while (bookings.next()) {
+                putBooking(out, bookings.getId(),
+                        bookings.getCustomerId(),
+                        bookings.getFlightId(),
+                        bookings.getBookingEpochDay(),
+                        bookings.getPrice(),
+                        bookings.getCancellationFee(),
+                        bookings.getRebookFee(),
+                        bookings.isCancelled());
+                bookingCount++;
+            }
+            out.flush();
+            ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, bookingCount);
+            while (count.hasRemaining()) {
+                channel.write(count, BOOKING_COUNT_OFFSET + count.position());
+            }
+            channel.force(true);
+            storedBytes = channel.position();
+        }
+        try {
+            Files.move(temp, RESOURCE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, RESOURCE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        stored.set(fbs, version);
+    }
+
+    /**
+     * Writes the snapshot header. Writers that stream a snapshot, such as {@link DatasetGenerator},
+     * must know the counts up front and then write exactly that many strings and records in this order.
+     */
+    static void putHeader(ChannelWriter out, int maxBookingId, int stringCount, int flightCount, int customerCount,
+            int bookingCount, int textGeneration, long logPosition) throws IOException {
+        out.ensure(HEADER_SIZE);
+        out.buffer.putInt(MAGIC).putInt(VERSION).putInt(maxBookingId).putInt(stringCount)
+                .putInt(flightCount).putInt(customerCount).putInt(bookingCount).putInt(textGeneration)
+                .putLong(logPosition);
+    }
+
+    static void putFlight(ChannelWriter out, int id, int number, int origin, int destination, int departureEpochDay,
+            int seats, double price) throws IOException {
+        out.ensure(FLIGHT_RECORD_SIZE);
+        out.buffer.putInt(id).putInt(number).putInt(origin).putInt(destination).putInt(departureEpochDay)
+                .putInt(seats).putDouble(price);
+    }
+
+    static void putCustomer(ChannelWriter out, int id, int name, int phone, int email) throws IOException {
+        out.ensure(CUSTOMER_RECORD_SIZE);
+        out.buffer.putInt(id).putInt(name).putInt(phone).putInt(email);
+    }
+
+    static void putBooking(ChannelWriter out, int id, int customerId, int flightId, int bookingEpochDay, double price,
+            double cancellationFee, double rebookFee, boolean cancelled) throws IOException {
+        out.ensure(BOOKING_RECORD_SIZE);
+        out.buffer.putInt(id).putInt(customerId).putInt(flightId).putInt(bookingEpochDay)
+                .putDouble(price).putDouble(cancellationFee).putDouble(rebookFee)
+                .putInt(cancelled ? FLAG_CANCELLED : 0).putInt(0);
+    }
+
+    /**
+     * Reads a whole snapshot into the FlightBookingSystem instance.
+     *
+     * @param buffer the mapped snapshot
+     * @param fbs the FlightBookingSystem instance
+     * @throws FlightBookingSystemException if the header is invalid or a record cannot be added
+     */
+    private void readSnapshot(ByteBuffer buffer, FlightBookingSystem fbs) throws FlightBookingSystemException {
+        if (buffer.remaining() < VERSION_1_HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new FlightBookingSystemException(RESOURCE + " is not a flight booking system snapshot.");
+        }
+        int version = buffer.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new FlightBookingSystemException("Unsupported snapshot version " + version + " in " + RESOURCE);
+        }
+        int maxBookingId = buffer.getInt();
+        int stringCount = buffer.getInt();
+        int flightCount = buffer.getInt();
+        int customerCount = buffer.getInt();
+        int bookingCount = buffer.getInt();
+        int snapshotTextGeneration = buffer.getInt();
+        long snapshotLogPosition = version >= 2 ? buffer.getLong() : 0;
+
+        String[] strings = new String[stringCount];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < stringCount; i++) {
+            int length = buffer.getInt();
+            if (length != NULL_STRING) {
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+
+        for (int i = 0; i < flightCount; i++) {
+            int id = buffer.getInt();
+            String flightNumber = string(strings, buffer.getInt());
+            String origin = string(strings, buffer.getInt());
+            String destination = string(strings, buffer.getInt());
+            LocalDate departureDate = LocalDate.ofEpochDay(buffer.getInt());
+            int numberOfSeats = buffer.getInt();
+            double price = buffer.getDouble();
+            fbs.addFlight(new Flight(id, flightNumber, origin, destination, departureDate, numberOfSeats, price));
+        }
+
+        for (int i = 0; i < customerCount; i++) {
+            int id = buffer.getInt();
+            String name = string(strings, buffer.getInt());
+            String phone = string(strings, buffer.getInt());
+            String email = string(strings, buffer.getInt());
+            fbs.addCustomer(new Customer(id, name, phone, email));
+        }
+
+        for (int i = 0; i < bookingCount; i++) {
+            int id = buffer.getInt();
+            Customer customer = fbs.getCustomerByID(buffer.getInt());
+            Flight flight = fbs.getFlightByID(buffer.getInt());
+            LocalDate bookingDate = LocalDate.ofEpochDay(buffer.getInt());
+            double price = buffer.getDouble();
+            double cancellationFee = buffer.getDouble();
+            double rebookFee = buffer.getDouble();
+            int flags = buffer.getInt();
+            buffer.getInt(); // reserved
+
+            Booking booking = new Booking(id, customer, flight, bookingDate, price);
+            if ((flags & FLAG_CANCELLED) != 0) {
+                booking.cancelBooking();
+            }
+            booking.setCancellationFee(cancellationFee);
+            booking.setRebookFee(rebookFee);
+            BookingDataManager.attachBooking(fbs, booking);
+        }
+        fbs.setMaxBookingId(maxBookingId);
+        logPosition = snapshotLogPosition;
+        textGeneration = snapshotTextGeneration;
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NULL_STRING ? null : strings[index];
+    }
+
+    /**
+     * The data of a system as it was when {@link #capture(FlightBookingSystem)} copied it.
+     */
+    static final class Image {
+        private final FlightBookingSystem system;
+        private final long version;
+        private final int maxBookingId;
+        private final List<Flight> flights;
+        private final List<Customer> customers;
+        private final BookingStore.Cursor bookings;
+
+        private Image(FlightBookingSystem system, long version, int maxBookingId, List<Flight> flights,
+                List<Customer> customers, BookingStore.Cursor bookings) {
+            this.system = system;
+            this.version = version;
+            this.maxBookingId = maxBookingId;
+            this.flights = flights;
+            this.customers = customers;
+            this.bookings = bookings;
+        }
+    }
+
+    /**
+     * Assigns each distinct string an index in the snapshot's string table.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        void add(String value) {
+            if (value != null && !indexes.containsKey(value)) {
+                indexes.put(value, values.size());
+                values.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? NULL_STRING : indexes.get(value);
+        }
+    }
+
+    /**
+     * Accumulates records in a direct buffer and writes it to the channel whenever it fills up.
+     */
+    static class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        ChannelWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void putString(String value) throws IOException {
+            putString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void putString(byte[] value) throws IOException {
+            ensure(4);
+            buffer.putInt(value.length);
+            if (value.length <= buffer.remaining()) {
+                buffer.put(value);
+            } else {
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(value);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
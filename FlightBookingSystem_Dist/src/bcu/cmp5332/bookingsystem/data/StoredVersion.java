@@ -0,0 +1,55 @@
+/**
+ * The StoredVersion class remembers which version of a system a data file holds
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The StoredVersion class remembers which version of a system a data file holds.
+ *
+ * After a file is loaded into a system or stored from one, the system and the version of the part of it
+ * the file holds are recorded. While the system still has that version the file is up to date and storing
+ * it again can be skipped. The system is held weakly, so a file that was stored once does not keep an
+ * old system alive.
+ */
+final class StoredVersion {
+
+    private WeakReference<FlightBookingSystem> system = new WeakReference<>(null);
+    private long version;
+
+    /**
+     * Records that the file holds a version of a system.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param version the version the file holds, read before the file was loaded or written
+     */
+    synchronized void set(FlightBookingSystem fbs, long version) {
+        this.system = new WeakReference<>(fbs);
+        this.version = version;
+    }
+
+    /**
+     * Checks whether the file holds the current version of a system.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param version the system's current version
+     * @return true if the file was last loaded or stored with this system at this version
+     */
+    synchronized boolean isCurrent(FlightBookingSystem fbs, long version) {
+        return system.get() == fbs && this.version == version;
+    }
+
+    /**
+     * Forgets what the file holds, so it is stored in full next time.
+     */
+    synchronized void clear() {
+        system = new WeakReference<>(null);
+        version = 0;
+    }
+}
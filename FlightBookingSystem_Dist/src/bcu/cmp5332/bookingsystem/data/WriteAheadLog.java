@@ -0,0 +1,707 @@
+/**
+ * The WriteAheadLog class records every change to the flight booking system as an appended log record
+ * for the Flight Booking System application.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The WriteAheadLog class records every change to the flight booking system as an appended log record,
+ * so a change costs one small write instead of rewriting a whole data file.
+ *
+ * The log is a directory of segment files, each named after the sequence number (LSN) of its first record.
+ * A record is laid out as {@code length:int crc:int lsn:long type:byte payload}, where the CRC covers the
+ * LSN, type and payload. Appends are made durable with group commit: a writer appends its record, which
+ * returns the record's LSN at once, then waits in {@link #awaitDurable(long)} until it has been forced to disk.
+ * A single force covers every record written before it started, so writers that append while holding a lock
+ * and wait after releasing it share their forces.
+ *
+ * On startup {@link #replay(FlightBookingSystem, long)} applies the records after the last snapshot
+ * to the loaded system. A torn record at the end of the last segment, left by a crash mid-append, is cut off.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /** A booking was made. */
+    public static final byte BOOKING_ADDED = 1;
+    /** A booking was cancelled. */
+    public static final byte BOOKING_CANCELLED = 2;
+    /** A booking was moved to another flight. */
+    public static final byte BOOKING_MOVED = 3;
+    /** A customer was added. */
+    public static final byte CUSTOMER_ADDED = 4;
+    /** A customer was deleted. */
+    public static final byte CUSTOMER_DELETED = 5;
+    /** A flight was added. */
+    public static final byte FLIGHT_ADDED = 6;
+    /** A flight was deleted. */
+    public static final byte FLIGHT_DELETED = 7;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_SIZE = 8; // length and CRC
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Object lock = new Object();
+
+    private FileChannel channel; // The segment being appended to
+    private Path segment;
+    private long segmentBytes;
+    private long lastLsn; // LSN of the last record written
+    private long durableLsn; // LSN of the last record forced to disk
+    private boolean forcing; // Whether a writer is currently forcing the segment to disk
+    private volatile boolean deferSync; // Whether appends return before their records are forced to disk
+
+    /**
+     * Constructs a WriteAheadLog in the specified directory with the default segment size.
+     *
+     * @param directory the directory holding the log segments
+     */
+    public WriteAheadLog(String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructs a WriteAheadLog in the specified directory.
+     *
+     * @param directory the directory holding the log segments
+     * @param segmentSize the size in bytes after which a new segment is started
+     */
+    public WriteAheadLog(String directory, long segmentSize) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the log for appending, creating the directory if needed. The last segment is scanned to find
+     * the last LSN, and any torn record at its end is cut off.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void open() throws IOException {
+        synchronized (lock) {
+            if (channel != null) {
+                return;
+            }
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments();
+            if (segments.isEmpty()) {
+                startSegment(1);
+                return;
+            }
+            segment = segments.get(segments.size() - 1);
+            channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long[] end = scanSegment(channel);
+            if (end[0] < channel.size()) {
+                channel.truncate(end[0]);
+            }
+            channel.position(end[0]);
+            segmentBytes = end[0];
+            lastLsn = end[1] > 0 ? end[1] : firstLsnOf(segment) - 1;
+            durableLsn = lastLsn;
+        }
+    }
+
+    /**
+     * Records that a booking was made.
+     *
+     * @param booking the new booking
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logBookingAdded(Booking booking) throws IOException {
+        return append(BOOKING_ADDED, out -> {
+            out.writeInt(booking.getId());
+            out.writeInt(booking.getCustomer().getId());
+            out.writeInt(booking.getFlight().getId());
+            out.writeLong(booking.getBookingDate().toEpochDay());
+            out.writeDouble(booking.getPrice());
+        });
+    }
+
+    /**
+     * Records that a group of bookings was made. Their records are written together and forced to disk once,
+     * so a group costs one write and one force however many bookings it has. Each booking still gets its own record.
+     *
+     * @param bookings the new bookings
+     * @return the LSN of the last record
+     * @throws IOException if the records cannot be written
+     */
+    public long logBookingsAdded(List<Booking> bookings) throws IOException {
+        List<ByteBuffer> records = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            records.add(encode(BOOKING_ADDED, out -> {
+                out.writeInt(booking.getId());
+                out.writeInt(booking.getCustomer().getId());
+                out.writeInt(booking.getFlight().getId());
+                out.writeLong(booking.getBookingDate().toEpochDay());
+                out.writeDouble(booking.getPrice());
+            }));
+        }
+        return append(records);
+    }
+
+    /**
+     * Records that a booking was cancelled.
+     *
+     * @param booking the cancelled booking
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logBookingCancelled(Booking booking) throws IOException {
+        return append(BOOKING_CANCELLED, out -> out.writeInt(booking.getId()));
+    }
+
+    /**
+     * Records that a booking was moved to the flight it now refers to.
+     *
+     * @param booking the moved booking
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logBookingMoved(Booking booking) throws IOException {
+        return append(BOOKING_MOVED, out -> {
+            out.writeInt(booking.getId());
+            out.writeInt(booking.getFlight().getId());
+        });
+    }
+
+    /**
+     * Records that a customer was added.
+     *
+     * @param customer the new customer
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logCustomerAdded(Customer customer) throws IOException {
+        return append(CUSTOMER_ADDED, out -> {
+            out.writeInt(customer.getId());
+            writeString(out, customer.getName());
+            writeString(out, customer.getPhone());
+            writeString(out, customer.getEmail());
+        });
+    }
+
+    /**
+     * Records that a customer was deleted.
+     *
+     * @param customerId the ID of the deleted customer
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logCustomerDeleted(int customerId) throws IOException {
+        return append(CUSTOMER_DELETED, out -> out.writeInt(customerId));
+    }
+
+    /**
+     * Records that a flight was added.
+     *
+     * @param flight the new flight
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logFlightAdded(Flight flight) throws IOException {
+        return append(FLIGHT_ADDED, out -> {
+            out.writeInt(flight.getId());
+            writeString(out, flight.getFlightNumber());
+            writeString(out, flight.getOrigin());
+            writeString(out, flight.getDestination());
+            out.writeLong(flight.getDepartureDate().toEpochDay());
+            out.writeInt(flight.getNumberOfSeats());
+            out.writeDouble(flight.getPrice());
+        });
+    }
+
+    /**
+     * Records that a flight was deleted.
+     *
+     * @param flightId the ID of the deleted flight
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    public long logFlightDeleted(int flightId) throws IOException {
+        return append(FLIGHT_DELETED, out -> out.writeInt(flightId));
+    }
+
+    /**
+     * Sets whether {@link #awaitDurable(long)} waits for records to be forced to disk. While syncing is deferred
+     * it returns at once, and the records are made durable together by the next {@link #sync()}, segment roll
+     * or {@link #close()}. A crash in between loses the records not yet synced. This applies to every writer of
+     * the log, so it is meant for a run that is the log's only writer, such as a batch script.
+     *
+     * @param defer true to defer syncing to {@link #sync()}, false to make every record durable when awaited
+     */
+    public void setDeferSync(boolean defer) {
+        this.deferSync = defer;
+    }
+
+    /**
+     * Waits until the record with the specified LSN has been forced to disk, unless syncing is deferred.
+     * Call it after releasing any lock held while the change was made and logged, so that writers which
+     * append in the meantime share the force instead of waiting for one force each.
+     *
+     * @param lsn the LSN returned when the record was written
+     * @throws IOException if forcing the segment fails
+     */
+    public void awaitDurable(long lsn) throws IOException {
+        if (!deferSync) {
+            force(lsn);
+        }
+    }
+
+    /**
+     * Waits until every record written so far has been forced to disk.
+     *
+     * @throws IOException if forcing the segment fails
+     */
+    public void sync() throws IOException {
+        long lsn;
+        synchronized (lock) {
+            if (channel == null) {
+                return;
+            }
+            lsn = lastLsn;
+        }
+        force(lsn);
+    }
+
+    /**
+     * Gets the LSN of the last record written to the log.
+     *
+     * @return the last LSN, or 0 if nothing has been logged
+     */
+    public long getLastLsn() {
+        synchronized (lock) {
+            return lastLsn;
+        }
+    }
+
+    /**
+     * Gets the total size of the log segments on disk.
+     *
+     * @return the size in bytes
+     * @throws IOException if the segment sizes cannot be read
+     */
+    public long getSize() throws IOException {
+        synchronized (lock) {
+            long size = 0;
+            for (Path path : listSegments()) {
+                size += path.equals(segment) ? segmentBytes : Files.size(path);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Deletes the segments that hold only records up to the specified LSN, once a snapshot includes them.
+     * The current segment is closed and a new one started first if all of its records are covered.
+     *
+     * @param lsn the LSN of the last record included in the snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    public void discardThrough(long lsn) throws IOException {
+        synchronized (lock) {
+            open();
+            if (segmentBytes > 0 && lastLsn <= lsn) {
+                rollSegment();
+            }
+            List<Path> segments = listSegments();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                // A segment ends just before the next one starts
+                if (firstLsnOf(segments.get(i + 1)) - 1 <= lsn) {
+                    Files.delete(segments.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies every record after the specified LSN to the FlightBookingSystem instance.
+     *
+     * @param fbs the FlightBookingSystem instance loaded from the last snapshot
+     * @param afterLsn the LSN already reflected in the loaded data; older records are skipped
+     * @return the number of records applied
+     * @throws IOException if an I/O error occurs
+     * @throws FlightBookingSystemException if a record cannot be applied
+     */
+    public int replay(FlightBookingSystem fbs, long afterLsn) throws IOException, FlightBookingSystemException {
+        open();
+        int applied = 0;
+        for (Path path : listSegments()) {
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+                while (true) {
+                    byte[] body = readRecord(in, header);
+                    if (body == null) {
+                        break;
+                    }
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                    long lsn = record.readLong();
+                    byte type = record.readByte();
+                    if (lsn > afterLsn) {
+                        apply(fbs, lsn, type, record);
+                        applied++;
+                    }
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Forces any outstanding records to disk and closes the log.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            while (forcing) {
+                awaitLock();
+            }
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Writes one record to the current segment and waits until it is durable.
+     *
+     * @param type the record type
+     * @param payload writes the type-specific fields of the record
+     * @return the LSN of the record
+     * @throws IOException if an I/O error occurs
+     */
+    private long append(byte type, Payload payload) throws IOException {
+        List<ByteBuffer> records = new ArrayList<>(1);
+        records.add(encode(type, payload));
+        return append(records);
+    }
+
+    /**
+     * Writes records to the current segment with consecutive LSNs in one write. They are not durable until
+     * forced to disk by {@link #awaitDurable(long)} or {@link #sync()}.
+     *
+     * @param records the records, as laid out by {@link #encode(byte, Payload)}
+     * @return the LSN of the last record
+     * @throws IOException if an I/O error occurs
+     */
+    private long append(List<ByteBuffer> records) throws IOException {
+        long lsn;
+        synchronized (lock) {
+            if (records.isEmpty()) {
+                return lastLsn;
+            }
+            open();
+            if (segmentBytes >= segmentSize) {
+                rollSegment();
+            }
+            lsn = lastLsn;
+            long bytes = 0;
+            CRC32 crc = new CRC32();
+            for (ByteBuffer record : records) {
+                int bodyLength = record.limit() - RECORD_HEADER_SIZE;
+                record.putLong(RECORD_HEADER_SIZE, ++lsn);
+                crc.reset();
+                crc.update(record.array(), RECORD_HEADER_SIZE, bodyLength);
+                record.putInt(0, bodyLength);
+                record.putInt(4, (int) crc.getValue());
+                bytes += record.limit();
+            }
+            ByteBuffer[] buffers = records.toArray(new ByteBuffer[0]);
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(buffers);
+            }
+            segmentBytes += bytes;
+            lastLsn = lsn;
+        }
+        return lsn;
+    }
+
+    /**
+     * Lays out a record with its length, CRC and LSN left to be filled in when it is appended.
+     *
+     * @param type the record type
+     * @param payload writes the type-specific fields of the record
+     * @return the record
+     * @throws IOException if the payload cannot be written
+     */
+    private static ByteBuffer encode(byte type, Payload payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, filled in on append
+        out.writeInt(0); // CRC, filled in on append
+        out.writeLong(0); // LSN, filled in on append
+        out.writeByte(type);
+        payload.write(out);
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    /**
+     * Waits until the record with the specified LSN has been forced to disk. If no other writer is forcing,
+     * this writer forces the segment itself, covering every record written so far.
+     *
+     * @param lsn the LSN to wait for
+     * @throws IOException if forcing the segment fails
+     */
+    private void force(long lsn) throws IOException {
+        FileChannel target;
+        long covered;
+        synchronized (lock) {
+            while (durableLsn < lsn && forcing) {
+                awaitLock();
+            }
+            if (durableLsn >= lsn) {
+                return;
+            }
+            forcing = true;
+            target = channel;
+            covered = lastLsn;
+        }
+        boolean forced = false;
+        try {
+            target.force(false);
+            forced = true;
+        } finally {
+            synchronized (lock) {
+                forcing = false;
+                if (forced && covered > durableLsn) {
+                    durableLsn = covered;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one after the last record. Must hold the lock.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void rollSegment() throws IOException {
+        while (forcing) {
+            awaitLock();
+        }
+        channel.force(false);
+        channel.close();
+        durableLsn = lastLsn;
+        startSegment(lastLsn + 1);
+    }
+
+    /**
+     * Creates a new empty segment whose first record will have the specified LSN. Must hold the lock.
+     *
+     * @param firstLsn the LSN of the segment's first record
+     * @throws IOException if an I/O error occurs
+     */
+    private void startSegment(long firstLsn) throws IOException {
+        segment = directory.resolve(String.format("%020d%s", firstLsn, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(0);
+        segmentBytes = 0;
+        lastLsn = firstLsn - 1;
+        durableLsn = lastLsn;
+    }
+
+    /**
+     * Lists the segment files in LSN order.
+     *
+     * @return the segment paths
+     * @throws IOException if the directory cannot be read
+     */
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort(null); // zero-padded names sort in LSN order
+        return segments;
+    }
+
+    /**
+     * Scans a segment for its last valid record.
+     *
+     * @param in the segment channel, positioned at the start
+     * @return the offset just past the last valid record, and that record's LSN (0 if there is none)
+     * @throws IOException if an I/O error occurs
+     */
+    private static long[] scanSegment(FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        long end = 0;
+        long lsn = 0;
+        while (true) {
+            byte[] body = readRecord(in, header);
+            if (body == null) {
+                return new long[] {end, lsn};
+            }
+            lsn = ByteBuffer.wrap(body).getLong(0);
+            end = in.position();
+        }
+    }
+
+    /**
+     * Reads the next record from a segment.
+     *
+     * @param in the segment channel
+     * @param header a reusable buffer for the record header
+     * @return the record body (LSN, type and payload), or null at the end of the segment or at a torn record
+     * @throws IOException if an I/O error occurs
+     */
+    private static byte[] readRecord(FileChannel in, ByteBuffer header) throws IOException {
+        header.clear();
+        if (!readFully(in, header)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        if (length < 9 || length > MAX_RECORD_SIZE) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        if (!readFully(in, body)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+        return body.array();
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static long firstLsnOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Applies a single log record to the FlightBookingSystem instance.
+     *
+     * @param fbs the FlightBookingSystem instance
+     * @param lsn the record's LSN, for error messages
+     * @param type the record type
+     * @param in the record payload
+     * @throws IOException if the payload is malformed
+     * @throws FlightBookingSystemException if the change cannot be applied
+     */
+    private static void apply(FlightBookingSystem fbs, long lsn, byte type, DataInputStream in)
+            throws IOException, FlightBookingSystemException {
+        try {
+            switch (type) {
+                case BOOKING_ADDED: {
+                    int id = in.readInt();
+                    Customer customer = fbs.getCustomerByID(in.readInt());
+                    Flight flight = fbs.getFlightByID(in.readInt());
+                    LocalDate bookingDate = LocalDate.ofEpochDay(in.readLong());
+                    Booking booking = new Booking(id, customer, flight, bookingDate, in.readDouble());
+                    BookingDataManager.attachBooking(fbs, booking);
+                    if (id > fbs.getMaxBookingId()) {
+                        fbs.setMaxBookingId(id);
+                    }
+                    break;
+                }
+                case BOOKING_CANCELLED:
+                    fbs.getBookingByID(in.readInt()).cancelBooking();
+                    break;
+                case BOOKING_MOVED: {
+                    // Not moveBooking(): a flight that has departed since must not stop the replay
+                    Booking booking = fbs.getBookingByID(in.readInt());
+                    int newFlightId = in.readInt();
+                    booking.getFlight().removePassenger(booking.getCustomer());
+                    fbs.updateBookingFlight(booking.getId(), newFlightId);
+                    booking.getFlight().addPassenger(booking.getCustomer());
+                    break;
+                }
+                case CUSTOMER_ADDED:
+                    fbs.addCustomer(new Customer(in.readInt(), readString(in), readString(in), readString(in)));
+                    break;
+                case CUSTOMER_DELETED:
+                    fbs.deleteCustomer(in.readInt());
+                    break;
+                case FLIGHT_ADDED:
+                    fbs.addFlight(new Flight(in.readInt(), readString(in), readString(in), readString(in),
+                            LocalDate.ofEpochDay(in.readLong()), in.readInt(), in.readDouble()));
+                    break;
+                case FLIGHT_DELETED:
+                    fbs.deleteFlight(in.readInt());
+                    break;
+                default:
+                    throw new FlightBookingSystemException("Unknown log record type " + type);
+            }
+        } catch (FlightBookingSystemException | IllegalArgumentException ex) {
+            throw new FlightBookingSystemException("Unable to replay log record " + lsn + "\nError: " + ex.getMessage());
+        }
+    }
+
+    private void awaitLock() throws IOException {
+        try {
+            lock.wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the write-ahead log");
+        }
+    }
+
+    /**
+     * Writes the type-specific fields of a log record.
+     */
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
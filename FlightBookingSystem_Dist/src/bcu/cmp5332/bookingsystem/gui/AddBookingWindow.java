@@ -176,7 +176,7 @@ public class AddBookingWindow extends JFrame implements ActionListener {
             }
 
             // Check if the flight's number of seats is full
-            if (flight.getPassengers().size() >= flight.getNumberOfSeats()) {
+            if (flight.isFullyBooked()) {
                 JOptionPane.showMessageDialog(this, "Sorry, the flight is already at full capacity. Booking cannot be made.", "Error", JOptionPane.WARNING_MESSAGE);
                 return;
             }
@@ -1,10 +1,15 @@
 package bcu.cmp5332.bookingsystem.gui;
 
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * The DeleteCustomerWindow class represents a graphical user interface window for deleting a customer
@@ -85,7 +90,25 @@ public class DeleteCustomerWindow extends JFrame {
      */
     private void deleteCustomer(int customerId) {
         try {
-            fbs.deleteCustomer(customerId);
+            long lsn;
+            synchronized (fbs) {
+                Customer customer = fbs.getCustomerByID(customerId);
+                List<Booking> bookings = fbs.getBookingsByCustomer(customer);
+                fbs.deleteCustomer(customerId);
+                try {
+                    lsn = FlightBookingSystemData.getLog().logCustomerDeleted(customerId);
+                } catch (IOException ex) {
+                    // Add the customer back, so a checkpoint cannot store a change reported as failed
+                    fbs.restoreCustomer(customer, bookings);
+                    throw new FlightBookingSystemException("Error recording deletion: " + ex.getMessage());
+                }
+            }
+            try {
+                FlightBookingSystemData.getLog().awaitDurable(lsn);
+            } catch (IOException ex) {
+                throw new FlightBookingSystemException("The customer was deleted, but the log could not be forced to disk: "
+                        + ex.getMessage());
+            }
             JOptionPane.showMessageDialog(this, "Customer deleted successfully.");
         } catch (FlightBookingSystemException ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
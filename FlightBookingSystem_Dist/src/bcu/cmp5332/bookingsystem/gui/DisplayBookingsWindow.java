@@ -1,13 +1,17 @@
 package bcu.cmp5332.bookingsystem.gui;
 
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.BookingStore;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,11 +24,15 @@ public class DisplayBookingsWindow extends JPanel {
 
     private static final long serialVersionUID = 1L;
     private Image backgroundImage;
+    private final FlightBookingSystem fbs;
 
     /**
      * Constructs a new DisplayBookingsWindow.
+     *
+     * @param fbs The FlightBookingSystem whose bookings are displayed.
      */
-    public DisplayBookingsWindow() {
+    public DisplayBookingsWindow(FlightBookingSystem fbs) {
+        this.fbs = fbs;
         try {
             backgroundImage = new ImageIcon("resources/images/background.jpg").getImage();
         } catch (Exception e) {
@@ -47,7 +55,7 @@ public class DisplayBookingsWindow extends JPanel {
         headingLabel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
 
         String[] columns = {"Booking ID", "Customer Name", "Flight Number", "Booking Date", "Price", "Status"};
-        Object[][] data = readBookingsFromFile("resources/data/bookings.txt");
+        Object[][] data = getBookingsData();
 
         JTable table = new JTable(data, columns);
         styleTable(table);
@@ -62,29 +70,21 @@ public class DisplayBookingsWindow extends JPanel {
     }
 
     /**
-     * Reads bookings from a file and converts them into a 2D array.
+     * Reads the bookings from the FlightBookingSystem in ID order and converts them into a 2D array.
+     * The booking store's cursor is read without creating a Booking per booking.
      *
-     * @param filename The name of the file containing bookings.
      * @return A 2D array representing bookings data.
      */
-    private Object[][] readBookingsFromFile(String filename) {
+    private Object[][] getBookingsData() {
         List<Object[]> bookingsData = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                int bookingId = Integer.parseInt(parts[0]);
-                String customerName = getCustomerName(Integer.parseInt(parts[1]));
-                String flightNumber = getFlightNumber(Integer.parseInt(parts[2]));
-                String bookingDate = parts[3];
-                double price = Double.parseDouble(parts[4]);
-                String status = parts.length > 5 && parts[5].equals("cancelled") ? "Cancelled" : "Active";
-
-                bookingsData.add(new Object[]{bookingId, customerName, flightNumber, bookingDate, price, status});
-            }
-        } catch (IOException | NumberFormatException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error reading bookings from file: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        BookingStore.Cursor bookings = fbs.getBookingStore().cursor();
+        while (bookings.next()) {
+            String customerName = getCustomerName(bookings.getCustomerId());
+            String flightNumber = getFlightNumber(bookings.getFlightId());
+            String bookingDate = LocalDate.ofEpochDay(bookings.getBookingEpochDay()).toString();
+            String status = bookings.isCancelled() ? "Cancelled" : "Active";
+
+            bookingsData.add(new Object[]{bookings.getId(), customerName, flightNumber, bookingDate, bookings.getPrice(), status});
         }
         return bookingsData.toArray(new Object[0][]);
     }
@@ -96,7 +96,12 @@ public class DisplayBookingsWindow extends JPanel {
      * @return The name of the customer.
      */
     private String getCustomerName(int customerId) {
-        return "Customer " + customerId;
+        try {
+            Customer customer = fbs.getCustomerByID(customerId);
+            return customer.getName();
+        } catch (FlightBookingSystemException e) {
+            return "Customer " + customerId;
+        }
     }
 
     /**
@@ -106,7 +111,12 @@ public class DisplayBookingsWindow extends JPanel {
      * @return The flight number.
      */
     private String getFlightNumber(int flightId) {
-        return "Flight " + flightId;
+        try {
+            Flight flight = fbs.getFlightByID(flightId);
+            return flight.getFlightNumber();
+        } catch (FlightBookingSystemException e) {
+            return "Flight " + flightId;
+        }
     }
 
     /**
@@ -227,7 +227,7 @@ public class MainWindow extends JFrame implements ActionListener {
             new UpdateBookingWindow(bookingDataManager, fbs);
         } else if (source == btnViewBookings) {
             mainPanel.removeAll();
-            DisplayBookingsWindow bookingsWindow = new DisplayBookingsWindow();
+            DisplayBookingsWindow bookingsWindow = new DisplayBookingsWindow(fbs);
             mainPanel.add(bookingsWindow, BorderLayout.CENTER);
             mainPanel.revalidate();
         } else if (source == btnViewCustomers) {
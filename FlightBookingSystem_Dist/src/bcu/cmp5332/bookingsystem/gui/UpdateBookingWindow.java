@@ -1,6 +1,7 @@
 package bcu.cmp5332.bookingsystem.gui;
 
 import bcu.cmp5332.bookingsystem.data.BookingDataManager;
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Flight;
@@ -124,8 +125,28 @@ public class UpdateBookingWindow extends JFrame implements ActionListener {
             if (booking != null && booking.getFlight().getId() == currentFlightId && !booking.isCancelled()) {
                 Flight newFlight = fbs.getFlightByID(newFlightId);
                 if (newFlight != null) {
-                    booking.setFlight(newFlight);
-                    bookingDataManager.storeData(fbs);
+                    long lsn;
+                    synchronized (fbs) {
+                        fbs.moveBooking(bookingId, newFlightId);
+                        try {
+                            lsn = FlightBookingSystemData.getLog().logBookingMoved(booking);
+                        } catch (IOException ex) {
+                            // Move the booking back, so a checkpoint cannot store a change reported as failed
+                            try {
+                                fbs.moveBooking(bookingId, currentFlightId);
+                            } catch (FlightBookingSystemException moveBack) {
+                                throw new FlightBookingSystemException("The booking was moved, but the move could not be recorded: "
+                                        + ex.getMessage());
+                            }
+                            throw new FlightBookingSystemException("Error recording the move: " + ex.getMessage());
+                        }
+                    }
+                    try {
+                        FlightBookingSystemData.getLog().awaitDurable(lsn);
+                    } catch (IOException ex) {
+                        throw new FlightBookingSystemException("The booking was moved, but the log could not be forced to disk: "
+                                + ex.getMessage());
+                    }
                     JOptionPane.showMessageDialog(this, "Booking updated successfully.");
                 } else {
                     JOptionPane.showMessageDialog(this, "New Flight ID not found.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -133,7 +154,7 @@ public class UpdateBookingWindow extends JFrame implements ActionListener {
             } else {
                 JOptionPane.showMessageDialog(this, "Booking not found, is cancelled, or current flight ID is incorrect.", "Error", JOptionPane.ERROR_MESSAGE);
             }
-        } catch (NumberFormatException | IOException ex) {
+        } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Please enter valid booking ID, current flight ID, and new flight ID.", "Error", JOptionPane.ERROR_MESSAGE);
         } catch (FlightBookingSystemException ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
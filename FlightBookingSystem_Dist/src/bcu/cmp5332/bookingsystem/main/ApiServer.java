@@ -0,0 +1,507 @@
+package bcu.cmp5332.bookingsystem.main;
+
+import bcu.cmp5332.bookingsystem.data.WriteAheadLog;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.IntObjectMap;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ApiServer class serves the flights, customers and bookings of a FlightBookingSystem instance as JSON
+ * over HTTP, using the HTTP server built into the JDK.
+ *
+ * <pre>
+ * GET    /api/flights[?from=ID&amp;limit=N]     a page of flights in ID order
+ * GET    /api/flights/ID                     a flight, with its seats left and today's price
+ * GET    /api/customers[?from=ID&amp;limit=N]   a page of customers in ID order
+ * GET    /api/customers/ID                   a customer, with their bookings
+ * GET    /api/bookings/ID                    a booking
+ * POST   /api/bookings                       books {"customerId": ID, "flightId": ID}
+ * DELETE /api/bookings/ID                    cancels a booking
+ * </pre>
+ *
+ * Requests are handled on a fixed pool of threads against the shared system, whose lookups and bookings
+ * are thread-safe. As with the console commands, a booking or cancellation changes the system and records
+ * the change in the write-ahead log while holding the system's monitor, and waits for its record to be forced
+ * to disk only after releasing it, so concurrent bookings share one force through the log's group commit
+ * instead of taking turns. A response is sent once its change is on disk. The server leaves the log's
+ * settings alone, so other writers in the same process keep their durability.
+ *
+ * Errors are returned as {@code {"error": message}} with status 400 for a bad request, 404 for an unknown
+ * ID or path, 405 for an unsupported method and 409 for a booking the system refuses.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class ApiServer {
+
+    /** The number of rows in a page when the request does not give a limit. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /** The largest number of rows a request can ask for in a page. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_BODY_SIZE = 4096;
+
+    private final FlightBookingSystem fbs;
+    private final WriteAheadLog log;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Constructs an ApiServer bound to the specified address. The server does not accept requests until
+     * it is started.
+     *
+     * @param fbs The FlightBookingSystem instance to serve.
+     * @param log The write-ahead log that bookings and cancellations are recorded in.
+     * @param address The address to listen on; port 0 picks a free port.
+     * @param threads The number of threads handling requests.
+     * @throws IOException If the server cannot be bound to the address.
+     */
+    public ApiServer(FlightBookingSystem fbs, WriteAheadLog log, InetSocketAddress address, int threads) throws IOException {
+        this.fbs = fbs;
+        this.log = log;
+        this.server = HttpServer.create(address, 1024);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "api-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/flights", exchange -> handle(exchange, this::flights));
+        server.createContext("/api/customers", exchange -> handle(exchange, this::customers));
+        server.createContext("/api/bookings", exchange -> handle(exchange, this::bookings));
+        server.createContext("/", exchange -> handle(exchange, (request, json) -> {
+            throw new HttpError(404, "Not found.");
+        }));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for requests in progress, and stops the threads.
+     *
+     * @throws IOException If the records logged by the last requests cannot be forced to disk.
+     */
+    public void stop() throws IOException {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.countDown();
+        }
+        log.sync();
+    }
+
+    /**
+     * Waits until the server is stopped.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private int flights(Request request, StringBuilder json) throws HttpError, FlightBookingSystemException {
+        request.allow("GET");
+        if (request.id == null) {
+            IntObjectMap.Cursor<Flight> flights = fbs.flightCursor(request.intParam("from", Integer.MIN_VALUE));
+            int limit = request.limit();
+            json.append("{\"flights\":[");
+            int count = 0;
+            while (flights.next()) {
+                if (count == limit) {
+                    json.append("],\"next\":").append(flights.getKey()).append('}');
+                    return 200;
+                }
+                appendFlight(json.append(count++ > 0 ? "," : ""), flights.getValue());
+            }
+            json.append("],\"next\":null}");
+            return 200;
+        }
+        Flight flight = flight(request.id);
+        LocalDate today = LocalDate.now();
+        appendFlight(json, flight);
+        json.setLength(json.length() - 1);
+        json.append(",\"seatsLeft\":").append(flight.getSeatsLeft());
+        json.append(",\"price\":");
+        if (flight.hasNotDeparted(today)) {
+            json.append(flight.calculatePrice(today));
+        } else {
+            json.append("null");
+        }
+        json.append('}');
+        return 200;
+    }
+
+    private int customers(Request request, StringBuilder json) throws HttpError {
+        request.allow("GET");
+        if (request.id == null) {
+            IntObjectMap.Cursor<Customer> customers = fbs.customerCursor(request.intParam("from", Integer.MIN_VALUE));
+            int limit = request.limit();
+            json.append("{\"customers\":[");
+            int count = 0;
+            while (customers.next()) {
+                if (count == limit) {
+                    json.append("],\"next\":").append(customers.getKey()).append('}');
+                    return 200;
+                }
+                appendCustomer(json.append(count++ > 0 ? "," : ""), customers.getValue());
+            }
+            json.append("],\"next\":null}");
+            return 200;
+        }
+        Customer customer = customer(request.id);
+        appendCustomer(json, customer);
+        json.setLength(json.length() - 1);
+        json.append(",\"bookings\":[");
+        int count = 0;
+        for (Booking booking : fbs.getBookingsByCustomer(customer)) {
+            appendBooking(json.append(count++ > 0 ? "," : ""), booking);
+        }
+        json.append("]}");
+        return 200;
+    }
+
+    private int bookings(Request request, StringBuilder json) throws HttpError, IOException {
+        if (request.id == null) {
+            request.allow("POST");
+            Map<String, String> body = request.jsonBody();
+            Customer customer = customer(request.intField(body, "customerId"));
+            Flight flight = flight(request.intField(body, "flightId"));
+            LocalDate today = LocalDate.now();
+            Booking booking;
+            long lsn;
+            try {
+                if (!flight.hasNotDeparted(today)) {
+                    throw new HttpError(409, "Cannot book a flight that has already departed.");
+                }
+                int price = flight.calculatePrice(today);
+                // Change the system and record the change together, so a checkpoint sees both or neither
+                synchronized (fbs) {
+                    booking = fbs.bookFlight(customer, flight, today, price);
+                    try {
+                        lsn = log.logBookingAdded(booking);
+                    } catch (IOException ex) {
+                        // Undo the booking, so a checkpoint cannot store a change reported as failed
+                        fbs.removeBooking(booking.getId());
+                        throw new HttpError(500, "Error recording booking: " + ex.getMessage());
+                    }
+                }
+            } catch (FlightBookingSystemException ex) {
+                throw new HttpError(409, ex.getMessage());
+            }
+            awaitDurable(lsn, "Booking #" + booking.getId() + " was made");
+            appendBooking(json, booking);
+            return 201;
+        }
+        request.allow("GET", "DELETE");
+        Booking booking;
+        try {
+            booking = fbs.getBookingByID(request.id);
+        } catch (FlightBookingSystemException ex) {
+            throw new HttpError(404, ex.getMessage());
+        }
+        if (request.method.equals("DELETE")) {
+            long lsn;
+            synchronized (fbs) {
+                if (booking.isCancelled()) {
+                    throw new HttpError(409, "The booking is already cancelled.");
+                }
+                booking.cancelBooking();
+                try {
+                    lsn = log.logBookingCancelled(booking);
+                } catch (IOException ex) {
+                    // Undo the cancellation, so a checkpoint cannot store a change reported as failed
+                    try {
+                        fbs.restoreBooking(booking.getId());
+                    } catch (FlightBookingSystemException restore) {
+                        throw new HttpError(500, "Booking #" + booking.getId() + " was cancelled, but the"
+                                + " cancellation could not be recorded: " + ex.getMessage());
+                    }
+                    throw new HttpError(500, "Error recording cancellation: " + ex.getMessage());
+                }
+            }
+            awaitDurable(lsn, "Booking #" + booking.getId() + " was cancelled");
+        }
+        appendBooking(json, booking);
+        return 200;
+    }
+
+    /**
+     * Waits, outside the system's monitor, for the record of a change already made to be forced to disk.
+     * The change stays made if forcing fails, since its record may still reach the disk, so the error says
+     * that it was made.
+     */
+    private void awaitDurable(long lsn, String change) throws HttpError {
+        try {
+            log.awaitDurable(lsn);
+        } catch (IOException ex) {
+            throw new HttpError(500, change + ", but the log could not be forced to disk: " + ex.getMessage());
+        }
+    }
+
+    private Flight flight(int id) throws HttpError {
+        try {
+            return fbs.getFlightByID(id);
+        } catch (FlightBookingSystemException ex) {
+            throw new HttpError(404, ex.getMessage());
+        }
+    }
+
+    private Customer customer(int id) throws HttpError {
+        try {
+            return fbs.getCustomerByID(id);
+        } catch (FlightBookingSystemException ex) {
+            throw new HttpError(404, ex.getMessage());
+        }
+    }
+
+    private static void appendFlight(StringBuilder json, Flight flight) {
+        json.append("{\"id\":").append(flight.getId());
+        appendString(json.append(",\"flightNumber\":"), flight.getFlightNumber());
+        appendString(json.append(",\"origin\":"), flight.getOrigin());
+        appendString(json.append(",\"destination\":"), flight.getDestination());
+        json.append(",\"departureDate\":\"").append(flight.getDepartureDate()).append('"');
+        json.append(",\"seats\":").append(flight.getNumberOfSeats());
+        json.append(",\"basePrice\":").append(flight.getPrice()).append('}');
+    }
+
+    private static void appendCustomer(StringBuilder json, Customer customer) {
+        json.append("{\"id\":").append(customer.getId());
+        appendString(json.append(",\"name\":"), customer.getName());
+        appendString(json.append(",\"phone\":"), customer.getPhone());
+        appendString(json.append(",\"email\":"), customer.getEmail());
+        json.append('}');
+    }
+
+    private static void appendBooking(StringBuilder json, Booking booking) {
+        json.append("{\"id\":").append(booking.getId());
+        json.append(",\"customerId\":").append(booking.getCustomer().getId());
+        json.append(",\"flightId\":").append(booking.getFlight().getId());
+        json.append(",\"bookingDate\":\"").append(booking.getBookingDate()).append('"');
+        json.append(",\"price\":").append(booking.getPrice());
+        json.append(",\"cancelled\":").append(booking.isCancelled()).append('}');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Runs a handler for an exchange and sends its JSON response, or the error it raised.
+     */
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        int status;
+        try {
+            status = handler.handle(new Request(exchange), json);
+        } catch (HttpError ex) {
+            json.setLength(0);
+            appendString(json.append("{\"error\":"), ex.getMessage());
+            json.append('}');
+            status = ex.status;
+        } catch (RuntimeException | IOException | FlightBookingSystemException ex) {
+            json.setLength(0);
+            appendString(json.append("{\"error\":"), String.valueOf(ex.getMessage()));
+            json.append('}');
+            status = 500;
+        }
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Handles the requests under one path, writing the response body.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        int handle(Request request, StringBuilder json) throws HttpError, IOException, FlightBookingSystemException;
+    }
+
+    /**
+     * A failed request, answered with a status code and an error message.
+     */
+    private static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * The parts of a request the handlers use: the method, the ID after the path, and the query.
+     */
+    private static final class Request {
+        final HttpExchange exchange;
+        final String method;
+        final Integer id; // The ID after the handler's path, or null for the path itself
+        final String query;
+
+        Request(HttpExchange exchange) throws HttpError {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            this.query = exchange.getRequestURI().getRawQuery();
+            String path = exchange.getRequestURI().getPath();
+            String rest = path.substring(exchange.getHttpContext().getPath().length());
+            if (rest.isEmpty() || rest.equals("/")) {
+                id = null;
+            } else if (rest.charAt(0) == '/' && rest.indexOf('/', 1) < 0) {
+                id = parseInt(rest.substring(1), 404, "Not found.");
+            } else {
+                throw new HttpError(404, "Not found.");
+            }
+        }
+
+        void allow(String... methods) throws HttpError {
+            for (String allowed : methods) {
+                if (allowed.equals(method)) {
+                    return;
+                }
+            }
+            exchange.getResponseHeaders().set("Allow", String.join(", ", methods));
+            throw new HttpError(405, "Method " + method + " is not allowed here.");
+        }
+
+        int intParam(String name, int defaultValue) throws HttpError {
+            if (query == null) {
+                return defaultValue;
+            }
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                    try {
+                        String value = URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+                        return parseInt(value, 400, "The " + name + " parameter must be a whole number.");
+                    } catch (IllegalArgumentException | java.io.UnsupportedEncodingException ex) {
+                        throw new HttpError(400, "The " + name + " parameter must be a whole number.");
+                    }
+                }
+            }
+            return defaultValue;
+        }
+
+        int limit() throws HttpError {
+            int limit = intParam("limit", DEFAULT_PAGE_SIZE);
+            if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                throw new HttpError(400, "The limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
+            return limit;
+        }
+
+        /**
+         * Reads the body as a flat JSON object of numbers, strings, booleans and nulls.
+         */
+        Map<String, String> jsonBody() throws HttpError, IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            try (InputStream in = exchange.getRequestBody()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    bytes.write(buffer, 0, read);
+                    if (bytes.size() > MAX_BODY_SIZE) {
+                        throw new HttpError(400, "The request body is too large.");
+                    }
+                }
+            }
+            String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8).trim();
+            if (text.length() < 2 || text.charAt(0) != '{' || text.charAt(text.length() - 1) != '}') {
+                throw new HttpError(400, "The request body must be a JSON object.");
+            }
+            Map<String, String> fields = new HashMap<>();
+            String inner = text.substring(1, text.length() - 1).trim();
+            if (inner.isEmpty()) {
+                return fields;
+            }
+            for (String member : inner.split(",")) {
+                int colon = member.indexOf(':');
+                String name = colon > 0 ? member.substring(0, colon).trim() : "";
+                if (name.length() < 2 || name.charAt(0) != '"' || name.charAt(name.length() - 1) != '"') {
+                    throw new HttpError(400, "The request body must be a flat JSON object.");
+                }
+                String value = member.substring(colon + 1).trim();
+                if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+                    value = value.substring(1, value.length() - 1);
+                }
+                fields.put(name.substring(1, name.length() - 1), value);
+            }
+            return fields;
+        }
+
+        int intField(Map<String, String> body, String name) throws HttpError {
+            String value = body.get(name);
+            if (value == null) {
+                throw new HttpError(400, "The " + name + " field is required.");
+            }
+            return parseInt(value, 400, "The " + name + " field must be a whole number.");
+        }
+
+        private static int parseInt(String value, int status, String message) throws HttpError {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                throw new HttpError(status, message);
+            }
+        }
+    }
+}
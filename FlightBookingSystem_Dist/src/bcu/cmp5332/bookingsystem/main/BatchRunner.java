@@ -0,0 +1,142 @@
+package bcu.cmp5332.bookingsystem.main;
+
+import bcu.cmp5332.bookingsystem.commands.Command;
+import bcu.cmp5332.bookingsystem.data.WriteAheadLog;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * The BatchRunner class executes a script of commands without prompting, such as a day of operations
+ * replayed from a file or piped in on standard input.
+ *
+ * Each line holds one command with all of its details inline, as accepted by
+ * {@link CommandParser#parse(String, FlightBookingSystem, boolean)}. Blank lines and lines starting with
+ * {@code #} are skipped, and {@code exit} ends the script early. A command that fails is reported with its
+ * line number and the script carries on.
+ *
+ * While the script runs the write-ahead log does not force each change to disk. The changes are forced
+ * together after every group of commands and once more at the end, so a script of a million bookings
+ * costs a thousand forces instead of a million. A crash loses at most the last group.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class BatchRunner {
+
+    private final FlightBookingSystem fbs;
+    private final WriteAheadLog log;
+    private final int commitEvery;
+
+    private long lines;
+    private long executed;
+    private long failed;
+    private long syncs;
+    private long elapsedNanos;
+
+    /**
+     * Constructs a BatchRunner for the specified system and log.
+     *
+     * @param fbs The FlightBookingSystem instance to run the commands against.
+     * @param log The write-ahead log the commands record their changes in.
+     * @param commitEvery The number of commands after which the logged changes are forced to disk.
+     */
+    public BatchRunner(FlightBookingSystem fbs, WriteAheadLog log, int commitEvery) {
+        this.fbs = fbs;
+        this.log = log;
+        this.commitEvery = Math.max(1, commitEvery);
+    }
+
+    /**
+     * Executes every command in the script, reporting failed commands to the specified stream.
+     *
+     * @param script The script to read the commands from.
+     * @param errors The stream failed commands are reported to.
+     * @throws IOException If the script cannot be read or the log cannot be forced to disk.
+     */
+    public void run(BufferedReader script, PrintStream errors) throws IOException {
+        long start = System.nanoTime();
+        log.setDeferSync(true);
+        try {
+            long sinceSync = 0;
+            String line;
+            while ((line = script.readLine()) != null) {
+                lines++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.equals("exit")) {
+                    break;
+                }
+                try {
+                    Command command = CommandParser.parse(line, fbs, false);
+                    command.execute(fbs);
+                    executed++;
+                } catch (FlightBookingSystemException ex) {
+                    failed++;
+                    errors.println("Line " + lines + ": " + ex.getMessage());
+                }
+                if (++sinceSync == commitEvery) {
+                    log.sync();
+                    syncs++;
+                    sinceSync = 0;
+                }
+            }
+        } finally {
+            log.setDeferSync(false);
+            log.sync();
+            syncs++;
+            elapsedNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Gets the number of lines read from the script, including blank lines and comments.
+     *
+     * @return The number of lines read.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the number of commands that were executed successfully.
+     *
+     * @return The number of commands executed.
+     */
+    public long getExecuted() {
+        return executed;
+    }
+
+    /**
+     * Gets the number of commands that could not be parsed or failed.
+     *
+     * @return The number of commands failed.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of times the logged changes were forced to disk.
+     *
+     * @return The number of group commits.
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * Gets a one-line summary of the run and its throughput.
+     *
+     * @return The summary.
+     */
+    public String getSummary() {
+        long commands = executed + failed;
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%d command(s) in %.3f s: %d executed, %d failed, %.0f commands/s, %d log sync(s)",
+                commands, seconds, executed, failed, seconds > 0 ? commands / seconds : 0.0, syncs);
+    }
+}
@@ -0,0 +1,30 @@
+package bcu.cmp5332.bookingsystem.main;
+
+import bcu.cmp5332.bookingsystem.commands.Command;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.IOException;
+
+/**
+ * The CommandFactory interface creates the Command for one command name, from the arguments given on
+ * the line and, if allowed, from details prompted for on the console. Factories are registered with
+ * {@link CommandParser#register(String, CommandFactory)}.
+ * 
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+@FunctionalInterface
+public interface CommandFactory {
+
+    /**
+     * Creates the command for a parsed command line.
+     * 
+     * @param line The tokenized command line; argument 0 is the first word after the command name.
+     * @param fbs The FlightBookingSystem instance.
+     * @param prompt Whether details not given on the line may be prompted for on the console.
+     * @return The command, or null if the arguments do not fit the command.
+     * @throws IOException If an I/O error occurs while prompting.
+     * @throws FlightBookingSystemException If the command cannot be created.
+     */
+    Command create(CommandLine line, FlightBookingSystem fbs, boolean prompt)
+            throws IOException, FlightBookingSystemException;
+}
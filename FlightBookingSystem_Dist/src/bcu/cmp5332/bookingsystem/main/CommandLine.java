@@ -0,0 +1,160 @@
+package bcu.cmp5332.bookingsystem.main;
+
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The CommandLine class splits a command line into words without copying it. Each word is kept as its
+ * start and end offsets in the line, and numbers and dates are read straight from the line, so only the
+ * words used as text are copied out as strings.
+ * 
+ * Words are separated by whitespace. Text between double quotes is one word, so names and places with
+ * spaces can be given on the line. The first word is the command name and the rest are its arguments.
+ * 
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public final class CommandLine {
+
+    private final String line;
+    private int[] bounds = new int[16]; // Start and end offset of each word, in pairs
+    private int words;
+
+    private CommandLine(String line) {
+        this.line = line;
+    }
+
+    /**
+     * Splits a command line into words.
+     * 
+     * @param line The command line.
+     * @return The tokenized line.
+     * @throws FlightBookingSystemException If a quote is not closed.
+     */
+    public static CommandLine tokenize(String line) throws FlightBookingSystemException {
+        CommandLine tokens = new CommandLine(line);
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = line.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new FlightBookingSystemException("Invalid command: unclosed quote.");
+                }
+                tokens.add(i + 1, end);
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                tokens.add(start, i);
+            }
+        }
+        return tokens;
+    }
+
+    private void add(int start, int end) {
+        if (words * 2 == bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[words * 2] = start;
+        bounds[words * 2 + 1] = end;
+        words++;
+    }
+
+    /**
+     * Gets the command name, the first word of the line. The line itself is returned when it is only
+     * the name, so the common commands without arguments are looked up without a copy.
+     * 
+     * @return The command name, or an empty string if the line is blank.
+     */
+    public String getName() {
+        if (words == 0) {
+            return "";
+        }
+        if (bounds[0] == 0 && bounds[1] == line.length()) {
+            return line;
+        }
+        return line.substring(bounds[0], bounds[1]);
+    }
+
+    /**
+     * Gets the number of arguments after the command name.
+     * 
+     * @return The number of arguments.
+     */
+    public int size() {
+        return Math.max(0, words - 1);
+    }
+
+    /**
+     * Gets an argument as text.
+     * 
+     * @param index The index of the argument, from 0.
+     * @return The argument.
+     */
+    public String getString(int index) {
+        int word = checkIndex(index);
+        return line.substring(bounds[word * 2], bounds[word * 2 + 1]);
+    }
+
+    /**
+     * Gets an argument as a whole number, read directly from the line.
+     * 
+     * @param index The index of the argument, from 0.
+     * @return The number.
+     * @throws NumberFormatException If the argument is not a whole number that fits in an int.
+     */
+    public int getInt(int index) {
+        int word = checkIndex(index);
+        int start = bounds[word * 2];
+        int end = bounds[word * 2 + 1];
+        boolean negative = start < end && line.charAt(start) == '-';
+        int i = negative || (start < end && line.charAt(start) == '+') ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || (value = value * 10 + digit) > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+            }
+        }
+        if (negative) {
+            return (int) -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Gets an argument as a date in the YYYY-MM-DD format, read directly from the line.
+     * 
+     * @param index The index of the argument, from 0.
+     * @return The date.
+     * @throws java.time.format.DateTimeParseException If the argument is not a valid date.
+     */
+    public LocalDate getDate(int index) {
+        int word = checkIndex(index);
+        return LocalDate.parse(CharBuffer.wrap(line, bounds[word * 2], bounds[word * 2 + 1]));
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Argument " + index + " of " + size());
+        }
+        return index + 1;
+    }
+
+    @Override
+    public String toString() {
+        return line;
+    }
+}
@@ -8,16 +8,229 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The CommandParser class is responsible for parsing input commands and returning the corresponding Command object.
  * 
+ * Commands are looked up by name in a registry of {@link CommandFactory} instances, so finding the command
+ * for a line takes one hash lookup however many commands there are, and a new command is added by
+ * registering its factory rather than by changing the parser. The line is split once by {@link CommandLine}.
+ * 
  * @Author Subresh Thakulla / Bibek Shah
  */
 public class CommandParser {
 
+    private static final Map<String, CommandFactory> COMMANDS = new ConcurrentHashMap<>();
+
+    private static BufferedReader input; // The console input the prompts read from, opened on first use
+
+    static {
+        register("addflight", (line, fbs, prompt) -> {
+            if (line.size() == 6) {
+                return new AddFlight(line.getString(0), line.getString(1), line.getString(2), line.getDate(3),
+                        line.getInt(4), line.getInt(5));
+            } else if (line.size() > 0 || !prompt) {
+                return null;
+            }
+            BufferedReader reader = getInput();
+            System.out.print("Flight Number: ");
+            String flightNumber = reader.readLine();
+            System.out.print("Origin: ");
+            String origin = reader.readLine();
+            System.out.print("Destination: ");
+            String destination = reader.readLine();
+            System.out.print("Departure Date (\"YYYY-MM-DD\" format): ");
+            LocalDate departureDate = java.time.LocalDate.parse(reader.readLine());
+            System.out.print("Number of Seats: ");
+            int numberOfSeats = Integer.parseInt(reader.readLine());
+            System.out.print("Price: ");
+            int price = Integer.parseInt(reader.readLine());
+
+            return new AddFlight(flightNumber, origin, destination, departureDate, numberOfSeats, price);
+        });
+
+        register("addcustomer", (line, fbs, prompt) -> {
+            if (line.size() == 3) {
+                return new AddCustomer(line.getString(0), line.getString(1), line.getString(2));
+            } else if (line.size() > 0 || !prompt) {
+                return null;
+            }
+            BufferedReader reader = getInput();
+            System.out.print("Customer Name: ");
+            String name = reader.readLine();
+            System.out.print("Customer Phone: ");
+            String phone = reader.readLine();
+            System.out.print("Customer Email: ");
+            String email = reader.readLine();
+
+            return new AddCustomer(name, phone, email);
+        });
+
+        register("searchflights", (line, fbs, prompt) -> {
+            if (line.size() == 4) {
+                return new SearchFlights(line.getString(0), line.getString(1), line.getDate(2), line.getDate(3));
+            } else if (line.size() > 0 || !prompt) {
+                return null;
+            }
+            BufferedReader reader = getInput();
+            System.out.print("Origin: ");
+            String origin = reader.readLine();
+            System.out.print("Destination: ");
+            String destination = reader.readLine();
+            System.out.print("From Date (\"YYYY-MM-DD\" format): ");
+            LocalDate fromDate = LocalDate.parse(reader.readLine().trim());
+            System.out.print("To Date (\"YYYY-MM-DD\" format): ");
+            LocalDate toDate = LocalDate.parse(reader.readLine().trim());
+
+            return new SearchFlights(origin, destination, fromDate, toDate);
+        });
+
+        register("listflights", (line, fbs, prompt) -> {
+            if (line.size() == 0) {
+                return new ListFlights();
+            }
+            return line.size() == 2 ? new ListFlights(line.getInt(0), pageSize(line.getInt(1))) : null;
+        });
+
+        register("listcustomers", (line, fbs, prompt) -> {
+            if (line.size() == 0) {
+                return new ListCustomers();
+            }
+            return line.size() == 2 ? new ListCustomers(line.getInt(0), pageSize(line.getInt(1))) : null;
+        });
+
+        register("showflight", (line, fbs, prompt) -> line.size() == 1 ? new ShowFlight(line.getInt(0)) : null);
+
+        register("showcustomer", (line, fbs, prompt) -> line.size() == 1 ? new ShowCustomer(line.getInt(0)) : null);
+
+        register("addbooking", (line, fbs, prompt) -> {
+            if (line.size() == 2) {
+                // The booking takes the seat only if one is free, so the flight is not checked here
+                return new AddBooking(line.getInt(0), line.getInt(1), LocalDate.now());
+            } else if (line.size() > 0 || !prompt) {
+                return null;
+            }
+            BufferedReader reader = getInput();
+            System.out.print("Customer ID: ");
+            int customerId = Integer.parseInt(reader.readLine());
+            System.out.print("Flight ID: ");
+            int flightId = Integer.parseInt(reader.readLine());
+
+            // Check if the flight has available seats
+            Flight flight = fbs.getFlightByID(flightId);
+            if (flight != null && !flight.isFullyBooked()) {
+                return new AddBooking(customerId, flightId, LocalDate.now());  // Corrected LocalDate usage
+            } else {
+                throw new FlightBookingSystemException("The flight is full. Booking cannot be made.");
+            }
+        });
+
+        register("addbookings", (line, fbs, prompt) -> {
+            if (line.size() < 2) {
+                return null;
+            }
+            int[] customerIds = new int[line.size() - 1];
+            for (int i = 0; i < customerIds.length; i++) {
+                customerIds[i] = line.getInt(i + 1);
+            }
+            return new BatchAddBooking(line.getInt(0), customerIds);
+        });
+
+        register("editbooking", (line, fbs, prompt) -> {
+            if (line.size() == 2) {
+                return new EditBooking(line.getInt(0), line.getInt(1));
+            } else if (line.size() > 0 || !prompt) {
+                return null;
+            }
+            BufferedReader reader = getInput();
+            System.out.print("Enter Booking ID: ");
+            int bookingId = Integer.parseInt(reader.readLine().trim());
+            System.out.print("Enter New Flight ID: ");
+            int newFlightId = Integer.parseInt(reader.readLine().trim());
+
+            return new EditBooking(bookingId, newFlightId);
+        });
+
+        register("cancelbooking", (line, fbs, prompt) -> {
+            if (line.size() == 2) {
+                return new CancelBooking(line.getInt(0), line.getInt(1));
+            } else if (line.size() > 0 || !prompt) {
+                return null;
+            }
+            BufferedReader reader = getInput();
+            System.out.print("Customer ID: ");
+            int customerId = Integer.parseInt(reader.readLine());
+            System.out.print("Flight ID: ");
+            int flightId = Integer.parseInt(reader.readLine());
+
+            return new CancelBooking(customerId, flightId);
+        });
+
+        register("loadgui", (line, fbs, prompt) -> line.size() == 0 ? new LoadGUI(fbs) : null);
+
+        register("help", (line, fbs, prompt) -> line.size() == 0 ? new Help() : null);
+    }
+
     /**
-     * Parses the input command string and returns the corresponding Command object.
+     * Registers the factory that creates a command, replacing any factory registered under the same name.
+     * 
+     * @param name The command name, the first word of its command lines.
+     * @param factory The factory that creates the command from a command line.
+     */
+    public static void register(String name, CommandFactory factory) {
+        COMMANDS.put(name, factory);
+    }
+
+    /**
+     * Removes the factory registered for a command name.
+     * 
+     * @param name The command name.
+     * @return The factory that was registered, or null if no command had that name.
+     */
+    public static CommandFactory unregister(String name) {
+        return COMMANDS.remove(name);
+    }
+
+    /**
+     * Gets the factory registered for a command name.
+     * 
+     * @param name The command name.
+     * @return The factory, or null if no command has that name.
+     */
+    public static CommandFactory getCommandFactory(String name) {
+        return COMMANDS.get(name);
+    }
+
+    /**
+     * Gets the registered commands.
+     * 
+     * @return The factories by command name, in alphabetical order.
+     */
+    public static Map<String, CommandFactory> getCommands() {
+        return Collections.unmodifiableMap(new TreeMap<>(COMMANDS));
+    }
+
+    /**
+     * Gets the reader for console input, shared by the command loop and every prompt, so lines buffered
+     * by one are not lost to another.
+     * 
+     * @return The reader for {@code System.in}.
+     */
+    public static synchronized BufferedReader getInput() {
+        if (input == null) {
+            input = new BufferedReader(new InputStreamReader(System.in));
+        }
+        return input;
+    }
+
+    /**
+     * Parses the input command string and returns the corresponding Command object, prompting for
+     * any details not given on the line.
      * 
      * @param line The input command string.
      * @param fbs The FlightBookingSystem instance.
@@ -26,95 +239,53 @@ public class CommandParser {
      * @throws FlightBookingSystemException If an error related to the Flight Booking System occurs.
      */
     public static Command parse(String line, FlightBookingSystem fbs) throws IOException, FlightBookingSystemException {
+        return parse(line, fbs, true);
+    }
+
+    /**
+     * Parses the input command string and returns the corresponding Command object. The details of a
+     * command can be given on the line in the order they are prompted for, with double quotes around
+     * text that contains spaces, such as {@code addcustomer "Ann Lee" 0121000000 ann@example.com}.
+     * 
+     * @param line The input command string.
+     * @param fbs The FlightBookingSystem instance.
+     * @param prompt Whether to prompt on the console for details not given on the line.
+     * @return The corresponding Command object.
+     * @throws IOException If an I/O error occurs.
+     * @throws FlightBookingSystemException If the command is invalid or an error related to the Flight
+     *         Booking System occurs.
+     */
+    public static Command parse(String line, FlightBookingSystem fbs, boolean prompt)
+            throws IOException, FlightBookingSystemException {
         try {
-            String[] parts = line.split(" ", 3);
-            String cmd = parts[0];
-
-            if (cmd.equals("addflight")) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-                System.out.print("Flight Number: ");
-                String flightNumber = reader.readLine();
-                System.out.print("Origin: ");
-                String origin = reader.readLine();
-                System.out.print("Destination: ");
-                String destination = reader.readLine();
-                System.out.print("Departure Date (\"YYYY-MM-DD\" format): ");
-                LocalDate departureDate = java.time.LocalDate.parse(reader.readLine());
-                System.out.print("Number of Seats: ");
-                int numberOfSeats = Integer.parseInt(reader.readLine());
-                System.out.print("Price: ");
-                int price = Integer.parseInt(reader.readLine());
-
-                return new AddFlight(flightNumber, origin, destination, departureDate, numberOfSeats, price);
-
-            } else if (cmd.equals("addcustomer")) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-                System.out.print("Customer Name: ");
-                String name = reader.readLine();
-                System.out.print("Customer Phone: ");
-                String phone = reader.readLine();
-                System.out.print("Customer Email: ");
-                String email = reader.readLine();
-
-                return new AddCustomer(name, phone, email);
-
-            } else if (cmd.equals("loadgui")) {
-                return new LoadGUI(fbs);  // Updated to pass FlightBookingSystem instance
-            } else if (parts.length == 1) {
-                if (line.equals("listflights")) {
-                    return new ListFlights();
-                } else if (line.equals("listcustomers")) {
-                    return new ListCustomers();
-                } else if (line.equals("help")) {
-                    return new Help();
-                }
-            } else if (parts.length == 2) {
-                int id = Integer.parseInt(parts[1]);
-
-                if (cmd.equals("showflight")) {
-                    return new ShowFlight(id);
-                } else if (cmd.equals("showcustomer")) {
-                    return new ShowCustomer(id);
-                }
-
-            } else if (cmd.equals("addbooking")) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-                System.out.print("Customer ID: ");
-                int customerId = Integer.parseInt(reader.readLine());
-                System.out.print("Flight ID: ");
-                int flightId = Integer.parseInt(reader.readLine());
-
-                // Check if the flight has available seats
-                Flight flight = fbs.getFlightByID(flightId);
-                if (flight != null && flight.getPassengers().size() < flight.getNumberOfSeats()) {
-                    return new AddBooking(customerId, flightId, LocalDate.now());  // Corrected LocalDate usage
-                } else {
-                    System.out.println("The flight is full. Booking cannot be made.");
-                    return null;
-                }
-            } else if (cmd.equals("editbooking")) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-                System.out.print("Enter Booking ID: ");
-                int bookingId = Integer.parseInt(reader.readLine().trim());
-                System.out.print("Enter New Flight ID: ");
-                int newFlightId = Integer.parseInt(reader.readLine().trim());
-
-                return new EditBooking(bookingId, newFlightId);
-            } else if (cmd.equals("cancelbooking")) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-                System.out.print("Customer ID: ");
-                int customerId = Integer.parseInt(reader.readLine());
-                System.out.print("Flight ID: ");
-                int flightId = Integer.parseInt(reader.readLine());
-
-                return new CancelBooking(customerId, flightId);
+            CommandLine tokens = CommandLine.tokenize(line);
+            CommandFactory factory = getCommandFactory(tokens.getName());
+            Command command = factory != null ? factory.create(tokens, fbs, prompt) : null;
+            if (command != null) {
+                return command;
             }
         } catch (IOException ex) {
             System.out.println("Error reading input: " + ex.getMessage());
         } catch (NumberFormatException ex) {
             System.out.println("Invalid input. Please enter a valid number.");
+        } catch (DateTimeParseException ex) {
+            System.out.println("Invalid date. Please use the YYYY-MM-DD format.");
         }
 
         throw new FlightBookingSystemException("Invalid command.");
     }
+
+    /**
+     * Checks the number of rows asked for in a page of a listing.
+     * 
+     * @param limit The page size given on the line.
+     * @return The page size.
+     * @throws FlightBookingSystemException If the page size is not positive.
+     */
+    private static int pageSize(int limit) throws FlightBookingSystemException {
+        if (limit <= 0) {
+            throw new FlightBookingSystemException("The page size must be a positive number.");
+        }
+        return limit;
+    }
 }
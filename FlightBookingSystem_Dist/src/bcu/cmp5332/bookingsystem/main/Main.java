@@ -5,11 +5,16 @@ import bcu.cmp5332.bookingsystem.commands.Command;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * The Main class is the entry point for the Flight Booking System application.
  * It loads the flight booking system data, accepts user input, parses commands,
- * and executes them in a loop until the user exits the application.
+ * and executes them in a loop until the user exits the application, or executes a script of
+ * commands in batch mode, or serves the system over HTTP.
  * 
  * @Author Subresh Thakulla / Bibek Shah
  */
@@ -18,16 +23,53 @@ public class Main {
     /**
      * The main method to start the Flight Booking System application.
      * 
-     * @param args Command line arguments (not used).
+     * Run with {@code --batch <file>} to execute a script of commands instead of prompting, or with
+     * {@code --batch -} to read the script from standard input. The number of commands between forces
+     * of the write-ahead log is set with the {@code fbs.batch.commitEvery} system property.
+     * 
+     * Run with {@code --serve <port>} to serve the system as JSON over HTTP with {@link ApiServer} until
+     * {@code exit} is entered or the process is stopped. The number of request threads is set with the
+     * {@code fbs.api.threads} system property.
+     * 
+     * @param args Command line arguments: nothing, {@code --batch} followed by a file name or {@code -},
+     *        or {@code --serve} followed by a port.
      * @throws IOException If an I/O error occurs while loading or storing data.
      * @throws FlightBookingSystemException If an error occurs within the Flight Booking System.
      */
     public static void main(String[] args) throws IOException, FlightBookingSystemException {
+        if (args.length > 0 && !(args.length == 2 && (args[0].equals("--batch") || args[0].equals("--serve")))) {
+            System.err.println("Usage: Main [--batch <file> | --batch - | --serve <port>]");
+            System.exit(2);
+        }
+
         // Load the FlightBookingSystem data
         FlightBookingSystem fbs = FlightBookingSystemData.load();
 
-        // Create a BufferedReader to read input from the console
-        BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+        if (args.length == 2 && args[0].equals("--serve")) {
+            // The server stores the data itself, once, as the process shuts down
+            runServer(fbs, Integer.parseInt(args[1]));
+            return;
+        } else if (args.length == 2) {
+            runBatch(fbs, args[1]);
+        } else {
+            runInteractive(fbs);
+        }
+        
+        // Store the FlightBookingSystem data before exiting
+        FlightBookingSystemData.store(fbs);
+        // Exit the application
+        System.exit(0);
+    }
+
+    /**
+     * Accepts commands typed at the console and executes them until the user exits.
+     * 
+     * @param fbs The loaded FlightBookingSystem instance.
+     * @throws IOException If an I/O error occurs while reading input.
+     */
+    private static void runInteractive(FlightBookingSystem fbs) throws IOException {
+        // The same reader is used by the commands that prompt for details
+        BufferedReader br = CommandParser.getInput();
 
         // Display welcome message and instructions
         System.out.println("Flight Booking System");
@@ -37,8 +79,8 @@ public class Main {
         while (true) {
             System.out.print("> ");
             String line = br.readLine();
-            // Exit the loop if the user enters 'exit'
-            if (line.equals("exit")) {
+            // Exit the loop if the user enters 'exit' or the input ends
+            if (line == null || line.equals("exit")) {
                 break;
             }
             try {
@@ -50,10 +92,73 @@ public class Main {
                 System.out.println(ex.getMessage());
             }
         }
-        
-        // Store the FlightBookingSystem data before exiting
-        FlightBookingSystemData.store(fbs);
-        // Exit the application
-        System.exit(0);
+    }
+
+    /**
+     * Executes a script of commands from a file or standard input. The commands' output is buffered and
+     * written in blocks to standard output, while failed commands and the throughput of the run are
+     * reported on standard error, so redirecting the output keeps only what the commands printed.
+     * 
+     * @param fbs The loaded FlightBookingSystem instance.
+     * @param file The script file, or {@code -} for standard input.
+     * @throws IOException If the script cannot be read or the log cannot be forced to disk.
+     */
+    private static void runBatch(FlightBookingSystem fbs, String file) throws IOException {
+        PrintStream console = System.out;
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        System.setOut(out);
+        BatchRunner runner = new BatchRunner(fbs, FlightBookingSystemData.getLog(),
+                Integer.getInteger("fbs.batch.commitEvery", 1000));
+        try (BufferedReader script = file.equals("-") ? CommandParser.getInput()
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            runner.run(script, System.err);
+        } finally {
+            out.flush();
+            System.setOut(console);
+        }
+        System.err.println(runner.getSummary());
+    }
+
+    /**
+     * Serves the system over HTTP until {@code exit} is entered or, if the input ends first, until the process
+     * is stopped. Either way the process exits through a shutdown hook, which is the only place the server is
+     * stopped and the data stored, so the data is stored exactly once.
+     * 
+     * @param fbs The loaded FlightBookingSystem instance.
+     * @param port The port to listen on.
+     * @throws IOException If the server cannot be started or the input cannot be read.
+     */
+    private static void runServer(FlightBookingSystem fbs, int port) throws IOException {
+        ApiServer server = new ApiServer(fbs, FlightBookingSystemData.getLog(), new InetSocketAddress(port),
+                Integer.getInteger("fbs.api.threads", 64));
+        Thread shutdown = new Thread(() -> {
+            try {
+                server.stop();
+            } catch (IOException ex) {
+                System.err.println("Error stopping the server: " + ex.getMessage());
+            }
+            try {
+                FlightBookingSystemData.store(fbs);
+            } catch (IOException ex) {
+                System.err.println("Error storing data: " + ex.getMessage());
+            }
+        });
+        server.start();
+        Runtime.getRuntime().addShutdownHook(shutdown);
+        System.out.println("Serving the booking API at http://localhost:" + server.getPort() + "/api/");
+        System.out.println("Enter 'exit' to stop.");
+
+        BufferedReader br = CommandParser.getInput();
+        String line;
+        while ((line = br.readLine()) != null) {
+            if (line.trim().equals("exit")) {
+                System.exit(0); // Runs the shutdown hook
+            }
+        }
+        try {
+            server.awaitStop();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -6,23 +6,23 @@ import java.time.LocalDate;
  * The Booking class represents a booking made by a customer for a flight.
  * It includes details such as the booking ID, customer, flight, price, booking date,
  * and cancellation status, along with any applicable fees for cancellation or rebooking.
- * 
+ *
+ * A new Booking holds its own details until it is added to a FlightBookingSystem. From then on it is a view
+ * of the booking's slot in the system's {@link BookingStore}: every getter and setter reads or writes the
+ * store, and the customer and flight are looked up by ID. The system hands out a new view for each lookup,
+ * so two Bookings are the same booking when they are {@link #equals(Object) equal}, not only when identical.
+ *
  * @Author Subresh Thakulla / Bibek Shah
  */
 public class Booking {
 
-    private int id; // The unique identifier for the booking
-    private Customer customer; // The customer who made the booking
-    private Flight flight; // The flight booked by the customer
-    private double price; // The price of the booking
-    private LocalDate bookingDate; // The date when the booking was made
-    private boolean cancelled; // Flag indicating whether the booking is cancelled
-    private double cancellationFee; // The fee charged upon cancellation of the booking
-    private double rebookFee; // The fee charged upon rebooking the flight
+    private final int id; // The unique identifier for the booking
+    private volatile BookingStore store; // The store holding the booking, or null until it is added to a system
+    private Details details; // The details of a booking not yet in a store
 
     /**
      * Constructs a new Booking object with the specified details.
-     * 
+     *
      * @param id The unique identifier for the booking.
      * @param customer The customer who made the booking.
      * @param flight The flight booked by the customer.
@@ -31,16 +31,42 @@ public class Booking {
      */
     public Booking(int id, Customer customer, Flight flight, LocalDate bookingDate, double price) {
         this.id = id;
-        this.customer = customer;
-        this.flight = flight;
-        this.bookingDate = bookingDate;
-        this.price = price;
-        this.cancelled = false;
+        this.details = new Details(customer, flight, bookingDate, price);
+    }
+
+    /**
+     * Constructs a view of a booking in a store.
+     *
+     * @param store The store holding the booking.
+     * @param id The booking ID.
+     */
+    Booking(BookingStore store, int id) {
+        this.id = id;
+        this.store = store;
+    }
+
+    /**
+     * Gets the store holding the booking.
+     *
+     * @return The store, or null if the booking has not been added to a system.
+     */
+    BookingStore getStore() {
+        return store;
+    }
+
+    /**
+     * Turns a booking that has just been copied into a store into a view of it.
+     *
+     * @param store The store now holding the booking.
+     */
+    synchronized void attach(BookingStore store) {
+        this.store = store;
+        this.details = null;
     }
 
     /**
      * Gets the unique identifier for the booking.
-     * 
+     *
      * @return The booking ID.
      */
     public int getId() {
@@ -49,74 +75,109 @@ public class Booking {
 
     /**
      * Gets the customer who made the booking.
-     * 
-     * @return The customer.
+     *
+     * @return The customer, or null if the customer is no longer in the system.
      */
     public Customer getCustomer() {
-        return customer;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.getSystem().findCustomer(store.getCustomerId(id));
+        }
+        return detached().customer;
     }
 
     /**
      * Sets the customer who made the booking.
-     * 
+     *
      * @param customer The customer to set.
      */
     public void setCustomer(Customer customer) {
-        this.customer = customer;
+        BookingStore store = this.store;
+        if (store != null) {
+            store.setCustomerId(id, customer.getId());
+        } else {
+            detached().customer = customer;
+        }
     }
 
     /**
      * Gets the flight booked by the customer.
-     * 
-     * @return The flight.
+     *
+     * @return The flight, or null if the flight is no longer in the system.
      */
     public Flight getFlight() {
-        return flight;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.getSystem().findFlight(store.getFlightId(id));
+        }
+        return detached().flight;
     }
 
     /**
      * Sets the flight booked by the customer.
-     * 
+     *
      * @param flight The flight to set.
      */
     public void setFlight(Flight flight) {
-        this.flight = flight;
+        BookingStore store = this.store;
+        if (store != null) {
+            store.setFlightId(id, flight.getId());
+        } else {
+            detached().flight = flight;
+        }
     }
 
     /**
      * Gets the date when the booking was made.
-     * 
+     *
      * @return The booking date.
      */
     public LocalDate getBookingDate() {
-        return bookingDate;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.getBookingDate(id);
+        }
+        return detached().bookingDate;
     }
 
     /**
      * Sets the date when the booking was made.
-     * 
+     *
      * @param bookingDate The booking date to set.
      */
     public void setBookingDate(LocalDate bookingDate) {
-        this.bookingDate = bookingDate;
+        BookingStore store = this.store;
+        if (store != null) {
+            store.setBookingDate(id, bookingDate);
+        } else {
+            detached().bookingDate = bookingDate;
+        }
     }
 
     /**
      * Gets the price of the booking.
-     * 
+     *
      * @return The price.
      */
     public double getPrice() {
-        return price;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.getPrice(id);
+        }
+        return detached().price;
     }
 
     /**
      * Checks if the booking is cancelled.
-     * 
+     *
      * @return True if the booking is cancelled, otherwise false.
      */
     public boolean isCancelled() {
-        return cancelled;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.isCancelled(id);
+        }
+        return detached().cancelled;
     }
 
     /**
@@ -124,63 +185,148 @@ public class Booking {
      * Sets the cancellation fee to 10% of the booking price.
      */
     public void cancelBooking() {
-        if (!cancelled) { // Check if the booking is not already cancelled
-            this.cancelled = true;
+        BookingStore store = this.store;
+        boolean cancelled;
+        if (store != null) {
+            cancelled = store.cancel(id);
+        } else {
+            synchronized (this) {
+                Details details = detached();
+                cancelled = !details.cancelled; // Check if the booking is not already cancelled
+                if (cancelled) {
+                    details.cancelled = true;
+                    // Set cancellation fee only if the booking is cancelled
+                    details.cancellationFee = details.price * 0.1;
+                }
+            }
+        }
+        Flight flight = getFlight();
+        Customer customer = getCustomer();
+        if (cancelled && flight != null && customer != null) {
             flight.removePassenger(customer);
-            // Set cancellation fee only if the booking is cancelled
-            this.cancellationFee = price * 0.1;
         }
     }
 
     /**
      * Gets a detailed string representation of the booking.
-     * 
+     *
      * @return The booking details.
      */
     public String getDetails() {
         StringBuilder details = new StringBuilder();
         details.append("Booking ID: ").append(id).append("\n");
-        details.append("Customer: ").append(customer.getName()).append("\n");
-        details.append("Flight: ").append(flight.getFlightNumber()).append("\n");
-        details.append("Booking Date: ").append(bookingDate.toString()).append("\n");
-        details.append("Price: ").append(price).append("\n");
-        details.append("Status: ").append(cancelled ? "Cancelled" : "Active").append("\n");
+        details.append("Customer: ").append(getCustomer().getName()).append("\n");
+        details.append("Flight: ").append(getFlight().getFlightNumber()).append("\n");
+        details.append("Booking Date: ").append(getBookingDate().toString()).append("\n");
+        details.append("Price: ").append(getPrice()).append("\n");
+        details.append("Status: ").append(isCancelled() ? "Cancelled" : "Active").append("\n");
         return details.toString();
     }
 
     /**
      * Gets the cancellation fee for the booking.
-     * 
+     *
      * @return The cancellation fee.
      */
     public double getCancellationFee() {
-        return cancellationFee;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.getCancellationFee(id);
+        }
+        return detached().cancellationFee;
     }
 
     /**
      * Sets the cancellation fee for the booking.
-     * 
+     *
      * @param cancellationFee The cancellation fee to set.
      */
     public void setCancellationFee(double cancellationFee) {
-        this.cancellationFee = cancellationFee;
+        BookingStore store = this.store;
+        if (store != null) {
+            store.setCancellationFee(id, cancellationFee);
+        } else {
+            detached().cancellationFee = cancellationFee;
+        }
     }
 
     /**
      * Gets the rebook fee for the booking.
-     * 
+     *
      * @return The rebook fee.
      */
     public double getRebookFee() {
-        return rebookFee;
+        BookingStore store = this.store;
+        if (store != null) {
+            return store.getRebookFee(id);
+        }
+        return detached().rebookFee;
     }
 
     /**
      * Sets the rebook fee for the booking.
-     * 
+     *
      * @param rebookFee The rebook fee to set.
      */
     public void setRebookFee(double rebookFee) {
-        this.rebookFee = rebookFee;
+        BookingStore store = this.store;
+        if (store != null) {
+            store.setRebookFee(id, rebookFee);
+        } else {
+            detached().rebookFee = rebookFee;
+        }
+    }
+
+    /**
+     * Checks whether another object is the same booking: a view of the same slot in the same store,
+     * or, for a booking not yet in a system, the very same object.
+     *
+     * @param obj The object to compare with.
+     * @return True if the object is the same booking.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Booking)) {
+            return false;
+        }
+        Booking other = (Booking) obj;
+        BookingStore store = this.store;
+        return store != null && store == other.store && id == other.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    // A booking is only handed to other threads once it is in a system, so a detached booking is never attached meanwhile
+    private synchronized Details detached() {
+        if (details == null) {
+            throw new IllegalStateException("Booking #" + id + " has been added to a system.");
+        }
+        return details;
+    }
+
+    /**
+     * The details of a booking before it is added to a system.
+     */
+    private static class Details {
+        private Customer customer;
+        private Flight flight;
+        private LocalDate bookingDate;
+        private double price;
+        private boolean cancelled;
+        private double cancellationFee;
+        private double rebookFee;
+
+        Details(Customer customer, Flight flight, LocalDate bookingDate, double price) {
+            this.customer = customer;
+            this.flight = flight;
+            this.bookingDate = bookingDate;
+            this.price = price;
+        }
     }
 }
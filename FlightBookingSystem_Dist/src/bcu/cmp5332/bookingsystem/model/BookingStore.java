@@ -0,0 +1,830 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BookingStore class holds the bookings of a flight booking system in columns of primitive arrays
+ * rather than as one object per booking.
+ *
+ * Each booking occupies the slot of its ID in five columns: customer ID, flight ID, booking date as an
+ * epoch day, price in cents and status flags, 17 bytes in all. Slots are allocated in pages of 65536, so
+ * the store grows without copying and a dense range of IDs wastes at most one page. Cancellation and rebook
+ * fees are kept in a side table only for bookings whose fees differ from the defaults (10% of the price
+ * once cancelled, and no rebook fee). The flight index holds sorted int arrays of booking IDs. The customer
+ * index is a composite (customer, flight) index: each customer's bookings are kept sorted by flight ID and
+ * then booking ID, packed together into longs, so a customer's bookings on one flight are a range found by
+ * binary search.
+ *
+ * A removed booking keeps its column values, so a {@link Booking} view of it still reads them and can be
+ * added back. All methods are synchronized on the store; none calls out to other objects while holding it.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class BookingStore {
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final byte PRESENT = 1; // The booking is in the store
+    private static final byte CANCELLED = 2; // The booking is cancelled
+    private static final byte WRITTEN = 4; // The slot holds a booking, possibly removed since
+
+    private final FlightBookingSystem system;
+
+    private int[][] customerIds = new int[0][];
+    private int[][] flightIds = new int[0][];
+    private int[][] bookingDays = new int[0][];
+    private int[][] priceCents = new int[0][];
+    private byte[][] flags = new byte[0][];
+
+    private final IntObjectMap<double[]> fees = new IntObjectMap<>(); // booking id -> {cancellation fee, rebook fee}
+    private final IntObjectMap<IdList> byFlight = new IntObjectMap<>(); // flight id -> booking ids
+    private final IntObjectMap<PairList> byCustomer = new IntObjectMap<>(); // customer id -> (flight id, booking id) pairs
+    private int size;
+    private long version; // Incremented by every change to the bookings
+
+    /**
+     * Constructs an empty BookingStore for a flight booking system.
+     *
+     * @param system The system whose customers and flights the bookings refer to.
+     */
+    BookingStore(FlightBookingSystem system) {
+        this.system = system;
+    }
+
+    /**
+     * Gets the system whose customers and flights the bookings refer to.
+     *
+     * @return The flight booking system.
+     */
+    FlightBookingSystem getSystem() {
+        return system;
+    }
+
+    /**
+     * Gets the number of bookings in the store.
+     *
+     * @return The booking count.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a booking is in the store.
+     *
+     * @param id The booking ID.
+     * @return True if the booking is in the store.
+     */
+    public synchronized boolean contains(int id) {
+        return (flag(id) & PRESENT) != 0;
+    }
+
+    /**
+     * Gets the version of the bookings, which every change to them increments.
+     * Two equal versions of the same store mean the bookings did not change in between.
+     *
+     * @return The version, 0 for a new store.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Adds a booking to the store.
+     *
+     * @param id The booking ID, 0 or more.
+     * @param customerId The ID of the customer who made the booking.
+     * @param flightId The ID of the booked flight.
+     * @param bookingDate The date the booking was made.
+     * @param price The price of the booking, stored to the cent.
+     * @param cancelled Whether the booking is cancelled.
+     * @param cancellationFee The cancellation fee.
+     * @param rebookFee The rebook fee.
+     * @throws IllegalArgumentException If the ID is negative or already in the store, or the price is out of range.
+     */
+    synchronized void add(int id, int customerId, int flightId, LocalDate bookingDate, double price,
+            boolean cancelled, double cancellationFee, double rebookFee) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Booking IDs cannot be negative.");
+        }
+        if (contains(id)) {
+            throw new IllegalArgumentException("Duplicate booking ID.");
+        }
+        int cents = toCents(price);
+        ensurePage(id >>> PAGE_BITS);
+        int page = id >>> PAGE_BITS;
+        int slot = id & PAGE_MASK;
+        customerIds[page][slot] = customerId;
+        flightIds[page][slot] = flightId;
+        bookingDays[page][slot] = (int) bookingDate.toEpochDay();
+        priceCents[page][slot] = cents;
+        flags[page][slot] = (byte) (PRESENT | WRITTEN | (cancelled ? CANCELLED : 0));
+        setFees(id, cancellationFee, rebookFee);
+        index(byFlight, flightId, id);
+        indexPair(customerId, flightId, id);
+        size++;
+        version++;
+    }
+
+    /**
+     * Removes a booking from the store and its indexes. Its column values are kept for views of it.
+     *
+     * @param id The booking ID.
+     * @return True if the booking was in the store.
+     */
+    synchronized boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        flags[id >>> PAGE_BITS][id & PAGE_MASK] &= ~PRESENT;
+        unindex(byFlight, flightId(id), id);
+        unindexPair(customerId(id), flightId(id), id);
+        size--;
+        version++;
+        return true;
+    }
+
+    /**
+     * Removes every booking on a flight.
+     *
+     * @param flightId The flight ID.
+     * @return The IDs of the removed bookings.
+     */
+    synchronized int[] removeByFlight(int flightId) {
+        int[] ids = idsByFlight(flightId);
+        for (int id : ids) {
+            remove(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Removes every booking made by a customer.
+     *
+     * @param customerId The customer ID.
+     * @return The IDs of the removed bookings.
+     */
+    synchronized int[] removeByCustomer(int customerId) {
+        int[] ids = idsByCustomer(customerId);
+        for (int id : ids) {
+            remove(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the IDs of all bookings in the store.
+     *
+     * @return The booking IDs in ascending order.
+     */
+    public synchronized int[] ids() {
+        int[] ids = new int[size];
+        int count = 0;
+        for (int page = 0; page < flags.length; page++) {
+            byte[] pageFlags = flags[page];
+            if (pageFlags == null) {
+                continue;
+            }
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                if ((pageFlags[slot] & PRESENT) != 0) {
+                    ids[count++] = (page << PAGE_BITS) | slot;
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the IDs of the bookings on a flight.
+     *
+     * @param flightId The flight ID.
+     * @return The booking IDs in ascending order.
+     */
+    public synchronized int[] idsByFlight(int flightId) {
+        IdList ids = byFlight.get(flightId);
+        return ids == null ? new int[0] : ids.toArray();
+    }
+
+    /**
+     * Gets the IDs of the bookings made by a customer.
+     *
+     * @param customerId The customer ID.
+     * @return The booking IDs in ascending order.
+     */
+    public synchronized int[] idsByCustomer(int customerId) {
+        PairList pairs = byCustomer.get(customerId);
+        if (pairs == null) {
+            return new int[0];
+        }
+        int[] ids = pairs.ids(0, pairs.size);
+        Arrays.sort(ids); // The pairs are in flight order
+        return ids;
+    }
+
+    /**
+     * Gets the IDs of the bookings made by a customer on a flight, found by binary search in the
+     * composite (customer, flight) index.
+     *
+     * @param customerId The customer ID.
+     * @param flightId The flight ID.
+     * @return The booking IDs in ascending order.
+     */
+    public synchronized int[] idsByCustomerAndFlight(int customerId, int flightId) {
+        PairList pairs = byCustomer.get(customerId);
+        if (pairs == null) {
+            return new int[0];
+        }
+        return pairs.ids(pairs.start(pair(flightId, 0)), pairs.end(pair(flightId, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Gets the ID of the customer who made a booking.
+     *
+     * @param id The booking ID.
+     * @return The customer ID.
+     */
+    public synchronized int getCustomerId(int id) {
+        checkWritten(id);
+        return customerIds[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    /**
+     * Gets the ID of a booking's flight.
+     *
+     * @param id The booking ID.
+     * @return The flight ID.
+     */
+    public synchronized int getFlightId(int id) {
+        checkWritten(id);
+        return flightIds[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    /**
+     * Gets the date a booking was made.
+     *
+     * @param id The booking ID.
+     * @return The booking date.
+     */
+    public synchronized LocalDate getBookingDate(int id) {
+        checkWritten(id);
+        return LocalDate.ofEpochDay(bookingDays[id >>> PAGE_BITS][id & PAGE_MASK]);
+    }
+
+    /**
+     * Gets the price of a booking.
+     *
+     * @param id The booking ID.
+     * @return The price.
+     */
+    public synchronized double getPrice(int id) {
+        checkWritten(id);
+        return priceCents[id >>> PAGE_BITS][id & PAGE_MASK] / 100.0;
+    }
+
+    /**
+     * Checks whether a booking is cancelled.
+     *
+     * @param id The booking ID.
+     * @return True if the booking is cancelled.
+     */
+    public synchronized boolean isCancelled(int id) {
+        checkWritten(id);
+        return (flag(id) & CANCELLED) != 0;
+    }
+
+    /**
+     * Gets the cancellation fee of a booking.
+     *
+     * @param id The booking ID.
+     * @return The cancellation fee.
+     */
+    public synchronized double getCancellationFee(int id) {
+        checkWritten(id);
+        double[] fee = fees.get(id);
+        return fee != null ? fee[0] : defaultCancellationFee(id);
+    }
+
+    /**
+     * Gets the rebook fee of a booking.
+     *
+     * @param id The booking ID.
+     * @return The rebook fee.
+     */
+    public synchronized double getRebookFee(int id) {
+        checkWritten(id);
+        double[] fee = fees.get(id);
+        return fee != null ? fee[1] : 0;
+    }
+
+    /**
+     * Changes the customer of a booking and re-indexes it.
+     */
+    synchronized void setCustomerId(int id, int customerId) {
+        checkWritten(id);
+        boolean present = contains(id);
+        if (present) {
+            unindexPair(customerId(id), flightId(id), id);
+        }
+        customerIds[id >>> PAGE_BITS][id & PAGE_MASK] = customerId;
+        if (present) {
+            indexPair(customerId, flightId(id), id);
+        }
+        version++;
+    }
+
+    /**
+     * Changes the flight of a booking and re-indexes it.
+     */
+    synchronized void setFlightId(int id, int flightId) {
+        checkWritten(id);
+        boolean present = contains(id);
+        if (present) {
+            unindex(byFlight, flightId(id), id);
+            unindexPair(customerId(id), flightId(id), id);
+        }
+        flightIds[id >>> PAGE_BITS][id & PAGE_MASK] = flightId;
+        if (present) {
+            index(byFlight, flightId, id);
+            indexPair(customerId(id), flightId, id);
+        }
+        version++;
+    }
+
+    synchronized void setBookingDate(int id, LocalDate bookingDate) {
+        checkWritten(id);
+        bookingDays[id >>> PAGE_BITS][id & PAGE_MASK] = (int) bookingDate.toEpochDay();
+        version++;
+    }
+
+    synchronized void setCancellationFee(int id, double cancellationFee) {
+        checkWritten(id);
+        setFees(id, cancellationFee, getRebookFee(id));
+        version++;
+    }
+
+    synchronized void setRebookFee(int id, double rebookFee) {
+        checkWritten(id);
+        setFees(id, getCancellationFee(id), rebookFee);
+        version++;
+    }
+
+    /**
+     * Marks a booking cancelled and sets its cancellation fee to 10% of the price.
+     *
+     * @param id The booking ID.
+     * @return True if the booking was cancelled by this call, false if it already was.
+     */
+    synchronized boolean cancel(int id) {
+        checkWritten(id);
+        if ((flag(id) & CANCELLED) != 0) {
+            return false;
+        }
+        double rebookFee = getRebookFee(id);
+        flags[id >>> PAGE_BITS][id & PAGE_MASK] |= CANCELLED;
+        setFees(id, defaultCancellationFee(id), rebookFee);
+        version++;
+        return true;
+    }
+
+    /**
+     * Clears the cancellation of a booking, such as one whose cancellation could not be recorded.
+     *
+     * @param id The booking ID.
+     * @return True if the booking was cancelled before this call.
+     */
+    synchronized boolean uncancel(int id) {
+        checkWritten(id);
+        if ((flag(id) & CANCELLED) == 0) {
+            return false;
+        }
+        double rebookFee = getRebookFee(id);
+        flags[id >>> PAGE_BITS][id & PAGE_MASK] &= ~CANCELLED;
+        setFees(id, defaultCancellationFee(id), rebookFee);
+        version++;
+        return true;
+    }
+
+    /**
+     * Checks the flight and customer indexes against the columns.
+     *
+     * @param problems The list to add a description of each inconsistency to.
+     */
+    synchronized void checkConsistency(List<String> problems) {
+        for (int id : ids()) {
+            int flightId = flightId(id);
+            int customerId = customerId(id);
+            if (!indexContains(byFlight, flightId, id)) {
+                problems.add("Booking #" + id + " is missing from the index of flight #" + flightId);
+            }
+            PairList pairs = byCustomer.get(customerId);
+            if (pairs == null || pairs.indexOf(pair(flightId, id)) < 0) {
+                problems.add("Booking #" + id + " is missing from the index of customer #" + customerId
+                        + " and flight #" + flightId);
+            }
+        }
+        for (int flightId : byFlight.sortedKeys()) {
+            IdList ids = byFlight.get(flightId);
+            for (int i = 0; i < ids.size; i++) {
+                if (!contains(ids.ids[i]) || flightId(ids.ids[i]) != flightId) {
+                    problems.add("Flight #" + flightId + " index holds stale booking #" + ids.ids[i]);
+                }
+            }
+        }
+        for (int customerId : byCustomer.sortedKeys()) {
+            PairList pairs = byCustomer.get(customerId);
+            for (int i = 0; i < pairs.size; i++) {
+                int id = (int) pairs.pairs[i];
+                int flightId = (int) (pairs.pairs[i] >> 32);
+                if (!contains(id) || customerId(id) != customerId || flightId(id) != flightId) {
+                    problems.add("Customer #" + customerId + " index holds stale booking #" + id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a cursor over the bookings in the store in ID order.
+     *
+     * @return The cursor, positioned before the first booking.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Opens a cursor over a copy of the bookings as they are now. Unlike {@link #cursor()}, what it reads
+     * stays the same however the store changes while it is open, so a caller that must keep the bookings
+     * from changing while it reads them only needs to do so while the copy is taken.
+     *
+     * @return The cursor, positioned before the first booking.
+     */
+    public synchronized Cursor copyCursor() {
+        BookingStore copy = new BookingStore(system); // Only read by the cursor, so its indexes are left empty
+        copy.customerIds = copyPages(customerIds);
+        copy.flightIds = copyPages(flightIds);
+        copy.bookingDays = copyPages(bookingDays);
+        copy.priceCents = copyPages(priceCents);
+        copy.flags = new byte[flags.length][];
+        for (int page = 0; page < flags.length; page++) {
+            if (flags[page] != null) {
+                copy.flags[page] = flags[page].clone();
+            }
+        }
+        for (int id : fees.sortedKeys()) {
+            copy.fees.put(id, fees.get(id)); // Fee arrays are replaced, never changed in place
+        }
+        copy.size = size;
+        copy.version = version;
+        return copy.cursor();
+    }
+
+    private byte flag(int id) {
+        int page = id >>> PAGE_BITS;
+        if (id < 0 || page >= flags.length || flags[page] == null) {
+            return 0;
+        }
+        return flags[page][id & PAGE_MASK];
+    }
+
+    private int customerId(int id) {
+        return customerIds[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    private int flightId(int id) {
+        return flightIds[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    private double defaultCancellationFee(int id) {
+        return (flag(id) & CANCELLED) != 0 ? priceCents[id >>> PAGE_BITS][id & PAGE_MASK] / 100.0 * 0.1 : 0;
+    }
+
+    // Only fees that differ from the defaults take up space
+    private void setFees(int id, double cancellationFee, double rebookFee) {
+        if (cancellationFee == defaultCancellationFee(id) && rebookFee == 0) {
+            fees.remove(id);
+        } else {
+            fees.put(id, new double[] {cancellationFee, rebookFee});
+        }
+    }
+
+    private void checkWritten(int id) {
+        if ((flag(id) & WRITTEN) == 0) {
+            throw new IllegalArgumentException("There is no booking #" + id + " in the store.");
+        }
+    }
+
+    private void ensurePage(int page) {
+        if (page >= flags.length) {
+            int length = Math.max(page + 1, flags.length * 2);
+            customerIds = Arrays.copyOf(customerIds, length);
+            flightIds = Arrays.copyOf(flightIds, length);
+            bookingDays = Arrays.copyOf(bookingDays, length);
+            priceCents = Arrays.copyOf(priceCents, length);
+            flags = Arrays.copyOf(flags, length);
+        }
+        if (flags[page] == null) {
+            customerIds[page] = new int[PAGE_SIZE];
+            flightIds[page] = new int[PAGE_SIZE];
+            bookingDays[page] = new int[PAGE_SIZE];
+            priceCents[page] = new int[PAGE_SIZE];
+            flags[page] = new byte[PAGE_SIZE];
+        }
+    }
+
+    private static int[][] copyPages(int[][] pages) {
+        int[][] copy = new int[pages.length][];
+        for (int page = 0; page < pages.length; page++) {
+            if (pages[page] != null) {
+                copy[page] = pages[page].clone();
+            }
+        }
+        return copy;
+    }
+
+    private static int toCents(double price) {
+        long cents = Math.round(price * 100);
+        if (cents < Integer.MIN_VALUE || cents > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Booking price " + price + " is out of range.");
+        }
+        return (int) cents;
+    }
+
+    private static void index(IntObjectMap<IdList> index, int key, int id) {
+        IdList ids = index.get(key);
+        if (ids == null) {
+            ids = new IdList();
+            index.put(key, ids);
+        }
+        ids.add(id);
+    }
+
+    private static void unindex(IntObjectMap<IdList> index, int key, int id) {
+        IdList ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    private void indexPair(int customerId, int flightId, int id) {
+        PairList pairs = byCustomer.get(customerId);
+        if (pairs == null) {
+            pairs = new PairList();
+            byCustomer.put(customerId, pairs);
+        }
+        pairs.add(pair(flightId, id));
+    }
+
+    private void unindexPair(int customerId, int flightId, int id) {
+        PairList pairs = byCustomer.get(customerId);
+        if (pairs != null && pairs.remove(pair(flightId, id)) && pairs.size == 0) {
+            byCustomer.remove(customerId);
+        }
+    }
+
+    // Orders by flight ID, then by booking ID, which is never negative
+    private static long pair(int flightId, int id) {
+        return (long) flightId << 32 | id;
+    }
+
+    private static boolean indexContains(IntObjectMap<IdList> index, int key, int id) {
+        IdList ids = index.get(key);
+        return ids != null && ids.indexOf(id) >= 0;
+    }
+
+    /**
+     * A growable sorted array of booking IDs.
+     */
+    private static class IdList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int indexOf(int id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    /**
+     * A growable sorted array of (flight ID, booking ID) pairs packed into longs by {@link BookingStore#pair}.
+     */
+    private static class PairList {
+        private long[] pairs = new long[4];
+        private int size;
+
+        void add(long pair) {
+            int index = indexOf(pair);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size + (size >> 1) + 1);
+            }
+            System.arraycopy(pairs, index, pairs, index + 1, size - index);
+            pairs[index] = pair;
+            size++;
+        }
+
+        boolean remove(long pair) {
+            int index = indexOf(pair);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(pairs, index + 1, pairs, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int indexOf(long pair) {
+            return Arrays.binarySearch(pairs, 0, size, pair);
+        }
+
+        // Index of the first pair not before the specified one
+        int start(long pair) {
+            int index = indexOf(pair);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        // Index just past the last pair not after the specified one
+        int end(long pair) {
+            int index = indexOf(pair);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        int[] ids(int from, int to) {
+            int[] ids = new int[to - from];
+            for (int i = from; i < to; i++) {
+                ids[i - from] = (int) pairs[i];
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Reads the bookings in ID order without creating a Booking for each one.
+     * The cursor copies one page of the columns at a time while holding the store's monitor,
+     * so the values it returns for a page are consistent with each other.
+     */
+    public class Cursor {
+        private final int[] pageCustomerIds = new int[PAGE_SIZE];
+        private final int[] pageFlightIds = new int[PAGE_SIZE];
+        private final int[] pageBookingDays = new int[PAGE_SIZE];
+        private final int[] pagePriceCents = new int[PAGE_SIZE];
+        private final byte[] pageFlags = new byte[PAGE_SIZE];
+        private final double[] pageCancellationFees = new double[PAGE_SIZE];
+        private final double[] pageRebookFees = new double[PAGE_SIZE];
+        private int page = -1;
+        private int slot = PAGE_SIZE;
+        private boolean exhausted;
+
+        private Cursor() {
+        }
+
+        /**
+         * Advances to the next booking.
+         *
+         * @return True if there is a booking, false once all have been read.
+         */
+        public boolean next() {
+            while (!exhausted) {
+                for (slot++; slot < PAGE_SIZE; slot++) {
+                    if ((pageFlags[slot] & PRESENT) != 0) {
+                        return true;
+                    }
+                }
+                loadPage(page + 1);
+            }
+            return false;
+        }
+
+        /**
+         * Gets the ID of the current booking.
+         *
+         * @return The booking ID.
+         */
+        public int getId() {
+            return (page << PAGE_BITS) | slot;
+        }
+
+        /**
+         * Gets the ID of the customer who made the current booking.
+         *
+         * @return The customer ID.
+         */
+        public int getCustomerId() {
+            return pageCustomerIds[slot];
+        }
+
+        /**
+         * Gets the ID of the current booking's flight.
+         *
+         * @return The flight ID.
+         */
+        public int getFlightId() {
+            return pageFlightIds[slot];
+        }
+
+        /**
+         * Gets the date the current booking was made.
+         *
+         * @return The booking date as a count of days since 1970-01-01.
+         */
+        public int getBookingEpochDay() {
+            return pageBookingDays[slot];
+        }
+
+        /**
+         * Gets the price of the current booking.
+         *
+         * @return The price.
+         */
+        public double getPrice() {
+            return pagePriceCents[slot] / 100.0;
+        }
+
+        /**
+         * Checks whether the current booking is cancelled.
+         *
+         * @return True if the booking is cancelled.
+         */
+        public boolean isCancelled() {
+            return (pageFlags[slot] & CANCELLED) != 0;
+        }
+
+        /**
+         * Gets the cancellation fee of the current booking.
+         *
+         * @return The cancellation fee.
+         */
+        public double getCancellationFee() {
+            return pageCancellationFees[slot];
+        }
+
+        /**
+         * Gets the rebook fee of the current booking.
+         *
+         * @return The rebook fee.
+         */
+        public double getRebookFee() {
+            return pageRebookFees[slot];
+        }
+
+        private void loadPage(int next) {
+            synchronized (BookingStore.this) {
+                while (next < flags.length && flags[next] == null) {
+                    next++;
+                }
+                if (next >= flags.length) {
+                    exhausted = true;
+                    return;
+                }
+                System.arraycopy(customerIds[next], 0, pageCustomerIds, 0, PAGE_SIZE);
+                System.arraycopy(flightIds[next], 0, pageFlightIds, 0, PAGE_SIZE);
+                System.arraycopy(bookingDays[next], 0, pageBookingDays, 0, PAGE_SIZE);
+                System.arraycopy(priceCents[next], 0, pagePriceCents, 0, PAGE_SIZE);
+                System.arraycopy(flags[next], 0, pageFlags, 0, PAGE_SIZE);
+                int base = next << PAGE_BITS;
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    if ((pageFlags[i] & PRESENT) != 0) {
+                        double[] fee = fees.isEmpty() ? null : fees.get(base | i);
+                        pageCancellationFees[i] = fee != null ? fee[0] : defaultCancellationFee(base | i);
+                        pageRebookFees[i] = fee != null ? fee[1] : 0;
+                    }
+                }
+            }
+            page = next;
+            slot = -1;
+        }
+    }
+}
@@ -2,12 +2,16 @@ package bcu.cmp5332.bookingsystem.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The Customer class represents a customer in the flight booking system.
  * It includes details such as the customer's ID, name, phone number, email address,
  * and a list of bookings made by the customer.
  * 
+ * Once the customer is added to a FlightBookingSystem, their bookings are read from the system's booking store;
+ * the list kept here only holds bookings added to a customer who is not in a system.
+ * 
  * @Author Subresh Thakulla / Bibek Shah
  */
 public class Customer {
@@ -16,8 +20,9 @@ public class Customer {
     private String name; // The name of the customer
     private String phone; // The phone number of the customer
     private String email; // The email address of the customer
-    private final List<Booking> bookings = new ArrayList<>(); // List of bookings made by the customer
+    private final List<Booking> bookings = new CopyOnWriteArrayList<>(); // Bookings made before the customer is in a system
     private boolean deleted; // Flag indicating whether the customer is deleted
+    private volatile FlightBookingSystem system; // The system holding this customer, or null if it has not been added to one
 
     /**
      * Constructs a new Customer object with the specified details.
@@ -69,6 +74,7 @@ public class Customer {
      */
     public void setName(String name) {
         this.name = name;
+        changed();
     }
 
     /**
@@ -87,6 +93,7 @@ public class Customer {
      */
     public void setPhone(String phone) {
         this.phone = phone;
+        changed();
     }
 
     /**
@@ -105,6 +112,7 @@ public class Customer {
      */
     public void setEmail(String email) {
         this.email = email;
+        changed();
     }
 
     /**
@@ -113,16 +121,20 @@ public class Customer {
      * @return The list of bookings.
      */
     public List<Booking> getBookings() {
-        return bookings;
+        FlightBookingSystem system = this.system;
+        return system != null ? system.getBookingsByCustomer(this) : bookings;
     }
 
     /**
      * Adds a booking to the customer's list of bookings.
+     * Once the customer is in a system this does nothing: adding the booking to the system lists it.
      * 
      * @param booking The booking to add.
      */
     public void addBooking(Booking booking) {
-        bookings.add(booking);
+        if (system == null) {
+            bookings.add(booking);
+        }
     }
 
     /**
@@ -131,7 +143,18 @@ public class Customer {
      * @return A short description of the customer.
      */
     public String getDetailsShort() {
-        return "Customer #" + id + " - " + name + " - " + phone + " - " + email;
+        return appendDetailsShort(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Appends a short description of the customer to a builder, so a listing can reuse one builder for every row.
+     * 
+     * @param sb The builder to append to.
+     * @return The builder.
+     */
+    public StringBuilder appendDetailsShort(StringBuilder sb) {
+        return sb.append("Customer #").append(id).append(" - ").append(name).append(" - ").append(phone)
+                .append(" - ").append(email);
     }
 
     /**
@@ -141,7 +164,7 @@ public class Customer {
      * @return The booking for the specified flight, or null if no such booking exists.
      */
     public Booking getBookingByFlightId(int flightId) {
-        for (Booking booking : bookings) {
+        for (Booking booking : getBookings()) {
             if (booking.getFlight().getId() == flightId) {
                 return booking;
             }
@@ -155,11 +178,12 @@ public class Customer {
      * @return The number of bookings.
      */
     public int getNumberOfBookings() {
-        return bookings.size();
+        return getBookings().size();
     }
 
     /**
      * Removes a booking from the customer's list of bookings.
+     * Once the customer is in a system this does nothing: removing the booking from the system unlists it.
      * 
      * @param booking The booking to remove.
      */
@@ -183,6 +207,7 @@ public class Customer {
      */
     public void setDeleted(boolean deleted) {
         this.deleted = deleted;
+        changed();
     }
 
     /**
@@ -191,7 +216,7 @@ public class Customer {
      * @return True if any bookings are cancelled, otherwise false.
      */
     public boolean isCancelled() {
-        for (Booking booking : bookings) {
+        for (Booking booking : getBookings()) {
             if (booking.isCancelled()) {
                 return true;
             }
@@ -206,7 +231,7 @@ public class Customer {
      */
     public List<Booking> getActiveBookings() {
         List<Booking> activeBookings = new ArrayList<>();
-        for (Booking booking : bookings) {
+        for (Booking booking : getBookings()) {
             if (!booking.isCancelled()) {
                 activeBookings.add(booking);
             }
@@ -214,8 +239,28 @@ public class Customer {
         return activeBookings;
     }
 
+    /**
+     * Tells the system holding this customer, if any, that one of the customer's details changed.
+     */
+    private void changed() {
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            system.customerChanged();
+        }
+    }
+
+    /**
+     * Sets the system that holds this customer.
+     * 
+     * @param system The flight booking system, or null when the customer is removed from it.
+     */
+    void setSystem(FlightBookingSystem system) {
+        this.system = system;
+    }
+
     /**
      * Updates the number of bookings for the customer to reflect only active bookings.
+     * Only the bookings of a customer who is not in a system are kept here to be updated.
      */
     public void updateNumberOfBookings() {
         // Get the list of active bookings (not cancelled)
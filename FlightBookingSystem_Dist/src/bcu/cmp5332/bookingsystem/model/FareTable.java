@@ -0,0 +1,135 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The FareTable class holds the fares of all flights of a flight booking system as published for one date.
+ *
+ * The fares are calculated once, in parallel on the common fork-join pool, into an int array that runs
+ * alongside a sorted array of flight IDs. Reading a published fare is then a binary search, with no
+ * re-pricing; a table is a snapshot and does not follow bookings made after it was published.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class FareTable {
+
+    private static final int SEQUENTIAL_THRESHOLD = 4096; // Flights priced by one task without splitting further
+
+    private final LocalDate date;
+    private final int[] flightIds; // In ascending order
+    private final int[] fares;
+
+    private FareTable(LocalDate date, int[] flightIds, int[] fares) {
+        this.date = date;
+        this.flightIds = flightIds;
+        this.fares = fares;
+    }
+
+    /**
+     * Prices flights for a date.
+     *
+     * @param flights The flights, in ascending order of ID.
+     * @param date The date to price the flights on.
+     * @param engine The pricing engine.
+     * @return The fare table.
+     */
+    static FareTable price(Flight[] flights, LocalDate date, PricingEngine engine) {
+        int[] flightIds = new int[flights.length];
+        int[] fares = new int[flights.length];
+        ForkJoinPool.commonPool().invoke(new PriceTask(flights, date.toEpochDay(), engine, flightIds, fares, 0, flights.length));
+        return new FareTable(date, flightIds, fares);
+    }
+
+    /**
+     * Gets the date the fares were published for.
+     *
+     * @return The date.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the number of flights in the table.
+     *
+     * @return The flight count.
+     */
+    public int size() {
+        return flightIds.length;
+    }
+
+    /**
+     * Gets the flight ID at a position in the table.
+     *
+     * @param index The position, from 0 to {@link #size()} - 1.
+     * @return The flight ID.
+     */
+    public int getFlightId(int index) {
+        return flightIds[index];
+    }
+
+    /**
+     * Gets the fare at a position in the table.
+     *
+     * @param index The position, from 0 to {@link #size()} - 1.
+     * @return The fare.
+     */
+    public int getFareAt(int index) {
+        return fares[index];
+    }
+
+    /**
+     * Gets the published fare of a flight.
+     *
+     * @param flightId The flight ID.
+     * @return The fare, or -1 if the flight is not in the table.
+     */
+    public int getFare(int flightId) {
+        int index = Arrays.binarySearch(flightIds, flightId);
+        return index < 0 ? -1 : fares[index];
+    }
+
+    /**
+     * Prices a range of the flights, splitting it in half until it is small enough to price in one go.
+     */
+    private static class PriceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Flight[] flights;
+        private final long epochDay;
+        private final PricingEngine engine;
+        private final int[] flightIds;
+        private final int[] fares;
+        private final int from;
+        private final int to;
+
+        PriceTask(Flight[] flights, long epochDay, PricingEngine engine, int[] flightIds, int[] fares, int from, int to) {
+            this.flights = flights;
+            this.epochDay = epochDay;
+            this.engine = engine;
+            this.flightIds = flightIds;
+            this.fares = fares;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    Flight flight = flights[i];
+                    int daysLeft = (int) (flight.getDepartureDate().toEpochDay() - epochDay);
+                    flightIds[i] = flight.getId();
+                    fares[i] = engine.price(flight.getPrice(), daysLeft, flight.getSeatsLeft());
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PriceTask(flights, epochDay, engine, flightIds, fares, from, middle),
+                    new PriceTask(flights, epochDay, engine, flightIds, fares, middle, to));
+        }
+    }
+}
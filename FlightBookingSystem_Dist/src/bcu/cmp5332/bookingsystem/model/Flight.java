@@ -4,9 +4,12 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 
@@ -19,6 +22,8 @@ import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
  */
 public class Flight {
 
+    private static final DateTimeFormatter DETAILS_DATE = DateTimeFormatter.ofPattern("dd/MM/YYYY"); // Date format of the descriptions
+
     private int id; // The unique identifier for the flight
     private String flightNumber; // The flight number
     private String origin; // The origin of the flight
@@ -27,8 +32,11 @@ public class Flight {
     private int numberOfSeats; // The total number of seats available on the flight
     private double price; // The price of the flight
     private final Set<Customer> passengers; // Set of passengers booked on the flight
-    private List<Booking> bookings = new ArrayList<>(); // List of bookings associated with the flight
+    private final AtomicInteger bookedSeats = new AtomicInteger(); // Seats taken by the passengers; never exceeds numberOfSeats
+    private final List<Booking> bookings = new CopyOnWriteArrayList<>(); // List of bookings associated with the flight
     private boolean deleted; // Flag indicating whether the flight is deleted
+    private volatile FlightBookingSystem system; // The system indexing this flight, or null if it has not been added to one
+    private volatile long cachedPrice; // The price last calculated and its PriceCache key, or 0 if there is none
 
     /**
      * Constructs a new Flight object with the specified details.
@@ -49,7 +57,7 @@ public class Flight {
         this.departureDate = departureDate;
         this.numberOfSeats = numberOfSeats;
         this.price = price;
-        this.passengers = new HashSet<>();
+        this.passengers = ConcurrentHashMap.newKeySet();
         this.deleted = false;
     }
 
@@ -88,7 +96,12 @@ public class Flight {
      * @param flightNumber The flight number to set.
      */
     public void setFlightNumber(String flightNumber) {
-        this.flightNumber = flightNumber;
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            system.changeFlight(this, flightNumber, this.departureDate, () -> this.flightNumber = flightNumber);
+        } else {
+            this.flightNumber = flightNumber;
+        }
     }
 
     /**
@@ -106,7 +119,12 @@ public class Flight {
      * @param origin The origin to set.
      */
     public void setOrigin(String origin) {
-        this.origin = origin;
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            system.changeFlight(this, flightNumber, departureDate, () -> this.origin = origin);
+        } else {
+            this.origin = origin;
+        }
     }
 
     /**
@@ -124,7 +142,12 @@ public class Flight {
      * @param destination The destination to set.
      */
     public void setDestination(String destination) {
-        this.destination = destination;
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            system.changeFlight(this, flightNumber, departureDate, () -> this.destination = destination);
+        } else {
+            this.destination = destination;
+        }
     }
 
     /**
@@ -142,7 +165,13 @@ public class Flight {
      * @param departureDate The departure date to set.
      */
     public void setDepartureDate(LocalDate departureDate) {
-        this.departureDate = departureDate;
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            system.changeFlight(this, this.flightNumber, departureDate, () -> this.departureDate = departureDate);
+        } else {
+            this.departureDate = departureDate;
+        }
+        cachedPrice = 0;
     }
 
     /**
@@ -161,6 +190,8 @@ public class Flight {
      */
     public void setNumberOfSeats(int numberOfSeats) {
         this.numberOfSeats = numberOfSeats;
+        cachedPrice = 0;
+        changed();
     }
 
     /**
@@ -179,6 +210,8 @@ public class Flight {
      */
     public void setPrice(double price) {
         this.price = price;
+        cachedPrice = 0;
+        changed();
     }
 
     /**
@@ -196,9 +229,20 @@ public class Flight {
      * @return A short description of the flight.
      */
     public String getDetailsShort() {
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("dd/MM/YYYY");
-        return "Flight #" + id + " - " + flightNumber + " - " + origin + " to "
-                + destination + " on " + departureDate.format(dtf) + " - Price: $" + price + " - Seats: " + numberOfSeats;
+        return appendDetailsShort(new StringBuilder(96)).toString();
+    }
+
+    /**
+     * Appends a short description of the flight to a builder, so a listing can reuse one builder for every row.
+     * 
+     * @param sb The builder to append to.
+     * @return The builder.
+     */
+    public StringBuilder appendDetailsShort(StringBuilder sb) {
+        sb.append("Flight #").append(id).append(" - ").append(flightNumber).append(" - ").append(origin).append(" to ")
+                .append(destination).append(" on ");
+        DETAILS_DATE.formatTo(departureDate, sb);
+        return sb.append(" - Price: $").append(price).append(" - Seats: ").append(numberOfSeats);
     }
 
     /**
@@ -207,13 +251,12 @@ public class Flight {
      * @return A detailed description of the flight.
      */
     public String getDetailsLong() {
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("dd/MM/YYYY");
         StringBuilder sb = new StringBuilder();
         sb.append("Flight #").append(id).append("\n");
         sb.append("Flight Number: ").append(flightNumber).append("\n");
         sb.append("Origin: ").append(origin).append("\n");
         sb.append("Destination: ").append(destination).append("\n");
-        sb.append("Departure Date: ").append(departureDate.format(dtf)).append("\n");
+        sb.append("Departure Date: ").append(departureDate.format(DETAILS_DATE)).append("\n");
         sb.append("Number of Seats: ").append(numberOfSeats).append("\n");
         sb.append("Price: Rs").append(price).append("\n");
         sb.append("Passengers: ").append("\n");
@@ -225,23 +268,142 @@ public class Flight {
 
     /**
      * Adds a passenger to the flight if there are available seats and the departure date has not passed.
+     * A seat is reserved for the passenger; if none is left the passenger is not added.
      * 
      * @param customer The customer to add as a passenger.
+     * @return True if the customer is a passenger on the flight afterwards, false if it is full or has departed.
+     */
+    public boolean addPassenger(Customer customer) {
+        if (departureDate.isBefore(LocalDate.now())) {
+            return false;
+        }
+        if (passengers.add(customer) && !reserveSeat()) {
+            passengers.remove(customer);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds a group of customers who are not on the flight yet as passengers, reserving all their seats in one step.
+     * Either every customer is added or, if the flight has departed or has too few seats left, none is.
+     * 
+     * @param customers The customers to add as passengers, none of them already on the flight and none twice.
+     * @return True if the customers were added, false if the flight is full or has departed.
+     */
+    public boolean addPassengers(Collection<Customer> customers) {
+        if (departureDate.isBefore(LocalDate.now())) {
+            return false;
+        }
+        if (!reserveSeats(customers.size())) {
+            return false;
+        }
+        passengers.addAll(customers);
+        return true;
+    }
+
+    /**
+     * Puts a passenger back on the flight after an undone cancellation, reserving their seat again even if
+     * the flight has departed since.
+     * 
+     * @param customer The customer to put back.
+     * @return True if the customer is a passenger on the flight afterwards, false if the flight is full.
      */
-    public void addPassenger(Customer customer) {
-        if (passengers.size() >= numberOfSeats || departureDate.isBefore(LocalDate.now())) {
-            return;
+    boolean restorePassenger(Customer customer) {
+        if (passengers.add(customer) && !reserveSeat()) {
+            passengers.remove(customer);
+            return false;
         }
-        passengers.add(customer);
+        return true;
     }
 
     /**
-     * Removes a passenger from the flight if they are not cancelled.
+     * Checks whether a customer is a passenger on the flight.
+     * 
+     * @param customer The customer.
+     * @return True if the customer has a seat on the flight.
+     */
+    public boolean hasPassenger(Customer customer) {
+        return passengers.contains(customer);
+    }
+
+    /**
+     * Removes a passenger from the flight and releases their seat.
      * 
      * @param customer The customer to remove as a passenger.
      */
     public void removePassenger(Customer customer) {
-        passengers.removeIf(passenger -> passenger.equals(customer) && !passenger.isCancelled());
+        if (passengers.remove(customer)) {
+            releaseSeat();
+        }
+    }
+
+    /**
+     * Reserves one seat on the flight without locking, by compare-and-set on the booked seat counter.
+     * 
+     * @return True if a seat was reserved, false if the flight is full.
+     */
+    public boolean reserveSeat() {
+        while (true) {
+            int booked = bookedSeats.get();
+            if (booked >= numberOfSeats) {
+                return false;
+            }
+            if (bookedSeats.compareAndSet(booked, booked + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserves several seats on the flight at once without locking, by compare-and-set on the booked seat counter.
+     * 
+     * @param count The number of seats to reserve.
+     * @return True if all the seats were reserved, false if fewer are left and none was reserved.
+     */
+    public boolean reserveSeats(int count) {
+        while (true) {
+            int booked = bookedSeats.get();
+            if (count > numberOfSeats - booked) {
+                return false;
+            }
+            if (bookedSeats.compareAndSet(booked, booked + count)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases one seat reserved on the flight.
+     */
+    public void releaseSeat() {
+        while (true) {
+            int booked = bookedSeats.get();
+            if (booked == 0) {
+                return;
+            }
+            if (bookedSeats.compareAndSet(booked, booked - 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of seats currently booked on the flight.
+     * 
+     * @return The number of booked seats.
+     */
+    public int getBookedSeats() {
+        return bookedSeats.get();
+    }
+
+    /**
+     * Gets the number of seats still available on the flight.
+     * 
+     * @return The number of seats left, never negative.
+     */
+    public int getSeatsLeft() {
+        return Math.max(0, numberOfSeats - bookedSeats.get());
     }
 
     /**
@@ -260,6 +422,27 @@ public class Flight {
      */
     public void setDeleted(boolean deleted) {
         this.deleted = deleted;
+        changed();
+    }
+
+    /**
+     * Tells the system indexing this flight, if any, that one of the flight's details changed.
+     * Changes to the number, route and departure date are recorded by the system as it re-indexes the flight.
+     */
+    private void changed() {
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            system.flightChanged();
+        }
+    }
+
+    /**
+     * Sets the system that indexes this flight.
+     * 
+     * @param system The flight booking system, or null when the flight is removed from it.
+     */
+    void setSystem(FlightBookingSystem system) {
+        this.system = system;
     }
 
     /**
@@ -323,52 +506,38 @@ public class Flight {
 
     /**
      * Calculates the price of the flight based on the current date and the number of available seats.
+     * A flight in a system is priced by the system's pricing engine through its {@link PriceCache};
+     * any other flight by the standard rules.
      * 
      * @param currentDate The current date.
      * @return The calculated price.
-     * @throws FlightBookingSystemException If there are no available seats for booking.
+     * @throws FlightBookingSystemException If the price cannot be calculated.
      */
     public int calculatePrice(LocalDate currentDate) throws FlightBookingSystemException {
-        // Check if the flight is fully booked
-        int bookedSeats = 0;
-        for (Customer passenger : passengers) {
-            if (!passenger.isCancelled()) {
-                bookedSeats++;
-            }
-        }
-        if (bookedSeats >= numberOfSeats) {
-            return (int) price; // Return the original price
+        FlightBookingSystem system = this.system;
+        if (system != null) {
+            return system.getPriceCache().price(this, currentDate);
         }
-
         int daysLeft = (int) ChronoUnit.DAYS.between(currentDate, departureDate);
-        int priceFactor;
-
-        // Adjust the price factor based on the number of days left
-        if (daysLeft >= 6) {
-            priceFactor = 1; // Price factor for flights departing in more than 6 days
-        } else if (daysLeft >= 1) {
-            priceFactor = 2; // Price factor for flights departing in 1 to 5 days
-        } else {
-            priceFactor = 3; // Price factor for flights departing within 24 hours
-        }
-
-        // Calculate the final price based on the price factor
-        double finalPrice = price * priceFactor;
-
-        // Ensure that there are available seats
-        int seatsLeft = numberOfSeats - bookedSeats;
-        if (seatsLeft <= 0) {
-            throw new FlightBookingSystemException("No seats available for booking.");
-        }
-
-        double seatsPriceIncrease = 0.0;
-        if (seatsLeft <= 4) {
-            seatsPriceIncrease = 50.0 * (5 - seatsLeft); // Increase price by $50 for each seat less than 5
-        }
+        return RuleTablePricingEngine.DEFAULT.price(price, daysLeft, getSeatsLeft());
+    }
 
-        finalPrice += seatsPriceIncrease;
+    /**
+     * Gets the price last calculated by the system's {@link PriceCache}, packed with its cache key.
+     * 
+     * @return The cached entry, or 0 if there is none.
+     */
+    long getCachedPrice() {
+        return cachedPrice;
+    }
 
-        return (int) finalPrice;
+    /**
+     * Sets the price calculated by the system's {@link PriceCache}, packed with its cache key.
+     * 
+     * @param cachedPrice The cached entry.
+     */
+    void setCachedPrice(long cachedPrice) {
+        this.cachedPrice = cachedPrice;
     }
 
     /**
@@ -377,12 +546,6 @@ public class Flight {
      * @return True if the flight is fully booked, otherwise false.
      */
     public boolean isFullyBooked() {
-        int bookedSeats = 0;
-        for (Customer passenger : passengers) {
-            if (!passenger.isCancelled()) {
-                bookedSeats++;
-            }
-        }
-        return bookedSeats >= numberOfSeats;
+        return bookedSeats.get() >= numberOfSeats;
     }
 }
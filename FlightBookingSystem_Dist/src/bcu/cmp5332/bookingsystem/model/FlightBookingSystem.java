@@ -3,20 +3,45 @@ package bcu.cmp5332.bookingsystem.model;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The FlightBookingSystem class represents a system for managing flights, customers, and bookings.
  * It includes methods for adding, retrieving, and deleting flights, customers, and bookings.
  * 
+ * The system can be shared between threads. Flights and customers are held in {@link IntObjectMap}s, bookings in
+ * a synchronized columnar {@link BookingStore}, booking IDs come from an atomic counter, and each flight
+ * reserves seats through a lock-free counter, so a flight is never overbooked.
+ * 
+ * The customers, flights and bookings each have a version that every change to them increments, so the
+ * data layer can tell which of them changed since it last stored them.
+ * 
  * @Author Subresh Thakulla / Bibek Shah
  */
 public class FlightBookingSystem {
     
     private final LocalDate systemDate = LocalDate.parse("2020-11-11");
-    private final Map<Integer, Customer> customers = new TreeMap<>();
-    private final Map<Integer, Flight> flights = new TreeMap<>();
-    private final Map<Integer, Booking> bookings = new TreeMap<>();
-    private int maxBookingId;
+    private final IntObjectMap<Customer> customers = new IntObjectMap<>();
+    private final IntObjectMap<Flight> flights = new IntObjectMap<>();
+    private final BookingStore bookings = new BookingStore(this); // Bookings and their flight and customer indexes
+    private final PriceCache priceCache = new PriceCache(); // The pricing engine and the last calculated price of each flight
+    private volatile FareTable publishedFares; // The fares of the last repriceAll, or null
+    private final AtomicInteger maxBookingId = new AtomicInteger();
+    private final AtomicLong customersVersion = new AtomicLong(); // Incremented by every change to the customers
+    private final AtomicLong flightsVersion = new AtomicLong(); // Incremented by every change to the flights
+
+    // Uniqueness index: flight number and departure date -> flight
+    private final Map<String, Flight> flightsByNumberAndDate = new ConcurrentHashMap<>();
+
+    // Route index: origin -> destination -> departure date -> flights
+    private final Map<String, Map<String, NavigableMap<LocalDate, List<Flight>>>> flightsByRoute = new ConcurrentHashMap<>();
+
+    // Held while adding, deleting or re-indexing a flight, so the flight indexes change together
+    private final Object flightIndexLock = new Object();
 
     /**
      * Generates a new booking ID.
@@ -24,7 +49,7 @@ public class FlightBookingSystem {
      * @return The new booking ID.
      */
     public int generateBookingId() {
-        return ++maxBookingId;
+        return maxBookingId.incrementAndGet();
     }
 
     /**
@@ -33,7 +58,7 @@ public class FlightBookingSystem {
      * @param maxBookingId The maximum booking ID to set.
      */
     public void setMaxBookingId(int maxBookingId) {
-        this.maxBookingId = maxBookingId;
+        this.maxBookingId.set(maxBookingId);
     }
 
     /**
@@ -42,7 +67,57 @@ public class FlightBookingSystem {
      * @return The maximum booking ID.
      */
     public int getMaxBookingId() {
-        return maxBookingId;
+        return maxBookingId.get();
+    }
+
+    /**
+     * Gets the version of the customers, which adding, deleting or changing a customer increments.
+     * 
+     * @return The customers version.
+     */
+    public long getCustomersVersion() {
+        return customersVersion.get();
+    }
+
+    /**
+     * Gets the version of the flights, which adding, deleting or changing a flight increments.
+     * 
+     * @return The flights version.
+     */
+    public long getFlightsVersion() {
+        return flightsVersion.get();
+    }
+
+    /**
+     * Gets the version of the bookings, which adding, removing or changing a booking increments.
+     * 
+     * @return The bookings version.
+     */
+    public long getBookingsVersion() {
+        return bookings.getVersion();
+    }
+
+    /**
+     * Gets the version of the whole system, which any change to a customer, flight or booking increments.
+     * 
+     * @return The system version.
+     */
+    public long getVersion() {
+        return getCustomersVersion() + getFlightsVersion() + getBookingsVersion();
+    }
+
+    /**
+     * Records that a customer in the system changed. Called by the customer's setters.
+     */
+    void customerChanged() {
+        customersVersion.incrementAndGet();
+    }
+
+    /**
+     * Records that a flight in the system changed. Called by the flight's setters.
+     */
+    void flightChanged() {
+        flightsVersion.incrementAndGet();
     }
 
     /**
@@ -61,7 +136,7 @@ public class FlightBookingSystem {
      */
     public List<Flight> getFlights() {
         List<Flight> out = new ArrayList<>();
-        for (Flight flight : flights.values()) {
+        for (Flight flight : flights.sortedValues()) {
             if (!flight.getDepartureDate().isBefore(systemDate)) {
                 out.add(flight);
             }
@@ -69,25 +144,112 @@ public class FlightBookingSystem {
         return Collections.unmodifiableList(out);
     }
 
+    /**
+     * Gets the list of all flights, including those departing before the system date.
+     * 
+     * @return The list of all flights.
+     */
+    public List<Flight> getAllFlights() {
+        return Collections.unmodifiableList(flights.sortedValues());
+    }
+
     /**
      * Gets the list of customers.
      * 
      * @return The list of customers.
      */
     public List<Customer> getCustomers() {
-        List<Customer> out = new ArrayList<>(customers.values());
+        List<Customer> out = customers.sortedValues();
         return Collections.unmodifiableList(out);
     }
 
+    /**
+     * Opens a cursor over all flights in ascending ID order, including those departing before the system date.
+     * Listings page through the flights with it, resuming at the ID after the last one they showed.
+     * 
+     * @param fromId The smallest flight ID to read.
+     * @return The cursor, positioned before the first flight.
+     */
+    public IntObjectMap.Cursor<Flight> flightCursor(int fromId) {
+        return flights.cursor(fromId);
+    }
+
+    /**
+     * Opens a cursor over the customers in ascending ID order.
+     * Listings page through the customers with it, resuming at the ID after the last one they showed.
+     * 
+     * @param fromId The smallest customer ID to read.
+     * @return The cursor, positioned before the first customer.
+     */
+    public IntObjectMap.Cursor<Customer> customerCursor(int fromId) {
+        return customers.cursor(fromId);
+    }
+
     /**
      * Gets the list of bookings.
      * 
      * @return The list of bookings.
      */
     public List<Booking> getBookings() {
-        List<Booking> out = new ArrayList<>(bookings.values());
-        out.removeIf(Objects::isNull);
-        return Collections.unmodifiableList(out);
+        return Collections.unmodifiableList(views(bookings.ids()));
+    }
+
+    /**
+     * Gets the store holding the bookings, for reading them in bulk without a Booking per booking.
+     * 
+     * @return The booking store.
+     */
+    public BookingStore getBookingStore() {
+        return bookings;
+    }
+
+    /**
+     * Gets the cache of flight prices, with its hit and miss counters.
+     * 
+     * @return The price cache.
+     */
+    public PriceCache getPriceCache() {
+        return priceCache;
+    }
+
+    /**
+     * Gets the engine that prices the flights.
+     * 
+     * @return The pricing engine.
+     */
+    public PricingEngine getPricingEngine() {
+        return priceCache.getEngine();
+    }
+
+    /**
+     * Sets the engine that prices the flights, discarding the cached prices.
+     * 
+     * @param engine The pricing engine.
+     */
+    public void setPricingEngine(PricingEngine engine) {
+        priceCache.setEngine(engine);
+    }
+
+    /**
+     * Prices every flight for a date in parallel and publishes the resulting fares.
+     * 
+     * @param date The date to price the flights on.
+     * @return The published fares.
+     */
+    public FareTable repriceAll(LocalDate date) {
+        List<Flight> all = flights.sortedValues();
+        FareTable fares = FareTable.price(all.toArray(new Flight[0]), date, priceCache.getEngine());
+        publishedFares = fares;
+        return fares;
+    }
+
+    /**
+     * Gets the fares published by the last {@link #repriceAll(LocalDate)}.
+     * 
+     * @return The published fares, or null if none have been published.
+     */
+    public FareTable getPublishedFares() {
+        return publishedFares;
     }
 
     /**
@@ -98,10 +260,11 @@ public class FlightBookingSystem {
      * @throws FlightBookingSystemException If the flight is not found.
      */
     public Flight getFlightByID(int id) throws FlightBookingSystemException {
-        if (!flights.containsKey(id)) {
+        Flight flight = flights.get(id);
+        if (flight == null) {
             throw new FlightBookingSystemException("There is no flight with that ID.");
         }
-        return flights.get(id);
+        return flight;
     }
 
     /**
@@ -112,10 +275,11 @@ public class FlightBookingSystem {
      * @throws FlightBookingSystemException If the customer is not found.
      */
     public Customer getCustomerByID(int id) throws FlightBookingSystemException {
-        if (!customers.containsKey(id)) {
+        Customer customer = customers.get(id);
+        if (customer == null) {
             throw new FlightBookingSystemException("There is no customer with that ID.");
         }
-        return customers.get(id);
+        return customer;
     }
 
     /**
@@ -126,10 +290,30 @@ public class FlightBookingSystem {
      * @throws FlightBookingSystemException If the booking is not found.
      */
     public Booking getBookingByID(int id) throws FlightBookingSystemException {
-        if (!bookings.containsKey(id)) {
+        if (!bookings.contains(id)) {
             throw new FlightBookingSystemException("There is no booking with that ID.");
         }
-        return bookings.get(id);
+        return new Booking(bookings, id);
+    }
+
+    /**
+     * Looks up a customer without failing if there is none, such as for a booking view.
+     * 
+     * @param id The customer ID.
+     * @return The customer, or null if there is none with that ID.
+     */
+    public Customer findCustomer(int id) {
+        return customers.get(id);
+    }
+
+    /**
+     * Looks up a flight without failing if there is none, such as for a booking view.
+     * 
+     * @param id The flight ID.
+     * @return The flight, or null if there is none with that ID.
+     */
+    public Flight findFlight(int id) {
+        return flights.get(id);
     }
 
     /**
@@ -139,17 +323,19 @@ public class FlightBookingSystem {
      * @throws FlightBookingSystemException If there is a duplicate flight ID or a flight with the same number and departure date already exists in the system.
      */
     public void addFlight(Flight flight) throws FlightBookingSystemException {
-        if (flights.containsKey(flight.getId())) {
-            throw new IllegalArgumentException("Duplicate flight ID.");
-        }
-        for (Flight existing : flights.values()) {
-            if (existing.getFlightNumber().equals(flight.getFlightNumber()) 
-                && existing.getDepartureDate().isEqual(flight.getDepartureDate())) {
+        synchronized (flightIndexLock) {
+            if (flights.containsKey(flight.getId())) {
+                throw new IllegalArgumentException("Duplicate flight ID.");
+            }
+            if (flightsByNumberAndDate.containsKey(numberAndDateKey(flight.getFlightNumber(), flight.getDepartureDate()))) {
                 throw new FlightBookingSystemException("There is a flight with same "
                         + "number and departure date in the system");
             }
+            flights.put(flight.getId(), flight);
+            indexFlight(flight);
+            flight.setSystem(this);
+            flightChanged();
         }
-        flights.put(flight.getId(), flight);
     }
 
     /**
@@ -159,14 +345,17 @@ public class FlightBookingSystem {
      * @throws FlightBookingSystemException If there is a duplicate customer ID.
      */
     public void addCustomer(Customer customer) throws FlightBookingSystemException {
-        if (customers.containsKey(customer.getId())) {
+        if (customers.putIfAbsent(customer.getId(), customer) != null) {
             throw new IllegalArgumentException("Duplicate customer ID.");
         }
-        customers.put(customer.getId(), customer);
+        customer.setSystem(this);
+        customerChanged();
     }
 
     /**
-     * Adds a booking to the system.
+     * Adds a booking to the system, copying it into the booking store.
+     * A new booking becomes a view of its slot in the store; a view of a booking removed from this system
+     * is added back with its details.
      * 
      * @param booking The booking to be added.
      * @throws FlightBookingSystemException If the customer or flight associated with the booking is not found, or if there is a duplicate booking ID.
@@ -181,13 +370,217 @@ public class FlightBookingSystem {
             throw new FlightBookingSystemException("Customer or Flight not found.");
         }
         
-        // Check if the booking ID already exists
-        if (bookings.containsKey(booking.getId())) {
-            throw new IllegalArgumentException("Duplicate booking ID.");
+        // Add the booking to the system unless the booking ID already exists
+        bookings.add(booking.getId(), customer.getId(), flight.getId(), booking.getBookingDate(), booking.getPrice(),
+                booking.isCancelled(), booking.getCancellationFee(), booking.getRebookFee());
+        if (booking.getStore() == null) {
+            booking.attach(bookings);
+        }
+    }
+
+    /**
+     * Books a seat on a flight for a customer, creating the booking with the next booking ID.
+     * The seat is reserved before the booking is created, so concurrent bookings on the same flight can
+     * never take more seats than it has. The flight's monitor keeps it from being deleted meanwhile.
+     * 
+     * @param customer The customer making the booking.
+     * @param flight The flight to book.
+     * @param bookingDate The date the booking is made.
+     * @param price The price of the booking.
+     * @return The new booking.
+     * @throws FlightBookingSystemException If the customer or flight is not in the system, or the flight is full.
+     */
+    public Booking bookFlight(Customer customer, Flight flight, LocalDate bookingDate, double price) throws FlightBookingSystemException {
+        synchronized (flight) {
+            if (flights.get(flight.getId()) != flight || customers.get(customer.getId()) != customer) {
+                throw new FlightBookingSystemException("Customer or Flight not found.");
+            }
+            if (!flight.addPassenger(customer)) {
+                throw new FlightBookingSystemException("The flight is full or has departed. Booking cannot be made.");
+            }
+            Booking booking = new Booking(generateBookingId(), customer, flight, bookingDate, price);
+            addBooking(booking);
+            return booking;
+        }
+    }
+
+    /**
+     * Books a group of seats at once, such as a group reservation.
+     * The flights of the group are locked in ID order, and the seats every customer needs are checked and
+     * reserved on each flight in one step, so either the whole group is booked or, if a customer or flight is
+     * not in the system or a flight has too few seats left, none of it is. The new bookings get a contiguous
+     * block of booking IDs in the order of the group and are added to the booking store together.
+     * As with {@link #bookFlight}, a customer who is already on a flight does not take a second seat on it.
+     * 
+     * @param group New bookings naming the customer, flight, booking date and price of each seat; the IDs
+     *        they were created with are not used.
+     * @return The bookings made, with their new IDs, in the order of the group.
+     * @throws FlightBookingSystemException If a customer or flight is not in the system, or a flight is full or has departed.
+     */
+    public List<Booking> addBookings(Collection<Booking> group) throws FlightBookingSystemException {
+        List<Booking> requests = new ArrayList<>(group);
+        TreeMap<Integer, Flight> groupFlights = new TreeMap<>(); // Locked in ID order, so two groups cannot deadlock
+        for (Booking request : requests) {
+            if (request.getCustomer() == null || request.getFlight() == null) {
+                throw new FlightBookingSystemException("Customer or Flight not found.");
+            }
+            groupFlights.put(request.getFlight().getId(), request.getFlight());
+        }
+        return addBookings(requests, new ArrayList<>(groupFlights.values()), 0);
+    }
+
+    /**
+     * Locks the flights of a group one by one, then books the group once all are held.
+     * 
+     * @param requests The bookings of the group.
+     * @param groupFlights The flights of the group in ID order.
+     * @param locked The number of flights already locked.
+     * @return The bookings made.
+     * @throws FlightBookingSystemException If the group cannot be booked.
+     */
+    private List<Booking> addBookings(List<Booking> requests, List<Flight> groupFlights, int locked)
+            throws FlightBookingSystemException {
+        if (locked < groupFlights.size()) {
+            synchronized (groupFlights.get(locked)) {
+                return addBookings(requests, groupFlights, locked + 1);
+            }
+        }
+        // Find the customers each flight needs a seat for
+        Map<Flight, Set<Customer>> joining = new LinkedHashMap<>();
+        for (Flight flight : groupFlights) {
+            if (flights.get(flight.getId()) != flight) {
+                throw new FlightBookingSystemException("Customer or Flight not found.");
+            }
+            joining.put(flight, new LinkedHashSet<>());
+        }
+        for (Booking request : requests) {
+            Customer customer = request.getCustomer();
+            if (customers.get(customer.getId()) != customer) {
+                throw new FlightBookingSystemException("Customer or Flight not found.");
+            }
+            if (!request.getFlight().hasPassenger(customer)) {
+                joining.get(request.getFlight()).add(customer);
+            }
+        }
+        // Reserve them flight by flight, giving the seats back if a later flight is full
+        List<Flight> reserved = new ArrayList<>();
+        for (Map.Entry<Flight, Set<Customer>> entry : joining.entrySet()) {
+            if (!entry.getKey().addPassengers(entry.getValue())) {
+                for (Flight flight : reserved) {
+                    for (Customer customer : joining.get(flight)) {
+                        flight.removePassenger(customer);
+                    }
+                }
+                throw new FlightBookingSystemException("Flight #" + entry.getKey().getId()
+                        + " is full or has departed. The group booking cannot be made.");
+            }
+            reserved.add(entry.getKey());
+        }
+        int firstId = maxBookingId.getAndAdd(requests.size()) + 1;
+        int[] ids = new int[requests.size()];
+        synchronized (bookings) {
+            for (int i = 0; i < ids.length; i++) {
+                Booking request = requests.get(i);
+                ids[i] = firstId + i;
+                bookings.add(ids[i], request.getCustomer().getId(), request.getFlight().getId(), request.getBookingDate(),
+                        request.getPrice(), false, 0, 0);
+            }
+        }
+        return views(ids);
+    }
+
+    /**
+     * Removes a booking that was just made, such as one whose record could not be written to the log.
+     * The customer's seat on the flight is released unless they hold another active booking on it.
+     * 
+     * @param bookingId The ID of the booking to remove.
+     * @throws FlightBookingSystemException If there is no booking with that ID.
+     */
+    public void removeBooking(int bookingId) throws FlightBookingSystemException {
+        Booking booking = getBookingByID(bookingId);
+        Flight flight = booking.getFlight();
+        Customer customer = booking.getCustomer();
+        if (flight == null || customer == null) {
+            bookings.remove(bookingId);
+            return;
+        }
+        synchronized (flight) {
+            boolean active = !booking.isCancelled();
+            if (!bookings.remove(bookingId) || !active) {
+                return;
+            }
+            for (int id : bookings.idsByCustomerAndFlight(customer.getId(), flight.getId())) {
+                if (!bookings.isCancelled(id)) {
+                    return; // The seat still belongs to another booking
+                }
+            }
+            flight.removePassenger(customer);
+        }
+    }
+
+    /**
+     * Undoes the cancellation of a booking, such as one whose cancellation could not be written to the log,
+     * taking the customer's seat on the flight back.
+     * 
+     * @param bookingId The ID of the cancelled booking.
+     * @throws FlightBookingSystemException If there is no booking with that ID, or its seat has been taken.
+     */
+    public void restoreBooking(int bookingId) throws FlightBookingSystemException {
+        Booking booking = getBookingByID(bookingId);
+        Flight flight = booking.getFlight();
+        Customer customer = booking.getCustomer();
+        if (flight == null || customer == null) {
+            throw new FlightBookingSystemException("Customer or Flight not found.");
+        }
+        synchronized (flight) {
+            if (!booking.isCancelled()) {
+                return;
+            }
+            if (!flight.restorePassenger(customer)) {
+                throw new FlightBookingSystemException("The flight is full. The booking cannot be restored.");
+            }
+            bookings.uncancel(bookingId);
+        }
+    }
+
+    /**
+     * Adds a deleted customer back with their bookings, such as a customer whose deletion could not be
+     * written to the log. The bookings are views taken before the deletion and are added back with their details.
+     * 
+     * @param customer The deleted customer.
+     * @param customerBookings The customer's bookings as they were before the deletion.
+     * @throws FlightBookingSystemException If the flight of a booking is no longer in the system.
+     */
+    public void restoreCustomer(Customer customer, List<Booking> customerBookings) throws FlightBookingSystemException {
+        addCustomer(customer);
+        for (Booking booking : customerBookings) {
+            addBooking(booking);
+        }
+    }
+
+    /**
+     * Adds a deleted flight back with its bookings, such as a flight whose deletion could not be written to
+     * the log. The flight kept its passengers, so the bookings take no new seats.
+     * 
+     * @param flight The deleted flight.
+     * @param flightBookings The flight's bookings as they were before the deletion.
+     * @throws FlightBookingSystemException If the customer of a booking is no longer in the system.
+     */
+    public void restoreFlight(Flight flight, List<Booking> flightBookings) throws FlightBookingSystemException {
+        addFlight(flight);
+        for (Booking booking : flightBookings) {
+            addBooking(booking);
         }
-        
-        // Add the booking to the system
-        bookings.put(booking.getId(), booking);
+    }
+
+    /**
+     * Gets the bookings made by a specific customer.
+     * 
+     * @param customer The customer.
+     * @return The list of bookings for the specified customer.
+     */
+    public List<Booking> getBookingsByCustomer(Customer customer) {
+        return views(bookings.idsByCustomer(customer.getId()));
     }
 
     /**
@@ -198,13 +591,7 @@ public class FlightBookingSystem {
      * @return The list of bookings for the specified customer and flight.
      */
     public List<Booking> getBookingsByCustomerAndFlight(Customer customer, Flight flight) {
-        List<Booking> result = new ArrayList<>();
-        for (Booking booking : bookings.values()) {
-            if (booking.getCustomer().equals(customer) && booking.getFlight().equals(flight)) {
-                result.add(booking);
-            }
-        }
-        return result;
+        return views(bookings.idsByCustomerAndFlight(customer.getId(), flight.getId()));
     }
 
     /**
@@ -218,16 +605,18 @@ public class FlightBookingSystem {
         if (flight == null) {
             throw new FlightBookingSystemException("Flight not found.");
         }
-        List<Booking> flightBookings = new ArrayList<>();
-        for (Booking booking : bookings.values()) {
-            if (booking.getFlight().equals(flight)) {
-                flightBookings.add(booking);
+        // Holding the flight's monitor keeps new bookings off it while it is removed
+        synchronized (flight) {
+            synchronized (flightIndexLock) {
+                if (!flights.remove(flightId, flight)) {
+                    throw new FlightBookingSystemException("Flight not found.");
+                }
+                unindexFlight(flight);
+                flight.setSystem(null);
+                flightChanged();
             }
+            bookings.removeByFlight(flightId);
         }
-        for (Booking booking : flightBookings) {
-            bookings.remove(booking.getId());
-        }
-        flights.remove(flightId);
     }
 
     /**
@@ -241,16 +630,12 @@ public class FlightBookingSystem {
         if (customer == null) {
             throw new FlightBookingSystemException("Customer not found.");
         }
-        List<Booking> customerBookings = new ArrayList<>();
-        for (Booking booking : bookings.values()) {
-            if (booking.getCustomer().equals(customer)) {
-                customerBookings.add(booking);
-            }
-        }
-        for (Booking booking : customerBookings) {
-            bookings.remove(booking.getId());
+        if (!customers.remove(customerId, customer)) {
+            throw new FlightBookingSystemException("Customer not found.");
         }
-        customers.remove(customerId);
+        bookings.removeByCustomer(customerId);
+        customer.setSystem(null);
+        customerChanged();
     }
 
     /**
@@ -261,9 +646,21 @@ public class FlightBookingSystem {
      * @return The booking with the specified customer and flight ID.
      */
     public Booking getBookingByCustomerAndFlightId(int customerId, int flightId) {
-        for (Booking booking : bookings.values()) {
-            if (booking.getCustomer().getId() == customerId && booking.getFlight().getId() == flightId) {
-                return booking;
+        int[] ids = bookings.idsByCustomerAndFlight(customerId, flightId);
+        return ids.length == 0 ? null : new Booking(bookings, ids[0]);
+    }
+
+    /**
+     * Gets the first booking by a customer on a flight that is not cancelled.
+     * 
+     * @param customerId The ID of the customer.
+     * @param flightId The ID of the flight.
+     * @return The active booking with the specified customer and flight ID, or null if there is none.
+     */
+    public Booking getActiveBookingByCustomerAndFlightId(int customerId, int flightId) {
+        for (int id : bookings.idsByCustomerAndFlight(customerId, flightId)) {
+            if (!bookings.isCancelled(id)) {
+                return new Booking(bookings, id);
             }
         }
         return null;
@@ -276,13 +673,91 @@ public class FlightBookingSystem {
      * @return The list of bookings for the specified flight.
      */
     public List<Booking> getBookingsByFlight(Flight flight) {
-        List<Booking> bookingsByFlight = new ArrayList<>();
-        for (Booking booking : bookings.values()) {
-            if (booking.getFlight().getId() == flight.getId()) {
-                bookingsByFlight.add(booking);
+        return views(bookings.idsByFlight(flight.getId()));
+    }
+
+    /**
+     * Searches for flights on a route departing within a date range.
+     * Origin and destination are matched ignoring case and surrounding whitespace.
+     * 
+     * @param origin The origin of the flights.
+     * @param destination The destination of the flights.
+     * @param fromDate The earliest departure date, inclusive.
+     * @param toDate The latest departure date, inclusive.
+     * @return The matching flights ordered by departure date.
+     */
+    public List<Flight> searchFlights(String origin, String destination, LocalDate fromDate, LocalDate toDate) {
+        List<Flight> result = new ArrayList<>();
+        Map<String, NavigableMap<LocalDate, List<Flight>>> byDestination = flightsByRoute.get(routeKey(origin));
+        if (byDestination == null || fromDate.isAfter(toDate)) {
+            return result;
+        }
+        NavigableMap<LocalDate, List<Flight>> byDate = byDestination.get(routeKey(destination));
+        if (byDate == null) {
+            return result;
+        }
+        for (List<Flight> sameDay : byDate.subMap(fromDate, true, toDate, true).values()) {
+            result.addAll(sameDay);
+        }
+        return result;
+    }
+
+    /**
+     * Moves a booking to another flight, taking a seat on the new flight and releasing the one on the old flight.
+     * The old and new flights are locked in ID order, as {@link #addBookings} locks a group's flights, so the
+     * booking cannot be cancelled or moved and neither flight deleted while the seats change hands.
+     * The new seat is reserved first, so if the new flight is full the booking stays where it was.
+     * 
+     * @param bookingId The ID of the booking to move.
+     * @param newFlightId The ID of the new flight.
+     * @throws FlightBookingSystemException If the booking or new flight is not found, the booking is cancelled,
+     *         or the new flight is full.
+     */
+    public void moveBooking(int bookingId, int newFlightId) throws FlightBookingSystemException {
+        Booking booking = getBookingByID(bookingId);
+        Flight newFlight = getFlightByID(newFlightId);
+        if (booking.isCancelled()) {
+            throw new FlightBookingSystemException("Cannot update a canceled booking.");
+        }
+        Flight currentFlight = booking.getFlight();
+        if (currentFlight == null) {
+            throw new FlightBookingSystemException("Booking not found.");
+        }
+        if (currentFlight == newFlight) {
+            return;
+        }
+        Flight first = currentFlight.getId() < newFlight.getId() ? currentFlight : newFlight;
+        Flight second = first == currentFlight ? newFlight : currentFlight;
+        synchronized (first) {
+            synchronized (second) {
+                if (flights.get(newFlightId) != newFlight) {
+                    throw new FlightBookingSystemException("Invalid new flight ID.");
+                }
+                if (!bookings.contains(bookingId)) {
+                    throw new FlightBookingSystemException("Booking not found.");
+                }
+                if (booking.isCancelled()) {
+                    throw new FlightBookingSystemException("Cannot update a canceled booking.");
+                }
+                if (booking.getFlight() != currentFlight) {
+                    throw new FlightBookingSystemException("The booking was changed by another user. Please try again.");
+                }
+                Customer customer = booking.getCustomer();
+                boolean joined = !newFlight.hasPassenger(customer); // Whether the customer takes a new seat
+                if (!newFlight.addPassenger(customer)) {
+                    throw new FlightBookingSystemException("The new flight is full. Booking cannot be moved.");
+                }
+                try {
+                    updateBookingFlight(bookingId, newFlightId);
+                } catch (FlightBookingSystemException | RuntimeException ex) {
+                    if (joined) {
+                        newFlight.removePassenger(customer);
+                    }
+                    throw ex;
+                }
+                currentFlight.removePassenger(customer);
             }
         }
-        return bookingsByFlight;
     }
 
     /**
@@ -307,6 +782,127 @@ public class FlightBookingSystem {
             throw new FlightBookingSystemException("Invalid new flight ID.");
         }
 
+        // The store re-indexes the booking as it changes the flight
         booking.setFlight(newFlight);
     }
+
+    /**
+     * Checks the booking store's flight and customer indexes against its columns.
+     * Every booking must be reachable through its flight and customer entries,
+     * and every index entry must point to a booking with the matching customer and flight.
+     * 
+     * @return A description of each inconsistency found, or an empty list if the indexes are consistent.
+     */
+    public List<String> checkIndexConsistency() {
+        List<String> problems = new ArrayList<>();
+        bookings.checkConsistency(problems);
+        return problems;
+    }
+
+    /**
+     * Applies a change to a flight's number, route or departure date and re-indexes the flight.
+     * Called by the flight's setters once the flight has been added to the system.
+     * 
+     * @param flight The flight to change.
+     * @param newFlightNumber The flight number the flight will have.
+     * @param newDepartureDate The departure date the flight will have.
+     * @param change Assigns the new value to the flight.
+     * @throws IllegalArgumentException If another flight already has the new number and departure date.
+     */
+    void changeFlight(Flight flight, String newFlightNumber, LocalDate newDepartureDate, Runnable change) {
+        synchronized (flightIndexLock) {
+            Flight existing = flightsByNumberAndDate.get(numberAndDateKey(newFlightNumber, newDepartureDate));
+            if (existing != null && existing != flight) {
+                throw new IllegalArgumentException("There is a flight with same number and departure date in the system");
+            }
+            unindexFlight(flight);
+            change.run();
+            indexFlight(flight);
+            flightChanged();
+        }
+    }
+
+    /**
+     * Adds a flight to the number/date and route indexes.
+     * 
+     * @param flight The flight to index.
+     */
+    private void indexFlight(Flight flight) {
+        flightsByNumberAndDate.put(numberAndDateKey(flight.getFlightNumber(), flight.getDepartureDate()), flight);
+        indexRoute(flight);
+    }
+
+    /**
+     * Removes a flight from the number/date and route indexes.
+     * 
+     * @param flight The flight to remove from the indexes.
+     */
+    private void unindexFlight(Flight flight) {
+        flightsByNumberAndDate.remove(numberAndDateKey(flight.getFlightNumber(), flight.getDepartureDate()));
+        unindexRoute(flight);
+    }
+
+    /**
+     * Adds a flight to the route index.
+     * 
+     * @param flight The flight to index.
+     */
+    private void indexRoute(Flight flight) {
+        flightsByRoute.computeIfAbsent(routeKey(flight.getOrigin()), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(routeKey(flight.getDestination()), k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(flight.getDepartureDate(), k -> new CopyOnWriteArrayList<>())
+                .add(flight);
+    }
+
+    /**
+     * Removes a flight from the route index.
+     * 
+     * @param flight The flight to remove from the index.
+     */
+    private void unindexRoute(Flight flight) {
+        Map<String, NavigableMap<LocalDate, List<Flight>>> byDestination = flightsByRoute.get(routeKey(flight.getOrigin()));
+        if (byDestination == null) {
+            return;
+        }
+        NavigableMap<LocalDate, List<Flight>> byDate = byDestination.get(routeKey(flight.getDestination()));
+        if (byDate == null) {
+            return;
+        }
+        List<Flight> sameDay = byDate.get(flight.getDepartureDate());
+        if (sameDay != null) {
+            sameDay.remove(flight);
+            if (sameDay.isEmpty()) {
+                byDate.remove(flight.getDepartureDate());
+            }
+        }
+        if (byDate.isEmpty()) {
+            byDestination.remove(routeKey(flight.getDestination()));
+        }
+        if (byDestination.isEmpty()) {
+            flightsByRoute.remove(routeKey(flight.getOrigin()));
+        }
+    }
+
+    /**
+     * Creates a view of each booking ID.
+     * 
+     * @param ids The booking IDs.
+     * @return The bookings in the order of the IDs.
+     */
+    private List<Booking> views(int[] ids) {
+        List<Booking> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(new Booking(bookings, id));
+        }
+        return result;
+    }
+
+    // The date has a fixed width, so the key is unambiguous whatever the flight number contains
+    private static String numberAndDateKey(String flightNumber, LocalDate departureDate) {
+        return flightNumber + "|" + departureDate;
+    }
+
+    private static String routeKey(String place) {
+        return place.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,475 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The IntObjectMap class maps int keys to objects with open addressing, for the entity tables of the
+ * flight booking system.
+ *
+ * Keys and values sit in two parallel arrays probed linearly from the key's hash, so a lookup neither boxes
+ * the key nor follows a chain of entry objects. Removal shifts later entries of the probe run back instead of
+ * leaving tombstones. The table doubles when it is half full.
+ *
+ * The map can be shared between threads. Writers hold a {@link StampedLock} exclusively; readers probe
+ * under an optimistic stamp and only take the read lock if a write happened meanwhile. Iteration order is
+ * unspecified; {@link #sortedValues()} lists the values in key order where that is needed, and a
+ * {@link Cursor} reads them in key order a batch at a time. The key order is sorted once and kept until a
+ * key is added or removed, so repeated sorted reads of an unchanged map cost no sorting.
+ *
+ * @param <V> The type of the values.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class IntObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    private int[] keys;
+    private Object[] values; // null marks a free slot
+    private int size;
+    private volatile long[] sortedSlots; // Occupied slots in key order, or null once a key is added or removed
+
+    /**
+     * Constructs an empty IntObjectMap.
+     */
+    public IntObjectMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructs an empty IntObjectMap that holds the specified number of entries without growing.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Gets the value for a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not in the map.
+     */
+    public V get(int key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V value = find(keys, values, key);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(keys, values, key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Checks whether a key is in the map.
+     *
+     * @param key The key.
+     * @return True if the key has a value.
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value, replacing any value it had.
+     *
+     * @param key The key.
+     * @param value The value, not null.
+     * @return The previous value, or null if the key was not in the map.
+     */
+    public V put(int key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Maps a key to a value unless it already has one.
+     *
+     * @param key The key.
+     * @param value The value, not null.
+     * @return The existing value, or null if the value was added.
+     */
+    public V putIfAbsent(int key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key The key.
+     * @return The removed value, or null if the key was not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(key);
+            if (slot < 0) {
+                return null;
+            }
+            V old = (V) values[slot];
+            delete(slot);
+            return old;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a key only if it is mapped to the specified value.
+     *
+     * @param key The key.
+     * @param value The value the key must have.
+     * @return True if the key was removed.
+     */
+    public boolean remove(int key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(key);
+            if (slot < 0 || values[slot] != value) {
+                return false;
+            }
+            delete(slot);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int result = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return True if there are no entries.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Lists the values in no particular order.
+     *
+     * @return A new list of the values.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        long stamp = lock.readLock();
+        try {
+            List<V> result = new ArrayList<>(size);
+            for (Object value : values) {
+                if (value != null) {
+                    result.add((V) value);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Lists the values in ascending order of their keys.
+     *
+     * @return A new list of the values.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> sortedValues() {
+        long stamp = lock.readLock();
+        try {
+            long[] order = sortedSlots();
+            List<V> result = new ArrayList<>(order.length);
+            for (long entry : order) {
+                result.add((V) values[(int) entry]);
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Lists the keys in ascending order.
+     *
+     * @return A new array of the keys.
+     */
+    public int[] sortedKeys() {
+        long stamp = lock.readLock();
+        try {
+            long[] order = sortedSlots();
+            int[] result = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = (int) (order[i] >> 32);
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Opens a cursor over the entries in ascending key order, starting at a key.
+     *
+     * @param fromKey The smallest key to read.
+     * @return The cursor, positioned before the first entry.
+     */
+    public Cursor<V> cursor(int fromKey) {
+        return new Cursor<>(this, fromKey);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(values, null);
+            size = 0;
+            sortedSlots = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(int key, V value, boolean replace) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap does not hold null values.");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    V old = (V) values[slot];
+                    if (replace) {
+                        values[slot] = value;
+                    }
+                    return old;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            sortedSlots = null;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Probes a table that a writer may be changing; the probe is bounded so a torn read cannot loop forever
+    @SuppressWarnings("unchecked")
+    private static <V> V find(int[] keys, Object[] values, int key) {
+        if (keys.length != values.length) {
+            return null; // read between a resize's two assignments; the stamp will not validate
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        for (int probes = 0; probes < keys.length; probes++) {
+            Object value = values[slot];
+            if (value == null) {
+                return null;
+            }
+            if (keys[slot] == key) {
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion: moves later entries of the probe run into the gap so lookups still find them
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+        sortedSlots = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (newValues[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newValues[slot] = oldValues[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    // Packs each occupied slot as (key << 32 | slot) so sorting the longs sorts by key; called under a lock.
+    // A reader builds the order under the read lock, so no writer can change the table until it is published.
+    private long[] sortedSlots() {
+        long[] order = sortedSlots;
+        if (order != null) {
+            return order;
+        }
+        order = new long[size];
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                order[count++] = ((long) keys[i] << 32) | i;
+            }
+        }
+        Arrays.sort(order);
+        sortedSlots = order;
+        return order;
+    }
+
+    /**
+     * Reads the entries of a map in ascending key order, a batch at a time.
+     * Each batch is copied under the map's read lock, so its entries are consistent with each other; an entry
+     * added or removed behind the cursor's position is not seen, one ahead of it is.
+     *
+     * @param <V> The type of the values.
+     */
+    public static class Cursor<V> {
+
+        private static final int BATCH_SIZE = 256;
+
+        private final IntObjectMap<V> map;
+        private final int[] batchKeys = new int[BATCH_SIZE];
+        private final Object[] batchValues = new Object[BATCH_SIZE];
+        private int count;
+        private int index = -1;
+        private long nextKey; // The smallest key not read yet; past Integer.MAX_VALUE once the map is exhausted
+
+        private Cursor(IntObjectMap<V> map, int fromKey) {
+            this.map = map;
+            this.nextKey = fromKey;
+        }
+
+        /**
+         * Advances to the next entry.
+         *
+         * @return True if there is an entry, false once all have been read.
+         */
+        public boolean next() {
+            if (++index < count) {
+                return true;
+            }
+            if (nextKey > Integer.MAX_VALUE) {
+                return false;
+            }
+            loadBatch();
+            index = 0;
+            return count > 0;
+        }
+
+        /**
+         * Gets the key of the current entry.
+         *
+         * @return The key.
+         */
+        public int getKey() {
+            return batchKeys[index];
+        }
+
+        /**
+         * Gets the value of the current entry.
+         *
+         * @return The value.
+         */
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) batchValues[index];
+        }
+
+        private void loadBatch() {
+            long stamp = map.lock.readLock();
+            try {
+                long[] order = map.sortedSlots();
+                int start = Arrays.binarySearch(order, nextKey << 32);
+                if (start < 0) {
+                    start = -start - 1;
+                }
+                count = Math.min(BATCH_SIZE, order.length - start);
+                for (int i = 0; i < count; i++) {
+                    int slot = (int) order[start + i];
+                    batchKeys[i] = map.keys[slot];
+                    batchValues[i] = map.values[slot];
+                }
+            } finally {
+                map.lock.unlockRead(stamp);
+            }
+            Arrays.fill(batchValues, count, BATCH_SIZE, null);
+            nextKey = count == BATCH_SIZE ? batchKeys[count - 1] + 1L : Integer.MAX_VALUE + 1L;
+        }
+    }
+
+    // Fibonacci hashing spreads sequential IDs across the table
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
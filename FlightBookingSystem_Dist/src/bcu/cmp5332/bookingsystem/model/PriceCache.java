@@ -0,0 +1,107 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PriceCache class remembers the last price calculated for each flight of a flight booking system,
+ * so listing the flights again only re-prices those whose price may have changed.
+ *
+ * Prices come from the cache's {@link PricingEngine}, which sorts the days and seats left into buckets
+ * that price alike. The cached entry for a flight is keyed by its bucket, so a seat booked or released,
+ * or a date rollover, only invalidates it when it moves the flight into another bucket. Changing the
+ * flight's base price, seats or departure date discards the entry outright, and setting a new engine
+ * discards every entry.
+ *
+ * The entry itself is held by the flight as a single packed long, so looking it up needs no map and no
+ * lock. The cache counts hits and misses for monitoring.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class PriceCache {
+
+    private volatile Rules rules = new Rules(RuleTablePricingEngine.DEFAULT, 0);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Gets the price of a flight on a date, from its cached entry if that is still valid.
+     *
+     * @param flight The flight.
+     * @param currentDate The current date.
+     * @return The price of the flight.
+     */
+    int price(Flight flight, LocalDate currentDate) {
+        Rules rules = this.rules;
+        int seatsLeft = flight.getSeatsLeft();
+        int daysLeft = (int) (flight.getDepartureDate().toEpochDay() - currentDate.toEpochDay());
+        // Never 0, which marks a flight with no cached price
+        int key = rules.generation << 16 | (rules.engine.bucket(daysLeft, seatsLeft) + 1);
+        long entry = flight.getCachedPrice();
+        if ((int) (entry >>> 32) == key) {
+            hits.increment();
+            return (int) entry;
+        }
+        misses.increment();
+        int price = rules.engine.price(flight.getPrice(), daysLeft, seatsLeft);
+        flight.setCachedPrice(((long) key << 32) | (price & 0xFFFFFFFFL));
+        return price;
+    }
+
+    /**
+     * Gets the pricing engine the cache prices flights with.
+     *
+     * @return The pricing engine.
+     */
+    public PricingEngine getEngine() {
+        return rules.engine;
+    }
+
+    /**
+     * Sets the pricing engine and discards every cached price.
+     *
+     * @param engine The pricing engine.
+     */
+    public synchronized void setEngine(PricingEngine engine) {
+        rules = new Rules(engine, (rules.generation + 1) & 0x7FFF);
+    }
+
+    /**
+     * Gets the number of prices served from the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of prices that had to be calculated.
+     *
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * An engine with the generation that cache keys made with it carry, read together in one volatile read.
+     */
+    private static class Rules {
+        private final PricingEngine engine;
+        private final int generation;
+
+        Rules(PricingEngine engine, int generation) {
+            this.engine = engine;
+            this.generation = generation;
+        }
+    }
+}
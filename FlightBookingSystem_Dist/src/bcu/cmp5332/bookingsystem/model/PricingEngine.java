@@ -0,0 +1,36 @@
+package bcu.cmp5332.bookingsystem.model;
+
+/**
+ * The PricingEngine interface defines how the flight booking system prices a flight from its base price,
+ * the days left until it departs and the seats it has left.
+ *
+ * An engine also sorts its inputs into buckets: inputs in the same bucket must price alike for the same
+ * base price. The {@link PriceCache} keys its entries by bucket, so a flight is only re-priced when a
+ * booking or the passing of time moves it into another one.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public interface PricingEngine {
+
+    /** The number of buckets an engine may use; buckets run from 0 to one less than this. */
+    public static final int MAX_BUCKETS = 0xFFFF;
+
+    /**
+     * Calculates the price of a flight.
+     *
+     * @param basePrice The base price of the flight.
+     * @param daysLeft The days left until departure, 0 or less on the day of departure and after.
+     * @param seatsLeft The seats left, 0 once the flight is full.
+     * @return The price.
+     */
+    public int price(double basePrice, int daysLeft, int seatsLeft);
+
+    /**
+     * Gets the bucket of the inputs of a price.
+     *
+     * @param daysLeft The days left until departure.
+     * @param seatsLeft The seats left.
+     * @return The bucket, from 0 to {@link #MAX_BUCKETS} - 1.
+     */
+    public int bucket(int daysLeft, int seatsLeft);
+}
@@ -0,0 +1,142 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The RuleTablePricingEngine class prices flights from two rule tables.
+ *
+ * The day table maps a minimum number of days left to a factor the base price is multiplied by; the rule
+ * with the largest minimum the flight still meets applies, and the rule with the smallest minimum covers
+ * everything below it. The seat table maps a number of seats left to a surcharge added on top. A full
+ * flight is sold at its base price.
+ *
+ * The tables are copied into arrays when the engine is built, so pricing a flight walks a few ints and
+ * allocates nothing. {@link #DEFAULT} holds the system's standard rules: 1x from six days out, 2x from
+ * one day out and 3x on the day, plus $50 for each seat fewer than five.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class RuleTablePricingEngine implements PricingEngine {
+
+    /** The standard pricing rules. */
+    public static final RuleTablePricingEngine DEFAULT = defaults();
+
+    private final int[] minDaysLeft; // In descending order
+    private final double[] factors;
+    private final double[] surcharges; // Indexed by seats left; no surcharge beyond the end
+    private final int seatBuckets;
+
+    /**
+     * Constructs a RuleTablePricingEngine with the specified rule tables.
+     *
+     * @param dayFactors The price factor for each minimum number of days left; at least one rule.
+     * @param seatSurcharges The surcharge for each number of seats left, which must be at least 1.
+     * @throws IllegalArgumentException If a table is invalid or the tables need too many buckets.
+     */
+    public RuleTablePricingEngine(SortedMap<Integer, Double> dayFactors, Map<Integer, Double> seatSurcharges) {
+        if (dayFactors.isEmpty()) {
+            throw new IllegalArgumentException("The pricing rules need at least one day rule.");
+        }
+        NavigableMap<Integer, Double> descending = new TreeMap<>(dayFactors).descendingMap();
+        minDaysLeft = new int[descending.size()];
+        factors = new double[descending.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Double> rule : descending.entrySet()) {
+            minDaysLeft[i] = rule.getKey();
+            factors[i] = rule.getValue();
+            i++;
+        }
+
+        int maxSeats = 0;
+        for (int seats : seatSurcharges.keySet()) {
+            if (seats < 1) {
+                throw new IllegalArgumentException("Seat rule for " + seats + " seats left: a full flight has no surcharge.");
+            }
+            maxSeats = Math.max(maxSeats, seats);
+        }
+        if ((long) minDaysLeft.length * (maxSeats + 2) + 1 > MAX_BUCKETS) {
+            throw new IllegalArgumentException("The pricing rules have too many day or seat rules.");
+        }
+        surcharges = new double[maxSeats + 1];
+        for (Map.Entry<Integer, Double> rule : seatSurcharges.entrySet()) {
+            surcharges[rule.getKey()] = rule.getValue();
+        }
+        seatBuckets = maxSeats + 2; // 0 to maxSeats seats left, and more
+    }
+
+    @Override
+    public int price(double basePrice, int daysLeft, int seatsLeft) {
+        if (seatsLeft <= 0) {
+            return (int) basePrice;
+        }
+        double price = basePrice * factors[dayRule(daysLeft)];
+        if (seatsLeft < surcharges.length) {
+            price += surcharges[seatsLeft];
+        }
+        return (int) price;
+    }
+
+    // Bucket 0 is a full flight; otherwise one per day rule and number of seats left, with all seats beyond the seat table sharing one
+    @Override
+    public int bucket(int daysLeft, int seatsLeft) {
+        if (seatsLeft <= 0) {
+            return 0;
+        }
+        return 1 + dayRule(daysLeft) * seatBuckets + Math.min(seatsLeft, seatBuckets - 1);
+    }
+
+    /**
+     * Gets the day table.
+     *
+     * @return The price factor for each minimum number of days left, in descending order of days.
+     */
+    public Map<Integer, Double> getDayFactors() {
+        Map<Integer, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < minDaysLeft.length; i++) {
+            result.put(minDaysLeft[i], factors[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Gets the seat table.
+     *
+     * @return The surcharge for each number of seats left that has one, in ascending order of seats.
+     */
+    public Map<Integer, Double> getSeatSurcharges() {
+        Map<Integer, Double> result = new LinkedHashMap<>();
+        for (int seats = 1; seats < surcharges.length; seats++) {
+            if (surcharges[seats] != 0) {
+                result.put(seats, surcharges[seats]);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private int dayRule(int daysLeft) {
+        int last = minDaysLeft.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (daysLeft >= minDaysLeft[i]) {
+                return i;
+            }
+        }
+        return last;
+    }
+
+    private static RuleTablePricingEngine defaults() {
+        SortedMap<Integer, Double> dayFactors = new TreeMap<>();
+        dayFactors.put(6, 1.0); // Departing in 6 days or more
+        dayFactors.put(1, 2.0); // Departing in 1 to 5 days
+        dayFactors.put(0, 3.0); // Departing within 24 hours
+        Map<Integer, Double> seatSurcharges = new TreeMap<>();
+        for (int seats = 1; seats <= 4; seats++) {
+            seatSurcharges.put(seats, 50.0 * (5 - seats)); // $50 for each seat less than 5
+        }
+        return new RuleTablePricingEngine(dayFactors, seatSurcharges);
+    }
+}
@@ -0,0 +1,228 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import bcu.cmp5332.bookingsystem.data.WriteAheadLog;
+import bcu.cmp5332.bookingsystem.main.ApiServer;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The ApiServerTest class contains tests for the HTTP booking API, including a load test that reports the
+ * latency of concurrent requests.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class ApiServerTest {
+
+    /**
+     * Tests that flights, customers and bookings are served as JSON and that errors get their status codes.
+     */
+    @Test
+    public void testRequests() throws Exception {
+        // Given
+        FlightBookingSystem fbs = sampleSystem(2, 1, 1);
+        Path directory = Files.createTempDirectory("wal");
+        WriteAheadLog log = new WriteAheadLog(directory.toString());
+        ApiServer server = startServer(fbs, log, 4);
+        try {
+            // When
+            Response flight = request(server, "GET", "/api/flights/1", null);
+            Response page = request(server, "GET", "/api/customers?limit=1", null);
+            Response booked = request(server, "POST", "/api/bookings", "{\"customerId\": 1, \"flightId\": 1}");
+            Response full = request(server, "POST", "/api/bookings", "{\"customerId\": 2, \"flightId\": 1}");
+            Response cancelled = request(server, "DELETE", "/api/bookings/1", null);
+            Response missing = request(server, "GET", "/api/flights/99", null);
+            Response bad = request(server, "POST", "/api/bookings", "{\"customerId\": \"x\"}");
+            Response method = request(server, "PUT", "/api/flights", null);
+
+            // Then
+            assertEquals(200, flight.status);
+            assertTrue(flight.body, flight.body.startsWith("{\"id\":1,\"flightNumber\":\"FL1\""));
+            assertTrue(flight.body, flight.body.contains("\"seatsLeft\":1"));
+            assertEquals(200, page.status);
+            assertTrue(page.body, page.body.endsWith("],\"next\":2}"));
+            assertEquals(201, booked.status);
+            assertTrue(booked.body, booked.body.contains("\"cancelled\":false"));
+            assertEquals(409, full.status);
+            assertEquals(200, cancelled.status);
+            assertTrue(cancelled.body, cancelled.body.contains("\"cancelled\":true"));
+            assertEquals(0, fbs.getFlightByID(1).getBookedSeats());
+            assertEquals(404, missing.status);
+            assertEquals(400, bad.status);
+            assertEquals(405, method.status);
+            assertEquals(2, log.getLastLsn());
+        } finally {
+            server.stop();
+            log.close();
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Tests that concurrent clients booking and looking up flights take exactly the seats there are,
+     * and reports the median and 99th percentile latency of the requests.
+     */
+    @Test
+    public void testLoad() throws Exception {
+        // Given
+        int flights = 20;
+        int seats = 50;
+        int clients = 64;
+        int requestsPerClient = 50;
+        FlightBookingSystem fbs = sampleSystem(flights * seats * 2, flights, seats);
+        Path directory = Files.createTempDirectory("wal");
+        WriteAheadLog log = new WriteAheadLog(directory.toString());
+        ApiServer server = startServer(fbs, log, 64);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        try {
+            // When
+            List<Future<?>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        int n = client * requestsPerClient + i;
+                        int flightId = 1 + n % flights;
+                        long start = System.nanoTime();
+                        Response response;
+                        if (n % 2 == 0) {
+                            response = request(server, "POST", "/api/bookings",
+                                    "{\"customerId\": " + (1 + n / 2) + ", \"flightId\": " + flightId + "}");
+                            if (response.status == 201) {
+                                booked.incrementAndGet();
+                            } else if (response.status == 409) {
+                                refused.incrementAndGet();
+                            } else {
+                                throw new AssertionError(response.status + " " + response.body);
+                            }
+                        } else {
+                            response = request(server, "GET", "/api/flights/" + flightId, null);
+                            assertEquals(200, response.status);
+                        }
+                        latencies[n] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+            server.stop();
+            log.close();
+            deleteDirectory(directory);
+        }
+
+        // Then
+        Arrays.sort(latencies);
+        System.out.printf("API load: %d requests from %d clients, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                latencies.length, clients, latencies[latencies.length / 2] / 1e6,
+                latencies[latencies.length * 99 / 100] / 1e6, latencies[latencies.length - 1] / 1e6);
+        assertEquals(latencies.length / 2, booked.get() + refused.get());
+        int taken = 0;
+        for (int id = 1; id <= flights; id++) {
+            taken += fbs.getFlightByID(id).getBookedSeats();
+        }
+        assertEquals(booked.get(), taken);
+        assertEquals(booked.get(), fbs.getBookings().size());
+    }
+
+    /**
+     * Creates a system of customers and flights departing next month.
+     */
+    private static FlightBookingSystem sampleSystem(int customers, int flights, int seats) throws Exception {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate departure = LocalDate.now().plusDays(30);
+        for (int id = 1; id <= flights; id++) {
+            fbs.addFlight(new Flight(id, "FL" + id, "London", "Paris", departure, seats, 100));
+        }
+        for (int id = 1; id <= customers; id++) {
+            fbs.addCustomer(new Customer(id, "Customer " + id, "111", id + "@example.com"));
+        }
+        return fbs;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    private static ApiServer startServer(FlightBookingSystem fbs, WriteAheadLog log, int threads) throws IOException {
+        ApiServer server = new ApiServer(fbs, log, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), threads);
+        server.start();
+        return server;
+    }
+
+    private static Response request(ApiServer server, String method, String path, String body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    bytes.write(buffer, 0, read);
+                }
+            }
+        }
+        return new Response(status, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The status and body of a response.
+     */
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import bcu.cmp5332.bookingsystem.data.BookingDataManager;
+import bcu.cmp5332.bookingsystem.data.Checkpointer;
+import bcu.cmp5332.bookingsystem.data.CustomerDataManager;
+import bcu.cmp5332.bookingsystem.data.DataManifest;
+import bcu.cmp5332.bookingsystem.data.DatasetGenerator;
+import bcu.cmp5332.bookingsystem.data.FlightDataManager;
+import bcu.cmp5332.bookingsystem.data.ParallelLoader;
+import bcu.cmp5332.bookingsystem.data.PricingRulesDataManager;
+import bcu.cmp5332.bookingsystem.data.SnapshotDataManager;
+import bcu.cmp5332.bookingsystem.data.WriteAheadLog;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.BookingStore;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.FareTable;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * The DataManagerTest class contains unit tests for storing and reloading the flight booking system.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class DataManagerTest {
+
+    /**
+     * Creates a small flight booking system with one active and one cancelled booking.
+     *
+     * @return The populated flight booking system.
+     * @throws FlightBookingSystemException If the sample data cannot be added.
+     */
+    static FlightBookingSystem sampleSystem() throws FlightBookingSystemException {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate departure = LocalDate.now().plusDays(20);
+        Flight flight = new Flight(1, "FL1", "London", "Paris", departure, 100, 150.5);
+        Customer alice = new Customer(1, "Alice \u00dcnal", "111", "alice@example.com");
+        Customer bob = new Customer(2, "Bob", "222", "bob@example.com");
+        fbs.addFlight(flight);
+        fbs.addFlight(new Flight(2, "FL2", "Paris", "London", departure.plusDays(1), 100, 99));
+        fbs.addCustomer(alice);
+        fbs.addCustomer(bob);
+
+        Booking active = new Booking(fbs.generateBookingId(), alice, flight, LocalDate.now(), 150.5);
+        alice.addBooking(active);
+        flight.addPassenger(alice);
+        fbs.addBooking(active);
+        Booking cancelled = new Booking(fbs.generateBookingId(), bob, flight, LocalDate.now(), 150.5);
+        bob.addBooking(cancelled);
+        flight.addPassenger(bob);
+        fbs.addBooking(cancelled);
+        cancelled.cancelBooking();
+        return fbs;
+    }
+
+    /**
+     * Tests that a binary snapshot reloads the same flights, customers and bookings.
+     */
+    @Test
+    public void testSnapshotRoundTrip() throws IOException, FlightBookingSystemException {
+        // Given
+        FlightBookingSystem original = sampleSystem();
+        File file = File.createTempFile("snapshot", ".bin");
+        SnapshotDataManager manager = new SnapshotDataManager(file.getPath());
+
+        try {
+            // When
+            manager.storeData(original);
+            FlightBookingSystem loaded = new FlightBookingSystem();
+            manager.loadData(loaded);
+
+            // Then
+            assertEquals(original.getMaxBookingId(), loaded.getMaxBookingId());
+            assertEquals(2, loaded.getAllFlights().size());
+            assertEquals("Alice \u00dcnal", loaded.getCustomerByID(1).getName());
+            assertEquals(LocalDate.now().plusDays(21), loaded.getFlightByID(2).getDepartureDate());
+            assertEquals(150.5, loaded.getFlightByID(1).getPrice(), 0);
+            assertEquals(2, loaded.getBookings().size());
+            Booking cancelled = loaded.getBookingByID(2);
+            assertTrue(cancelled.isCancelled());
+            assertEquals(15.05, cancelled.getCancellationFee(), 0.0001);
+            assertEquals(2, loaded.getBookingsByFlight(loaded.getFlightByID(1)).size());
+            assertTrue(loaded.checkIndexConsistency().isEmpty());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that changes recorded in the write-ahead log are replayed on top of a snapshot,
+     * and that a torn record at the end of the log is ignored.
+     */
+    @Test
+    public void testWriteAheadLogReplay() throws IOException, FlightBookingSystemException {
+        // Given
+        FlightBookingSystem live = sampleSystem();
+        File snapshot = File.createTempFile("snapshot", ".bin");
+        Path directory = Files.createTempDirectory("wal");
+        SnapshotDataManager manager = new SnapshotDataManager(snapshot.getPath());
+
+        try {
+            manager.storeData(live);
+            try (WriteAheadLog log = new WriteAheadLog(directory.toString())) {
+                Customer carol = new Customer(3, "Carol", "333", "carol@example.com");
+                live.addCustomer(carol);
+                log.logCustomerAdded(carol);
+                Flight flight = live.getFlightByID(2);
+                Booking booking = new Booking(live.generateBookingId(), carol, flight, LocalDate.now(), 99);
+                carol.addBooking(booking);
+                flight.addPassenger(carol);
+                live.addBooking(booking);
+                log.logBookingAdded(booking);
+                live.getBookingByID(1).cancelBooking();
+                log.logBookingCancelled(live.getBookingByID(1));
+            }
+            Path segment = Files.list(directory).findFirst().get();
+            Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+            // When
+            FlightBookingSystem loaded = new FlightBookingSystem();
+            manager.loadData(loaded);
+            int applied;
+            try (WriteAheadLog log = new WriteAheadLog(directory.toString())) {
+                applied = log.replay(loaded, manager.getLogPosition());
+            }
+
+            // Then
+            assertEquals(3, applied);
+            assertEquals(3, loaded.getMaxBookingId());
+            assertEquals("Carol", loaded.getCustomerByID(3).getName());
+            assertEquals(2, loaded.getBookingByID(3).getFlight().getId());
+            assertTrue(loaded.getBookingByID(1).isCancelled());
+            assertTrue(loaded.checkIndexConsistency().isEmpty());
+        } finally {
+            snapshot.delete();
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests that a checkpoint replaces the snapshot and discards the log records it covers.
+     */
+    @Test
+    public void testCheckpoint() throws IOException, FlightBookingSystemException {
+        // Given
+        FlightBookingSystem live = sampleSystem();
+        File snapshot = File.createTempFile("snapshot", ".bin");
+        Path directory = Files.createTempDirectory("wal");
+        SnapshotDataManager manager = new SnapshotDataManager(snapshot.getPath());
+
+        try (WriteAheadLog log = new WriteAheadLog(directory.toString())) {
+            manager.storeData(live);
+            Checkpointer checkpointer = new Checkpointer(live, manager, log, 0, 2, 0);
+            Customer carol = new Customer(3, "Carol", "333", "carol@example.com");
+            live.addCustomer(carol);
+            log.logCustomerAdded(carol);
+            assertFalse(checkpointer.checkpointIfDue());
+            live.getBookingByID(1).cancelBooking();
+            log.logBookingCancelled(live.getBookingByID(1));
+
+            // When
+            assertTrue(checkpointer.checkpointIfDue());
+
+            // Then
+            assertEquals(1, checkpointer.getCheckpointCount());
+            assertEquals(snapshot.length(), checkpointer.getLastBytesWritten());
+            assertTrue(checkpointer.getLastDurationNanos() > 0);
+            assertEquals(0, log.getSize());
+            FlightBookingSystem loaded = new FlightBookingSystem();
+            manager.loadData(loaded);
+            assertEquals(2, manager.getLogPosition());
+            assertEquals(0, log.replay(loaded, manager.getLogPosition()));
+            assertEquals("Carol", loaded.getCustomerByID(3).getName());
+            assertTrue(loaded.getBookingByID(1).isCancelled());
+            assertEquals(0, checkpointer.getFailureCount());
+
+            // When
+            SnapshotDataManager unwritable = new SnapshotDataManager(new File(snapshot, "snapshot.bin").getPath());
+            Checkpointer failing = new Checkpointer(live, unwritable, log, 0, 1, 0);
+            try {
+                failing.checkpoint();
+                fail("A snapshot under a plain file should not be written");
+            } catch (IOException expected) {
+                // Then
+                assertEquals(1, failing.getFailureCount());
+                assertEquals(0, failing.getCheckpointCount());
+            }
+        } finally {
+            snapshot.delete();
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests that the dataset generator is repeatable and that its text files, loaded in sequence or in parallel,
+     * and its snapshot load the same system.
+     */
+    @Test
+    public void testDatasetGenerator() throws IOException, FlightBookingSystemException {
+        // Given
+        Path first = Files.createTempDirectory("dataset");
+        Path second = Files.createTempDirectory("dataset");
+        DatasetGenerator generator = new DatasetGenerator(7, 5000);
+        generator.setReferenceDate(LocalDate.of(2024, 6, 1));
+
+        try {
+            // When
+            generator.generate(first, true);
+            generator.generate(second, true);
+
+            // Then
+            for (String name : new String[] {"flights.txt", "customers.txt", "bookings.txt", "snapshot.bin"}) {
+                assertTrue(name, Arrays.equals(Files.readAllBytes(first.resolve(name)),
+                        Files.readAllBytes(second.resolve(name))));
+            }
+            FlightBookingSystem text = new FlightBookingSystem();
+            new FlightDataManager(first.resolve("flights.txt").toString()).loadData(text);
+            new CustomerDataManager(first.resolve("customers.txt").toString()).loadData(text);
+            new BookingDataManager(first.resolve("bookings.txt").toString()).loadData(text);
+            FlightBookingSystem snapshot = new FlightBookingSystem();
+            new SnapshotDataManager(first.resolve("snapshot.bin").toString()).loadData(snapshot);
+            FlightBookingSystem parallel = new ParallelLoader(new FlightDataManager(first.resolve("flights.txt").toString()),
+                    new CustomerDataManager(first.resolve("customers.txt").toString()),
+                    new BookingDataManager(first.resolve("bookings.txt").toString()), 3).load();
+            assertEquals(5000, parallel.getMaxBookingId());
+            assertEquals(text.getBookings().size(), parallel.getBookings().size());
+            assertEquals(text.getBookingByID(4321).getFlight().getId(), parallel.getBookingByID(4321).getFlight().getId());
+            assertEquals(text.getFlightByID(7).getBookedSeats(), parallel.getFlightByID(7).getBookedSeats());
+            assertEquals(5000, text.getMaxBookingId());
+            assertEquals(5000, snapshot.getMaxBookingId());
+            assertEquals(50, snapshot.getAllFlights().size());
+            assertEquals(500, snapshot.getCustomers().size());
+            assertEquals(text.getCustomerByID(123).getEmail(), snapshot.getCustomerByID(123).getEmail());
+            assertEquals(text.getBookingByID(4321).getBookingDate(), snapshot.getBookingByID(4321).getBookingDate());
+            for (Flight flight : text.getAllFlights()) {
+                assertTrue(flight.getBookedSeats() <= flight.getNumberOfSeats());
+            }
+        } finally {
+            for (Path directory : new Path[] {first, second}) {
+                for (File file : directory.toFile().listFiles()) {
+                    file.delete();
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    /**
+     * Tests that booking lines whose customer or flight is not in the system are skipped when loading.
+     */
+    @Test
+    public void testOrphanBookingLines() throws IOException, FlightBookingSystemException {
+        // Given
+        Path directory = Files.createTempDirectory("dataset");
+        new DatasetGenerator(7, 1000).generate(directory, false);
+        Path bookings = directory.resolve("bookings.txt");
+        Files.write(bookings, "1001,9999,1,2024-05-01,100.0\n1002,1,9999,2024-05-01,100.0\n".getBytes(),
+                StandardOpenOption.APPEND);
+
+        try {
+            // When
+            FlightBookingSystem text = new FlightBookingSystem();
+            new FlightDataManager(directory.resolve("flights.txt").toString()).loadData(text);
+            new CustomerDataManager(directory.resolve("customers.txt").toString()).loadData(text);
+            new BookingDataManager(bookings.toString()).loadData(text);
+            FlightBookingSystem parallel = new ParallelLoader(new FlightDataManager(directory.resolve("flights.txt").toString()),
+                    new CustomerDataManager(directory.resolve("customers.txt").toString()),
+                    new BookingDataManager(bookings.toString()), 2).load();
+
+            // Then
+            for (FlightBookingSystem loaded : new FlightBookingSystem[] {text, parallel}) {
+                assertEquals(1000, loaded.getBookingStore().size());
+                assertEquals(1000, loaded.getMaxBookingId());
+                assertFalse(loaded.getBookingStore().contains(1001));
+                assertFalse(loaded.getBookingStore().contains(1002));
+            }
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests that pricing rules loaded from a file price flights, both one at a time and in a published fare table.
+     */
+    @Test
+    public void testPricingRules() throws IOException, FlightBookingSystemException {
+        // Given
+        Path rules = Files.createTempFile("pricing", ".txt");
+        Files.write(rules, Arrays.asList("days,3,1.5", "days,0,4", "seats,1,10"));
+        LocalDate today = LocalDate.now();
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        fbs.addFlight(new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 1, 100));
+        fbs.addFlight(new Flight(2, "FL2", "London", "Paris", today.plusDays(2), 20, 100));
+        fbs.addFlight(new Flight(3, "FL3", "London", "Paris", today.plusDays(2), 1, 100));
+        fbs.addCustomer(new Customer(1, "Alice", "111", "alice@example.com"));
+        fbs.bookFlight(fbs.getCustomerByID(1), fbs.getFlightByID(3), today, 100);
+        int before = fbs.getFlightByID(1).calculatePrice(today);
+
+        try {
+            // When
+            new PricingRulesDataManager(rules.toString()).loadData(fbs);
+            FareTable fares = fbs.repriceAll(today);
+
+            // Then
+            assertEquals(300, before);
+            assertEquals(160, fbs.getFlightByID(1).calculatePrice(today));
+            assertEquals(400, fbs.getFlightByID(2).calculatePrice(today));
+            assertEquals(100, fbs.getFlightByID(3).calculatePrice(today));
+            assertEquals(3, fares.size());
+            for (Flight flight : fbs.getAllFlights()) {
+                assertEquals(flight.calculatePrice(today), fares.getFare(flight.getId()));
+            }
+            assertEquals(-1, fares.getFare(4));
+
+            // When
+            new PricingRulesDataManager(rules.toString()).storeData(fbs);
+
+            // Then
+            assertEquals(Arrays.asList("days,3,1.5", "days,0,4.0", "seats,1,10.0"), Files.readAllLines(rules));
+        } finally {
+            Files.delete(rules);
+        }
+    }
+
+    /**
+     * Tests that a bookings file split into ranges and parsed in parallel loads exactly as it does sequentially.
+     */
+    @Test
+    public void testChunkedBookingLoad() throws IOException, FlightBookingSystemException {
+        // Given
+        Path directory = Files.createTempDirectory("dataset");
+        DatasetGenerator generator = new DatasetGenerator(11, 150000);
+        generator.setReferenceDate(LocalDate.of(2024, 6, 1));
+
+        try {
+            generator.generate(directory, false);
+            FlightDataManager flights = new FlightDataManager(directory.resolve("flights.txt").toString());
+            CustomerDataManager customers = new CustomerDataManager(directory.resolve("customers.txt").toString());
+            BookingDataManager bookings = new BookingDataManager(directory.resolve("bookings.txt").toString());
+            assertTrue(Files.size(directory.resolve("bookings.txt")) > 4 << 20);
+
+            // When
+            FlightBookingSystem sequential = new FlightBookingSystem();
+            flights.loadData(sequential);
+            customers.loadData(sequential);
+            bookings.loadData(sequential);
+            FlightBookingSystem parallel = new ParallelLoader(flights, customers, bookings, 4).load();
+
+            // Then
+            assertEquals(sequential.getMaxBookingId(), parallel.getMaxBookingId());
+            BookingStore.Cursor expected = sequential.getBookingStore().cursor();
+            BookingStore.Cursor actual = parallel.getBookingStore().cursor();
+            while (expected.next()) {
+                assertTrue(actual.next());
+                assertEquals(expected.getId(), actual.getId());
+                assertEquals(expected.getCustomerId(), actual.getCustomerId());
+                assertEquals(expected.getFlightId(), actual.getFlightId());
+                assertEquals(expected.getBookingEpochDay(), actual.getBookingEpochDay());
+                assertEquals(expected.getPrice(), actual.getPrice(), 0);
+                assertEquals(expected.isCancelled(), actual.isCancelled());
+            }
+            assertFalse(actual.next());
+            for (Flight flight : sequential.getAllFlights()) {
+                assertEquals(flight.getBookedSeats(), parallel.getFlightByID(flight.getId()).getBookedSeats());
+            }
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests that recovery finishes renaming the files of a committed generation and drops those of an uncommitted one.
+     */
+    @Test
+    public void testManifestRecovery() throws IOException {
+        // Given
+        Path directory = Files.createTempDirectory("manifest");
+        Files.write(directory.resolve("manifest.txt"), Arrays.asList("generation,4", "file,bookings.txt,abc", "file,flights.txt,def"));
+        Files.write(directory.resolve("bookings.txt"), Arrays.asList("old"));
+        Files.write(directory.resolve("bookings.txt.4.tmp"), Arrays.asList("committed"));
+        Files.write(directory.resolve("flights.txt"), Arrays.asList("current"));
+        Files.write(directory.resolve("flights.txt.5.tmp"), Arrays.asList("uncommitted"));
+        DataManifest manifest = new DataManifest(directory.resolve("manifest.txt"));
+
+        try {
+            // When
+            manifest.recover();
+
+            // Then
+            assertEquals(4, manifest.getGeneration());
+            assertEquals("abc", manifest.getHash("bookings.txt"));
+            assertEquals(Arrays.asList("committed"), Files.readAllLines(directory.resolve("bookings.txt")));
+            assertEquals(Arrays.asList("current"), Files.readAllLines(directory.resolve("flights.txt")));
+            assertFalse(Files.exists(directory.resolve("bookings.txt.4.tmp")));
+            assertFalse(Files.exists(directory.resolve("flights.txt.5.tmp")));
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.BookingStore;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.IntObjectMap;
+
+/**
+ * The FlightBookingSystemTest class contains unit tests for the lookups, indexes and thread safety of FlightBookingSystem.
+ *
+ * @Author Subresh Thakulla / Bibek Shah
+ */
+public class FlightBookingSystemTest {
+
+    /**
+     * Tests that booking lookups by flight, customer and (customer, flight) follow adds, moves and deletes.
+     */
+    @Test
+    public void testBookingIndexes() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate departure = LocalDate.now().plusDays(10);
+        Flight first = new Flight(1, "FL1", "London", "Paris", departure, 100, 100);
+        Flight second = new Flight(2, "FL2", "London", "Rome", departure, 100, 100);
+        Customer alice = new Customer(1, "Alice", "111", "alice@example.com");
+        Customer bob = new Customer(2, "Bob", "222", "bob@example.com");
+        fbs.addFlight(first);
+        fbs.addFlight(second);
+        fbs.addCustomer(alice);
+        fbs.addCustomer(bob);
+        Booking aliceFirst = new Booking(1, alice, first, LocalDate.now(), 100);
+        Booking bobFirst = new Booking(2, bob, first, LocalDate.now(), 100);
+        Booking aliceSecond = new Booking(3, alice, second, LocalDate.now(), 100);
+
+        // When
+        fbs.addBooking(aliceFirst);
+        fbs.addBooking(bobFirst);
+        fbs.addBooking(aliceSecond);
+
+        // Then
+        assertEquals(2, fbs.getBookingsByFlight(first).size());
+        assertEquals(2, fbs.getBookingsByCustomer(alice).size());
+        assertEquals(aliceFirst, fbs.getBookingsByCustomer(alice).get(0));
+        assertEquals(aliceSecond, fbs.getBookingByCustomerAndFlightId(1, 2));
+        assertTrue(fbs.checkIndexConsistency().isEmpty());
+
+        // When
+        fbs.updateBookingFlight(2, 2);
+
+        // Then
+        assertEquals(1, fbs.getBookingsByFlight(first).size());
+        assertEquals(bobFirst, fbs.getBookingByCustomerAndFlightId(2, 2));
+        assertNull(fbs.getBookingByCustomerAndFlightId(2, 1));
+        assertTrue(fbs.checkIndexConsistency().isEmpty());
+
+        // When
+        fbs.deleteCustomer(1);
+
+        // Then
+        List<Booking> remaining = fbs.getBookingsByFlight(second);
+        assertEquals(1, remaining.size());
+        assertEquals(bobFirst, remaining.get(0));
+        assertTrue(fbs.getBookingsByFlight(first).isEmpty());
+        assertEquals(1, fbs.getBookings().size());
+        assertTrue(fbs.checkIndexConsistency().isEmpty());
+    }
+
+    /**
+     * Tests that a route search returns only flights on that route within the date range, in date order.
+     */
+    @Test
+    public void testSearchFlights() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight late = new Flight(1, "FL1", "London", "Paris", today.plusDays(9), 100, 100);
+        Flight early = new Flight(2, "FL2", "London", "Paris", today.plusDays(3), 100, 100);
+        Flight outOfRange = new Flight(3, "FL3", "London", "Paris", today.plusDays(30), 100, 100);
+        Flight otherRoute = new Flight(4, "FL4", "London", "Rome", today.plusDays(5), 100, 100);
+        fbs.addFlight(late);
+        fbs.addFlight(early);
+        fbs.addFlight(outOfRange);
+        fbs.addFlight(otherRoute);
+
+        // When
+        List<Flight> found = fbs.searchFlights("london", "PARIS", today, today.plusDays(10));
+
+        // Then
+        assertEquals(2, found.size());
+        assertSame(early, found.get(0));
+        assertSame(late, found.get(1));
+
+        // When
+        fbs.deleteFlight(2);
+
+        // Then
+        assertEquals(1, fbs.searchFlights("London", "Paris", today, today.plusDays(10)).size());
+        assertTrue(fbs.searchFlights("Paris", "London", today, today.plusDays(10)).isEmpty());
+    }
+
+    /**
+     * Tests that a flight number can only be used once per departure date, including through setters.
+     */
+    @Test
+    public void testDuplicateFlightNumberAndDate() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate departure = LocalDate.now().plusDays(5);
+        Flight first = new Flight(1, "FL1", "London", "Paris", departure, 100, 100);
+        Flight second = new Flight(2, "FL1", "London", "Paris", departure.plusDays(1), 100, 100);
+        fbs.addFlight(first);
+        fbs.addFlight(second);
+
+        // When
+        boolean duplicateRejected = false;
+        try {
+            fbs.addFlight(new Flight(3, "FL1", "Rome", "Oslo", departure, 100, 100));
+        } catch (FlightBookingSystemException ex) {
+            duplicateRejected = true;
+        }
+
+        // Then
+        assertTrue(duplicateRejected);
+
+        // When
+        boolean setterRejected = false;
+        try {
+            second.setDepartureDate(departure);
+        } catch (IllegalArgumentException ex) {
+            setterRejected = true;
+        }
+        first.setDepartureDate(departure.plusDays(2));
+        first.setDestination("Rome");
+
+        // Then
+        assertTrue(setterRejected);
+        assertEquals(departure.plusDays(1), second.getDepartureDate());
+        fbs.addFlight(new Flight(3, "FL1", "London", "Paris", departure, 100, 100));
+        assertSame(first, fbs.searchFlights("London", "Rome", departure, departure.plusDays(2)).get(0));
+    }
+
+    /**
+     * Tests that bookings, cancellations and moves reserve and release seats on the flight's counter.
+     */
+    @Test
+    public void testSeatCounter() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate departure = LocalDate.now().plusDays(10);
+        Flight small = new Flight(1, "FL1", "London", "Paris", departure, 1, 100);
+        Flight large = new Flight(2, "FL2", "London", "Paris", departure, 5, 100);
+        Customer alice = new Customer(1, "Alice", "111", "alice@example.com");
+        Customer bob = new Customer(2, "Bob", "222", "bob@example.com");
+        fbs.addFlight(small);
+        fbs.addFlight(large);
+        fbs.addCustomer(alice);
+        fbs.addCustomer(bob);
+
+        // When
+        Booking aliceSmall = fbs.bookFlight(alice, small, LocalDate.now(), 100);
+        Booking bobLarge = fbs.bookFlight(bob, large, LocalDate.now(), 100);
+
+        // Then
+        assertTrue(small.isFullyBooked());
+        assertEquals(0, small.getSeatsLeft());
+        assertEquals(4, large.getSeatsLeft());
+        try {
+            fbs.moveBooking(bobLarge.getId(), small.getId());
+            fail("A booking was moved onto a full flight");
+        } catch (FlightBookingSystemException ex) {
+            assertSame(large, bobLarge.getFlight());
+        }
+
+        // When
+        fbs.moveBooking(aliceSmall.getId(), large.getId());
+
+        // Then
+        assertEquals(1, small.getSeatsLeft());
+        assertEquals(3, large.getSeatsLeft());
+
+        // When
+        bobLarge.cancelBooking();
+
+        // Then
+        assertEquals(4, large.getSeatsLeft());
+        assertEquals(1, large.getPassengers().size());
+    }
+
+    /**
+     * Tests that the price cache serves unchanged flights and re-prices those whose seats, date or price moved.
+     */
+    @Test
+    public void testPriceCache() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight flight = new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 5, 100);
+        fbs.addFlight(flight);
+        fbs.addCustomer(new Customer(1, "Alice", "111", "alice@example.com"));
+
+        // When
+        int first = flight.calculatePrice(today);
+        int second = flight.calculatePrice(today);
+        int nextDay = flight.calculatePrice(today.plusDays(1));
+
+        // Then
+        assertEquals(100, first);
+        assertEquals(100, second);
+        assertEquals(100, nextDay);
+        assertEquals(1, fbs.getPriceCache().getMisses());
+        assertEquals(2, fbs.getPriceCache().getHits());
+
+        // When
+        fbs.bookFlight(fbs.getCustomerByID(1), flight, today, 100);
+        int fewerSeats = flight.calculatePrice(today);
+        int lastWeek = flight.calculatePrice(today.plusDays(5));
+        flight.setPrice(200);
+        int repriced = flight.calculatePrice(today.plusDays(5));
+
+        // Then
+        assertEquals(150, fewerSeats);
+        assertEquals(250, lastWeek);
+        assertEquals(450, repriced);
+        assertEquals(2, fbs.getPriceCache().getHits());
+        assertEquals(4, fbs.getPriceCache().getMisses());
+    }
+
+    /**
+     * Tests that each change moves the version of exactly the table it changes.
+     */
+    @Test
+    public void testChangeVersions() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight flight = new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 5, 100);
+        Customer customer = new Customer(1, "Alice", "111", "alice@example.com");
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking booking = fbs.bookFlight(customer, flight, today, 100);
+        long customers = fbs.getCustomersVersion();
+        long flights = fbs.getFlightsVersion();
+        long bookings = fbs.getBookingsVersion();
+
+        // When
+        booking.cancelBooking();
+
+        // Then
+        assertEquals(customers, fbs.getCustomersVersion());
+        assertEquals(flights, fbs.getFlightsVersion());
+        assertTrue(fbs.getBookingsVersion() > bookings);
+
+        // When
+        bookings = fbs.getBookingsVersion();
+        customer.setPhone("222");
+        flight.setDestination("Rome");
+
+        // Then
+        assertTrue(fbs.getCustomersVersion() > customers);
+        assertTrue(fbs.getFlightsVersion() > flights);
+        assertEquals(bookings, fbs.getBookingsVersion());
+
+        // When
+        long version = fbs.getVersion();
+        fbs.getFlights();
+        fbs.getBookingsByCustomer(customer);
+        flight.calculatePrice(today);
+
+        // Then
+        assertEquals(version, fbs.getVersion());
+    }
+
+    /**
+     * Tests that 64 threads booking the same flight at once take exactly the seats it has.
+     */
+    @Test
+    public void testConcurrentBookingsOnSameFlight() throws Exception {
+        final int threads = 64;
+        final int seats = 40;
+        for (int round = 0; round < 20; round++) {
+            // Given
+            FlightBookingSystem fbs = new FlightBookingSystem();
+            Flight flight = new Flight(1, "FL1", "London", "Paris", LocalDate.now().plusDays(30), seats, 100);
+            fbs.addFlight(flight);
+            for (int i = 1; i <= threads; i++) {
+                fbs.addCustomer(new Customer(i, "Customer " + i, "000", "c" + i + "@example.com"));
+            }
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger booked = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            Set<Integer> ids = ConcurrentHashMap.newKeySet();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+            // When
+            for (int i = 1; i <= threads; i++) {
+                Customer customer = fbs.getCustomerByID(i);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        ids.add(fbs.bookFlight(customer, flight, LocalDate.now(), 100).getId());
+                        booked.incrementAndGet();
+                    } catch (FlightBookingSystemException ex) {
+                        rejected.incrementAndGet();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+            // Then
+            assertEquals(seats, booked.get());
+            assertEquals(threads - seats, rejected.get());
+            assertEquals(seats, ids.size());
+            assertEquals(seats, flight.getPassengers().size());
+            assertEquals(seats, fbs.getBookingsByFlight(flight).size());
+            assertEquals(seats, fbs.getMaxBookingId());
+            assertTrue(fbs.checkIndexConsistency().isEmpty());
+        }
+    }
+
+    /**
+     * Tests that the entity tables' int map agrees with a HashMap through random puts and removes,
+     * which exercise probe runs that wrap around the table and backward-shift deletion.
+     */
+    @Test
+    public void testIntObjectMap() {
+        // Given
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // When
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), map.size());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        List<Integer> sorted = new ArrayList<>();
+        for (int key : new TreeMap<>(expected).keySet()) {
+            sorted.add(expected.get(key));
+        }
+        assertEquals(sorted, map.sortedValues());
+    }
+
+    /**
+     * Tests that a cursor pages through a map in key order from any key and sees keys added after a sorted read.
+     */
+    @Test
+    public void testIntObjectMapCursor() {
+        // Given
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            int key = random.nextInt(4000) - 2000;
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        map.sortedValues();
+        map.put(5000, -1);
+        expected.put(5000, -1);
+
+        // When
+        List<Integer> all = new ArrayList<>();
+        IntObjectMap.Cursor<Integer> cursor = map.cursor(Integer.MIN_VALUE);
+        while (cursor.next()) {
+            all.add(cursor.getValue());
+        }
+        List<Integer> tail = new ArrayList<>();
+        cursor = map.cursor(17);
+        while (cursor.next()) {
+            assertEquals(expected.get(cursor.getKey()), cursor.getValue());
+            tail.add(cursor.getKey());
+        }
+
+        // Then
+        assertEquals(new ArrayList<>(expected.values()), all);
+        assertEquals(new ArrayList<>(expected.tailMap(17).keySet()), tail);
+        assertEquals(new ArrayList<>(expected.values()), map.sortedValues());
+    }
+
+    /**
+     * Tests that a group booking takes every seat it needs with contiguous IDs, or takes none of them.
+     */
+    @Test
+    public void testGroupBooking() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight large = new Flight(1, "FL1", "Paris", "London", today.plusDays(11), 10, 100);
+        Flight small = new Flight(2, "FL2", "London", "Paris", today.plusDays(10), 3, 100);
+        fbs.addFlight(small);
+        fbs.addFlight(large);
+        Customer late = new Customer(5, "Customer 5", "111", "5@example.com");
+        fbs.addCustomer(late);
+        List<Booking> group = new ArrayList<>();
+        List<Booking> split = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Customer customer = new Customer(i, "Customer " + i, "111", i + "@example.com");
+            fbs.addCustomer(customer);
+            group.add(new Booking(0, customer, large, today, 100));
+            split.add(new Booking(0, customer, i % 2 == 0 ? small : large, today, 100));
+        }
+        fbs.bookFlight(fbs.getCustomerByID(1), large, today, 100);
+
+        // When
+        List<Booking> booked = fbs.addBookings(group);
+
+        // Then
+        assertEquals(4, booked.size());
+        for (int i = 1; i < booked.size(); i++) {
+            assertEquals(booked.get(0).getId() + i, booked.get(i).getId());
+        }
+        assertEquals(4, large.getBookedSeats()); // Customer 1 was already aboard
+        assertEquals(5, fbs.getBookings().size());
+
+        // When
+        group.clear();
+        for (int i = 1; i <= 4; i++) {
+            group.add(new Booking(0, fbs.getCustomerByID(i), small, today, 100));
+        }
+        group.add(new Booking(0, late, large, today, 100)); // Large is reserved first, then given back
+        try {
+            fbs.addBookings(group);
+            fail("A group larger than the seats left should not be booked");
+        } catch (FlightBookingSystemException expected) {
+            // Then
+            assertEquals(0, small.getBookedSeats());
+            assertEquals(4, large.getBookedSeats());
+            assertEquals(5, fbs.getBookings().size());
+        }
+
+        // When
+        booked = fbs.addBookings(split);
+
+        // Then
+        assertEquals(2, small.getBookedSeats());
+        assertEquals(9, fbs.getBookings().size());
+    }
+
+    /**
+     * Tests that undoing a booking or a cancellation puts the seats back as they were.
+     */
+    @Test
+    public void testUndoBookingChanges() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight flight = new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 2, 100);
+        Customer customer = new Customer(1, "Alice", "111", "alice@example.com");
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking first = fbs.bookFlight(customer, flight, today, 100);
+        Booking second = fbs.bookFlight(customer, flight, today, 100);
+
+        // When
+        fbs.removeBooking(second.getId());
+
+        // Then
+        assertEquals(1, flight.getBookedSeats()); // The first booking still holds the seat
+        assertEquals(1, fbs.getBookings().size());
+
+        // When
+        first.cancelBooking();
+        fbs.restoreBooking(first.getId());
+
+        // Then
+        assertEquals(1, flight.getBookedSeats());
+        assertFalse(first.isCancelled());
+
+        // When
+        fbs.removeBooking(first.getId());
+
+        // Then
+        assertEquals(0, flight.getBookedSeats());
+        assertEquals(0, fbs.getBookings().size());
+    }
+
+    /**
+     * Tests that a deleted customer and a deleted flight are added back with their bookings.
+     */
+    @Test
+    public void testRestoreDeletedCustomerAndFlight() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight flight = new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 2, 100);
+        Customer customer = new Customer(1, "Alice", "111", "alice@example.com");
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking booking = fbs.bookFlight(customer, flight, today, 100);
+        List<Booking> customerBookings = fbs.getBookingsByCustomer(customer);
+        fbs.deleteCustomer(1);
+
+        // When
+        fbs.restoreCustomer(customer, customerBookings);
+
+        // Then
+        assertEquals(customer, fbs.getCustomerByID(1));
+        assertEquals(booking, fbs.getActiveBookingByCustomerAndFlightId(1, 1));
+        assertEquals(1, flight.getBookedSeats());
+
+        // When
+        List<Booking> flightBookings = fbs.getBookingsByFlight(flight);
+        fbs.deleteFlight(1);
+        fbs.restoreFlight(flight, flightBookings);
+
+        // Then
+        assertEquals(flight, fbs.getFlightByID(1));
+        assertEquals(1, fbs.getBookings().size());
+        assertEquals(1, flight.getBookedSeats());
+        assertTrue(fbs.checkIndexConsistency().isEmpty());
+    }
+
+    /**
+     * Tests that the active booking is found for a customer who cancelled and rebooked a flight.
+     */
+    @Test
+    public void testActiveBookingAfterRebooking() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight flight = new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 2, 100);
+        Customer customer = new Customer(1, "Alice", "111", "alice@example.com");
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking cancelled = fbs.bookFlight(customer, flight, today, 100);
+        cancelled.cancelBooking();
+
+        // When
+        Booking rebooked = fbs.bookFlight(customer, flight, today, 100);
+
+        // Then
+        assertEquals(cancelled, fbs.getBookingByCustomerAndFlightId(1, 1));
+        assertEquals(rebooked, fbs.getActiveBookingByCustomerAndFlightId(1, 1));
+
+        // When
+        rebooked.cancelBooking();
+
+        // Then
+        assertNull(fbs.getActiveBookingByCustomerAndFlightId(1, 1));
+    }
+
+    /**
+     * Tests that a cursor over a copy of the bookings reads them as they were when it was opened.
+     */
+    @Test
+    public void testCopyCursor() throws FlightBookingSystemException {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate today = LocalDate.now();
+        Flight flight = new Flight(1, "FL1", "London", "Paris", today.plusDays(10), 5, 100);
+        Customer customer = new Customer(1, "Alice", "111", "alice@example.com");
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking first = fbs.bookFlight(customer, flight, today, 100);
+        BookingStore.Cursor copy = fbs.getBookingStore().copyCursor();
+
+        // When
+        first.cancelBooking();
+        fbs.bookFlight(customer, flight, today, 120);
+
+        // Then
+        assertTrue(copy.next());
+        assertEquals(first.getId(), copy.getId());
+        assertFalse(copy.isCancelled());
+        assertEquals(0, copy.getCancellationFee(), 0);
+        assertFalse(copy.next());
+    }
+}
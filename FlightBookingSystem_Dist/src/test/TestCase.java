@@ -2,16 +2,37 @@ package test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 
 import org.junit.Test;
 
+import bcu.cmp5332.bookingsystem.commands.AddCustomer;
+import bcu.cmp5332.bookingsystem.commands.Command;
+import bcu.cmp5332.bookingsystem.commands.ConsoleOutput;
+import bcu.cmp5332.bookingsystem.commands.Help;
+import bcu.cmp5332.bookingsystem.data.WriteAheadLog;
+import bcu.cmp5332.bookingsystem.main.BatchRunner;
+import bcu.cmp5332.bookingsystem.main.CommandLine;
+import bcu.cmp5332.bookingsystem.main.CommandParser;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 /**
- * The TestCase class contains unit tests for creating Flight and Customer objects.
+ * The TestCase class contains unit tests for creating Flight and Customer objects and running commands.
  * 
  * @Author Subresh Thakulla / Bibek Shah
  */
@@ -66,4 +87,122 @@ public class TestCase {
         assertEquals(phoneNumber, customer.getPhone());
         assertEquals(email, customer.getEmail());
     }
+
+    /**
+     * Tests that console output writes the rows formatted in its builder, pausing after each page until stopped.
+     */
+    @Test
+    public void testConsoleOutput() throws IOException {
+        // Given
+        Customer alice = new Customer(1, "Alice", "111", "alice@example.com");
+        Customer bob = new Customer(2, "Bob", "222", "bob@example.com");
+        Customer carol = new Customer(3, "Carol", "333", "carol@example.com");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleOutput out = new ConsoleOutput(bytes, 2, new BufferedReader(new StringReader("q\n")));
+
+        // When
+        int written = 0;
+        for (Customer customer : new Customer[] {alice, bob, carol}) {
+            customer.appendDetailsShort(out.row());
+            written++;
+            if (!out.endRow()) {
+                break;
+            }
+        }
+        out.println("Total: ", written);
+        out.flush();
+
+        // Then
+        assertEquals(2, written);
+        assertTrue(out.isStopped());
+        String[] lines = bytes.toString().split("\n");
+        assertEquals(alice.getDetailsShort(), lines[0]);
+        assertEquals(bob.getDetailsShort(), lines[1]);
+        assertTrue(lines[2].endsWith("Total: 2"));
+    }
+
+    /**
+     * Tests that a batch script runs its inline commands, reports the ones that fail, and stops at exit.
+     */
+    @Test
+    public void testBatchRunner() throws Exception {
+        // Given
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        fbs.addFlight(new Flight(1, "FL1", "London", "Paris", LocalDate.now().plusDays(7), 10, 100));
+        fbs.addCustomer(new Customer(1, "Ann Lee", "111", "ann@example.com"));
+        Path directory = Files.createTempDirectory("wal");
+        WriteAheadLog log = new WriteAheadLog(directory.toString());
+        String script = "# Comments and blank lines are skipped\n"
+                + "\n"
+                + "showcustomer 1\n"
+                + "showflight 99\n"
+                + "addflight FL2\n"
+                + "listflights 1 5\n"
+                + "exit\n"
+                + "showflight 1\n";
+        try {
+            BatchRunner runner = new BatchRunner(fbs, log, 2);
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+            // When
+            runner.run(new BufferedReader(new StringReader(script)), new PrintStream(errors, true));
+            Command command = CommandParser.parse("addcustomer \"Bo Ng\" 222 bo@example.com", fbs, false);
+
+            // Then
+            assertEquals(7, runner.getLines());
+            assertEquals(2, runner.getExecuted());
+            assertEquals(2, runner.getFailed());
+            assertEquals(3, runner.getSyncs());
+            assertTrue(errors.toString().startsWith("Line 4: "));
+            assertTrue(command instanceof AddCustomer);
+            try {
+                CommandParser.parse("addcustomer", fbs, false);
+                fail("A command without its details should not prompt in a batch");
+            } catch (FlightBookingSystemException expected) {
+                // Then
+                assertEquals("Invalid command.", expected.getMessage());
+            }
+        } finally {
+            log.close();
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests that a command line is split into quoted and plain words, and that a registered command is parsed.
+     */
+    @Test
+    public void testCommandLine() throws Exception {
+        // Given
+        CommandLine line = CommandLine.tokenize("  addflight \"FL 1\" London   Paris 2030-01-31 -5 2147483647 ");
+        CommandParser.register("ping", (tokens, fbs, prompt) -> tokens.size() == 0 ? new Help() : null);
+
+        try {
+            // When
+            Command ping = CommandParser.parse("ping", new FlightBookingSystem(), false);
+
+            // Then
+            assertTrue(ping instanceof Help);
+        } finally {
+            CommandParser.unregister("ping");
+        }
+        assertNull(CommandParser.getCommandFactory("ping"));
+        assertEquals("addflight", line.getName());
+        assertEquals(6, line.size());
+        assertEquals("FL 1", line.getString(0));
+        assertEquals("Paris", line.getString(2));
+        assertEquals(LocalDate.of(2030, 1, 31), line.getDate(3));
+        assertEquals(-5, line.getInt(4));
+        assertEquals(Integer.MAX_VALUE, line.getInt(5));
+        try {
+            CommandLine.tokenize("showflight 2147483648").getInt(0);
+            fail("A number larger than an int should not be read");
+        } catch (NumberFormatException expected) {
+            // Then
+            assertTrue(expected.getMessage().contains("2147483648"));
+        }
+    }
 }